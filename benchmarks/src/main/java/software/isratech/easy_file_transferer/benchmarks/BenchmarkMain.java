@@ -0,0 +1,28 @@
+package software.isratech.easy_file_transferer.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks with JMH, writing the results as JSON unless another result format was requested,
+ * so the results of different versions can be compared.
+ */
+public class BenchmarkMain {
+
+    /**
+     * File the results are written to by default.
+     */
+    private static final String DEFAULT_RESULT_FILE = "jmh-results.json";
+
+    /**
+     * @param args - JMH's command line options.
+     */
+    public static void main(final String[] args) throws Exception {
+        final List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.addAll(0, List.of("-rf", "json", "-rff", DEFAULT_RESULT_FILE));
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,86 @@
+package software.isratech.easy_file_transferer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import software.isratech.easy_file_transferer.net.SubnetScanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scans the loopback subnet for a server, which answers pings like the application's server does.
+ * Every other address of the subnet refuses the connection, so this measures the scanner's own overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DiscoveryBenchmark {
+
+    /**
+     * Answers pings.
+     */
+    private ServerSocket serverSocket;
+
+    /**
+     * Starts answering pings on loopback.
+     */
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        serverSocket = new ServerSocket(0, 256, InetAddress.getByName("127.0.0.1"));
+        final Thread serverThread = new Thread(this::answerPings, "ping-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    /**
+     * Stops answering pings.
+     */
+    @TearDown(Level.Trial)
+    public void stopServer() throws IOException {
+        serverSocket.close();
+    }
+
+    /**
+     * Scans the subnet until the server was found.
+     *
+     * @return the server's address.
+     */
+    @Benchmark
+    public String scan() throws IOException {
+        final AtomicBoolean stopScanning = new AtomicBoolean(false);
+        final AtomicReference<String> foundServer = new AtomicReference<>();
+        SubnetScanner.scan("127.0.0.", serverSocket.getLocalPort(), stopScanning, hostName -> {
+            foundServer.set(hostName);
+            stopScanning.set(true);
+        });
+        return foundServer.get();
+    }
+
+    /**
+     * Answers each connection's ping with a reply, until the server socket is closed.
+     */
+    private void answerPings() {
+        while (!serverSocket.isClosed()) {
+            try (final Socket socket = serverSocket.accept()) {
+                final InputStream inputStream = socket.getInputStream();
+                int read;
+                while ((read = inputStream.read()) != -1 && read != '\n') ;
+                final OutputStream outputStream = socket.getOutputStream();
+                outputStream.write("REPLY\n".getBytes(StandardCharsets.UTF_8));
+                outputStream.flush();
+            } catch (IOException e) {
+                // the server socket was closed or the scanner gave up on the connection
+            }
+        }
+    }
+}
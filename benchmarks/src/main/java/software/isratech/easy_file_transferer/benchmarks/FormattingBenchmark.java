@@ -0,0 +1,29 @@
+package software.isratech.easy_file_transferer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import software.isratech.easy_file_transferer.net.Communication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures formatting file sizes, which happens on every progress update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormattingBenchmark {
+
+    /**
+     * The formatted size, in bytes.
+     */
+    @Param({"512", "1500000", "4294967296", "9223372036854775807"})
+    public long fileSize;
+
+    @Benchmark
+    public String getHumanReadableFileSize() {
+        return Communication.getHumanReadableFileSize(fileSize);
+    }
+}
@@ -0,0 +1,77 @@
+package software.isratech.easy_file_transferer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import software.isratech.easy_file_transferer.hashing.HashAlgorithm;
+import software.isratech.easy_file_transferer.hashing.Hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares hashing a whole file with plain SHA-256 to hashing its chunks in parallel as a tree, and to looking up
+ * the hash of the unchanged file in the hash cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HashingBenchmark {
+
+    /**
+     * Size of the hashed file, in bytes.
+     */
+    @Param({"67108864", "1073741824"})
+    public long fileSize;
+
+    /**
+     * The hashed file.
+     */
+    private File file;
+
+    /**
+     * Writes a file of random content.
+     */
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        file = Files.createTempFile("hashing-benchmark", ".bin").toFile();
+        final byte[] block = new byte[1 << 20];
+        final Random random = new Random(fileSize);
+        try (final OutputStream outputStream = Files.newOutputStream(file.toPath())) {
+            for (long written = 0L; written < fileSize; written += block.length) {
+                random.nextBytes(block);
+                outputStream.write(block, 0, (int) Math.min(block.length, fileSize - written));
+            }
+        }
+    }
+
+    /**
+     * Deletes the file.
+     */
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(Path.of(file.getPath()));
+    }
+
+    @Benchmark
+    public String sha256() throws IOException, NoSuchAlgorithmException {
+        return Hashing.getFileHash(file, HashAlgorithm.SHA256);
+    }
+
+    @Benchmark
+    public String cachedSha256() throws IOException, NoSuchAlgorithmException {
+        return Hashing.getSHA256FileHash(file);
+    }
+
+    @Benchmark
+    public String tree() throws IOException, NoSuchAlgorithmException {
+        return Hashing.getFileHash(file, HashAlgorithm.TREE);
+    }
+}
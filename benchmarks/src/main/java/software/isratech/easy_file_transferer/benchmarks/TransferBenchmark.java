@@ -0,0 +1,149 @@
+package software.isratech.easy_file_transferer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import software.isratech.easy_file_transferer.hashing.Hashing;
+import software.isratech.easy_file_transferer.net.TransferEngine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Sends a file from a sender to a receiver over loopback, the way a server sends it to a client.
+ * The sender either uses sendfile on a socket channel, like the application, or writes to a stream, like plain
+ * sockets do. The receiver hashes the data while writing it to disk, like a client does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransferBenchmark {
+
+    /**
+     * Size of the sent file, in bytes.
+     */
+    @Param({"67108864", "536870912"})
+    public long fileSize;
+
+    /**
+     * Size of the sockets' send and receive buffers, in bytes.
+     */
+    @Param({"65536", "1048576", "4194304"})
+    public int socketBufferSize;
+
+    /**
+     * Percentage of the file the receiver already has, so only the rest is sent.
+     */
+    @Param({"0", "50"})
+    public int resumePercentage;
+
+    /**
+     * How the sender writes to the socket: SENDFILE or STREAM.
+     */
+    @Param({"SENDFILE", "STREAM"})
+    public String sender;
+
+    /**
+     * The sent file.
+     */
+    private Path sourceFile;
+
+    /**
+     * The received file.
+     */
+    private Path targetFile;
+
+    /**
+     * Accepts the receiver's connections.
+     */
+    private ServerSocketChannel serverSocketChannel;
+
+    /**
+     * Runs the sender.
+     */
+    private ExecutorService senderThread;
+
+    /**
+     * Writes a file of random content and starts listening on loopback.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        sourceFile = Files.createTempFile("transfer-benchmark", ".bin");
+        targetFile = Files.createTempFile("transfer-benchmark", ".received");
+        final byte[] block = new byte[1 << 20];
+        final Random random = new Random(fileSize);
+        try (final OutputStream outputStream = Files.newOutputStream(sourceFile)) {
+            for (long written = 0L; written < fileSize; written += block.length) {
+                random.nextBytes(block);
+                outputStream.write(block, 0, (int) Math.min(block.length, fileSize - written));
+            }
+        }
+        serverSocketChannel = ServerSocketChannel.open();
+        serverSocketChannel.setOption(StandardSocketOptions.SO_RCVBUF, socketBufferSize);
+        serverSocketChannel.bind(new InetSocketAddress("127.0.0.1", 0));
+        senderThread = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Stops listening and deletes the files.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        senderThread.shutdownNow();
+        serverSocketChannel.close();
+        Files.deleteIfExists(sourceFile);
+        Files.deleteIfExists(targetFile);
+    }
+
+    /**
+     * Sends the missing part of the file over a new connection.
+     *
+     * @return the hash of the received data.
+     */
+    @Benchmark
+    public byte[] transfer() throws IOException, NoSuchAlgorithmException, InterruptedException, ExecutionException {
+        final long offset = fileSize * resumePercentage / 100;
+        final long count = fileSize - offset;
+        final Future<?> sending = senderThread.submit(() -> {
+            try (
+                    final SocketChannel socketChannel = serverSocketChannel.accept();
+                    final FileChannel fileChannel = FileChannel.open(sourceFile, StandardOpenOption.READ)
+            ) {
+                socketChannel.setOption(StandardSocketOptions.SO_SNDBUF, socketBufferSize);
+                final WritableByteChannel target = "STREAM".equals(sender)
+                        ? Channels.newChannel(socketChannel.socket().getOutputStream())
+                        : socketChannel;
+                TransferEngine.sendFile(fileChannel, target, offset, count, sent -> {
+                });
+            }
+            return null;
+        });
+        final MessageDigest messageDigest = Hashing.newSHA256Digest();
+        try (
+                final SocketChannel socketChannel = SocketChannel.open();
+                final FileChannel fileChannel = FileChannel.open(targetFile, StandardOpenOption.WRITE)
+        ) {
+            socketChannel.setOption(StandardSocketOptions.SO_RCVBUF, socketBufferSize);
+            socketChannel.connect(serverSocketChannel.getLocalAddress());
+            TransferEngine.receiveFile(socketChannel, fileChannel, offset, count, messageDigest, received -> {
+            });
+        }
+        sending.get();
+        return messageDigest.digest();
+    }
+}
@@ -6,6 +6,7 @@ module software.isratech.easy_file_transferer {
     requires org.kordamp.ikonli.javafx;
     requires org.kordamp.bootstrapfx.core;
     requires org.apache.commons.codec;
+    requires jdk.jfr;
     requires static lombok;
 
     opens software.isratech.easy_file_transferer to javafx.fxml;
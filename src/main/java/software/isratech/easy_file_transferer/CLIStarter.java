@@ -0,0 +1,11 @@
+package software.isratech.easy_file_transferer;
+
+import software.isratech.easy_file_transferer.cli.CommandLine;
+
+/** Main class for transfers from the command line, without a user interface */
+public class CLIStarter {
+
+    public static void main(final String[] args) {
+        System.exit(new CommandLine(System.out, System.err, System.console() != null).run(args));
+    }
+}
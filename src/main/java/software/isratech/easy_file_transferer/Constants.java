@@ -24,6 +24,159 @@ public class Constants {
      */
     public static final int DEFAULT_BYTES = 2000000;
 
+    /**
+     * Smallest amount of bytes moved per I/O cycle once the chunk size adapted to the link.
+     */
+    public static final int MIN_IO_CHUNK_SIZE = 65536;
+
+    /**
+     * Amount of bytes moved per I/O cycle before the chunk size adapted to the link.
+     */
+    public static final int INITIAL_IO_CHUNK_SIZE = 262144;
+
+    /**
+     * Longest an I/O cycle may take before the chunk size shrinks, in milliseconds.
+     * Keeps progress updates smooth on slow links.
+     */
+    public static final long MAX_IO_CYCLE_TIME = 100L;
+
+    /**
+     * How long a throttled transfer may send at full speed after it was idle, in milliseconds.
+     */
+    public static final long THROTTLE_BURST_TIME = 100L;
+
+    /**
+     * Maximum length of a single protocol message, in bytes.
+     */
+    public static final int MAX_MESSAGE_LENGTH = 65536;
+
+    /**
+     * Amount of parallel connections a client asks for when receiving a large file.
+     */
+    public static final int DEFAULT_STREAMS = 4;
+
+    /**
+     * Maximum amount of parallel connections a server uses for one transfer.
+     */
+    public static final int MAX_STREAMS = 8;
+
+    /**
+     * Transfers smaller than this are always sent over a single connection.
+     */
+    public static final long MIN_STRIPED_TRANSFER_SIZE = 64000000L;
+
+    /**
+     * How long a server waits for the additional connections of a striped transfer, in milliseconds.
+     */
+    public static final int STRIPE_ACCEPT_TIMEOUT = 10000;
+
+    /**
+     * Suffix of files which are still being received over parallel connections.
+     */
+    public static final String PART_FILE_SUFFIX = ".part";
+
+    /**
+     * Existing files smaller than this are sent again completely instead of being synced block by block.
+     */
+    public static final long MIN_DELTA_FILE_SIZE = 1000000L;
+
+    /**
+     * Size of the chunks a file is verified in. A corrupted chunk is fetched again on its own.
+     */
+    public static final int CHUNK_SIZE = 4194304;
+
+    /**
+     * Suffix of the files which keep the chunk hashes of a partially received file.
+     */
+    public static final String CHUNK_SIDECAR_SUFFIX = ".chunks";
+
+    /**
+     * How often corrupted chunks are fetched again before the transfer is given up.
+     */
+    public static final int MAX_REFETCH_ATTEMPTS = 3;
+
+    /**
+     * How often a queued download is attempted before it is given up.
+     */
+    public static final int MAX_DOWNLOAD_ATTEMPTS = 3;
+
+    /**
+     * How long a queued download waits before its first retry, in milliseconds. Doubles with every further retry.
+     */
+    public static final long DOWNLOAD_RETRY_DELAY = 2000L;
+
+    /**
+     * Amount of queued downloads running at the same time by default.
+     */
+    public static final int DEFAULT_DOWNLOAD_CONCURRENCY = 2;
+
+    /**
+     * Maximum amount of queued downloads running at the same time.
+     */
+    public static final int MAX_DOWNLOAD_CONCURRENCY = 8;
+
+    /**
+     * Size of the blocks a compressed transfer is split into. Each block is compressed on its own, in parallel.
+     */
+    public static final int COMPRESSION_BLOCK_SIZE = 1048576;
+
+    /**
+     * Size of each buffer in the ring between a pipelined reader and its consumer.
+     */
+    public static final int PIPELINE_BUFFER_SIZE = 1048576;
+
+    /**
+     * Amount of buffers in the ring between a pipelined reader and its consumer.
+     * Bounds how far the reader may run ahead.
+     */
+    public static final int PIPELINE_BUFFERS = 4;
+
+    /**
+     * Amount of bytes sent before the auto-tuning picks a tuning profile by the measured throughput.
+     */
+    public static final long TUNING_PROBE_SIZE = 8388608L;
+
+    /**
+     * Round trip time from which a link is tuned like a wide area network, in milliseconds.
+     */
+    public static final long WAN_ROUND_TRIP_TIME = 10L;
+
+    /**
+     * Throughput from which a link is tuned like a 10 gigabit link, in bytes per second.
+     */
+    public static final long TEN_GIGABIT_THROUGHPUT = 500000000L;
+
+    /**
+     * Name of the directory the application keeps its settings and caches in, inside the user's config directory.
+     */
+    public static final String CONFIG_DIRECTORY_NAME = "easy-file-transferer";
+
+    /**
+     * Interval in which transfer progress is shown, in milliseconds.
+     */
+    public static final long PROGRESS_UPDATE_INTERVAL = 100L;
+
+    /**
+     * Interval in which the command line interface logs transfer progress when its output is not a terminal,
+     * in milliseconds.
+     */
+    public static final long PROGRESS_LOG_INTERVAL = 1000L;
+
+    /**
+     * UDP port servers announce themselves on.
+     */
+    public static final int DISCOVERY_PORT = 5051;
+
+    /**
+     * Interval in which servers announce themselves, in milliseconds.
+     */
+    public static final long ANNOUNCE_INTERVAL = 1000L;
+
+    /**
+     * How long a network scan waits for servers to reply, in milliseconds.
+     */
+    public static final long SCAN_TIMEOUT = 750L;
+
     /**
      * Google DNS.
      * Used for looking up client IPv4 Address.
@@ -64,4 +217,9 @@ public class Constants {
      * Send file menu.
      */
     public static final String RECEIVING_MENU_FXML = "receive/receiving-file.fxml";
+
+    /**
+     * Download queue menu.
+     */
+    public static final String DOWNLOAD_QUEUE_MENU_FXML = "receive/download-queue.fxml";
 }
@@ -0,0 +1,489 @@
+package software.isratech.easy_file_transferer.cli;
+
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.metrics.MetricsSnapshot;
+import software.isratech.easy_file_transferer.metrics.TransferMetrics;
+import software.isratech.easy_file_transferer.net.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static software.isratech.easy_file_transferer.Constants.*;
+
+/**
+ * Sends, receives and finds files from the command line, without loading JavaFX.
+ * Each command returns an exit code, so transfers can be scripted in batch jobs.
+ */
+public class CommandLine {
+
+    /**
+     * The command completed.
+     */
+    public static final int EXIT_SUCCESS = 0;
+
+    /**
+     * The received files do not match the sent files, or no server was found.
+     */
+    public static final int EXIT_FAILURE = 1;
+
+    /**
+     * The command line was invalid.
+     */
+    public static final int EXIT_USAGE = 2;
+
+    /**
+     * The transfer failed.
+     */
+    public static final int EXIT_ERROR = 3;
+
+    /**
+     * Explains the commands.
+     */
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage:",
+            "  send [--host <address>] [--port <port>] [--multi] [--tuning <profile>] [--limit <rate>] [--global-limit <rate>]",
+            "       [--metrics <file>] <file or directory>...",
+            "      Serves files until a client received them, or until stopped with --multi.",
+            "  receive [--port <port>] [--output <directory>] [--jobs <count>] [--tuning <profile>] [--limit <rate>]",
+            "          [--metrics <file>] <host>[:<port>]...",
+            "      Receives files from servers into the output directory, the current directory by default.",
+            "      Several servers are queued, --jobs of them are received at the same time and failed ones are retried.",
+            "  scan [--port <port>]",
+            "      Lists the servers on the local network.",
+            "Tuning profiles are auto (default), lan, wan, 10g and system.",
+            "Rates are in bytes per second with an optional k, M or G suffix, e.g. 10M. --limit caps each transfer,",
+            "--global-limit caps all transfers together and shares the rate equally between them.",
+            "The metrics of a transfer are written to the --metrics file as JSON.");
+
+    /**
+     * Where the status is printed.
+     */
+    private final PrintStream output;
+
+    /**
+     * Where errors are printed.
+     */
+    private final PrintStream error;
+
+    /**
+     * Whether the output is a terminal.
+     */
+    private final boolean interactive;
+
+    /**
+     * @param output      - where the status is printed.
+     * @param error       - where errors are printed.
+     * @param interactive - whether the output is a terminal.
+     */
+    public CommandLine(@NonNull final PrintStream output, @NonNull final PrintStream error, final boolean interactive) {
+        this.output = output;
+        this.error = error;
+        this.interactive = interactive;
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param args - the command, followed by its options and arguments.
+     * @return the exit code.
+     */
+    public int run(@NonNull final String[] args) {
+        if (args.length == 0) {
+            error.println(USAGE);
+            return EXIT_USAGE;
+        }
+        final Options options;
+        try {
+            options = Options.parse(Arrays.asList(args).subList(1, args.length));
+        } catch (IllegalArgumentException e) {
+            error.println(e.getMessage());
+            error.println(USAGE);
+            return EXIT_USAGE;
+        }
+        try {
+            switch (args[0]) {
+                case "send":
+                    return send(options);
+                case "receive":
+                    return receive(options);
+                case "scan":
+                    return scan(options);
+                default:
+                    error.println(USAGE);
+                    return EXIT_USAGE;
+            }
+        } catch (IOException | NoSuchAlgorithmException e) {
+            error.println("Error occurred!");
+            error.println(e.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    /**
+     * Serves files.
+     *
+     * @param options - the command's options.
+     * @return the exit code.
+     */
+    private int send(@NonNull final Options options) throws IOException, NoSuchAlgorithmException {
+        if (options.arguments.isEmpty()) {
+            error.println(USAGE);
+            return EXIT_USAGE;
+        }
+        final List<File> files = new ArrayList<>();
+        for (final String argument : options.arguments) {
+            final File file = new File(argument);
+            if (!file.exists()) {
+                error.println("File not found: " + argument);
+                return EXIT_USAGE;
+            }
+            files.add(file);
+        }
+        final Server server = new Server();
+        server.setMultiClient(options.multiClient);
+        server.setTuningProfile(options.tuningProfile);
+        server.setRateLimit(options.rateLimit);
+        Throttle.setGlobalLimit(options.globalRateLimit);
+        final ConsoleTransferListener listener = new ConsoleTransferListener(output, interactive);
+        final MetricsSnapshot start = TransferMetrics.snapshot();
+        try (final ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+            output.printf("Your IP Address is: %s%n", Communication.getIpAddress());
+            server.serve(serverSocketChannel.socket(), options.host, options.port, Manifest.of(files), listener);
+        } finally {
+            listener.finish();
+            writeMetrics(options, start);
+        }
+        return EXIT_SUCCESS;
+    }
+
+    /**
+     * Receives files.
+     *
+     * @param options - the command's options.
+     * @return the exit code.
+     */
+    private int receive(@NonNull final Options options) throws IOException, NoSuchAlgorithmException {
+        if (options.arguments.isEmpty()) {
+            error.println(USAGE);
+            return EXIT_USAGE;
+        }
+        final File outputDirectory = new File(options.outputDirectory);
+        if (!outputDirectory.isDirectory()) {
+            error.println("Not a directory: " + options.outputDirectory);
+            return EXIT_USAGE;
+        }
+        final List<DiscoveredServer> servers = new ArrayList<>();
+        try {
+            for (final String argument : options.arguments) {
+                servers.add(Options.parseAddress(argument, options.port));
+            }
+        } catch (IllegalArgumentException e) {
+            error.println(e.getMessage());
+            return EXIT_USAGE;
+        }
+        if (servers.size() > 1) {
+            return receiveQueued(options, servers, outputDirectory);
+        }
+        final ConsoleTransferListener listener = new ConsoleTransferListener(output, interactive);
+        final MetricsSnapshot start = TransferMetrics.snapshot();
+        try {
+            final Client client = new Client();
+            client.setTuningProfile(options.tuningProfile);
+            client.setRateLimit(options.rateLimit);
+            client.connect(servers.get(0).getIpAddress(), servers.get(0).getPort(), outputDirectory.getAbsolutePath(), listener);
+        } finally {
+            listener.finish();
+            writeMetrics(options, start);
+        }
+        return listener.isComplete() ? EXIT_SUCCESS : EXIT_FAILURE;
+    }
+
+    /**
+     * Receives files from several servers through a download queue.
+     * Only the downloads' states are printed, since the progress of parallel downloads cannot share one status.
+     *
+     * @param options         - the command's options.
+     * @param servers         - the servers to receive from.
+     * @param outputDirectory - the directory to save the files in.
+     * @return the exit code.
+     */
+    private int receiveQueued(
+            @NonNull final Options options,
+            @NonNull final List<DiscoveredServer> servers,
+            @NonNull final File outputDirectory
+    ) {
+        final Map<DownloadJob, DownloadJob.State> printedStates = new ConcurrentHashMap<>();
+        final MetricsSnapshot start = TransferMetrics.snapshot();
+        try (final DownloadQueue downloadQueue = new DownloadQueue(options.jobs)) {
+            downloadQueue.setTuningProfile(options.tuningProfile);
+            downloadQueue.setRateLimit(options.rateLimit);
+            downloadQueue.setListener(job -> {
+                final DownloadJob.State state = job.getState();
+                if (printedStates.put(job, state) == state) return;
+                final String[] statusLines = job.getStatus().split("\\R");
+                output.printf("%s: %s%s%n", job, state,
+                        state == DownloadJob.State.FAILED || state == DownloadJob.State.RETRYING ? " - " + statusLines[statusLines.length - 1] : "");
+            });
+            for (final DiscoveredServer server : servers) {
+                downloadQueue.add(server.getIpAddress(), server.getPort(), outputDirectory.getAbsolutePath());
+            }
+            downloadQueue.awaitCompletion();
+            final boolean complete = downloadQueue.getJobs().stream().allMatch(job -> job.getState() == DownloadJob.State.COMPLETED);
+            return complete ? EXIT_SUCCESS : EXIT_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return EXIT_ERROR;
+        } finally {
+            writeMetrics(options, start);
+        }
+    }
+
+    /**
+     * Writes the metrics of a transfer to the metrics file, if one was given.
+     * Also written if the transfer failed, so the metrics show where it stalled.
+     *
+     * @param options - the command's options.
+     * @param start   - the metrics before the transfer.
+     */
+    private void writeMetrics(@NonNull final Options options, @NonNull final MetricsSnapshot start) {
+        if (options.metricsFile == null) return;
+        try {
+            Files.writeString(Path.of(options.metricsFile), TransferMetrics.snapshot().since(start).toJson(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            error.println("Failed to write metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lists the servers on the local network, found by scanning the subnet and by their announcements.
+     * Every server announces itself once per interval, so the scan takes that long.
+     *
+     * @param options - the command's options.
+     * @return the exit code.
+     */
+    private int scan(@NonNull final Options options) throws IOException {
+        final Map<DiscoveredServer, DiscoveredServer> servers = Collections.synchronizedMap(new LinkedHashMap<>());
+        final AtomicBoolean stopListening = new AtomicBoolean(false);
+        final Thread listenerThread = new Thread(() -> {
+            try {
+                ServiceAnnouncer.listen(stopListening, server -> servers.put(server, server));
+            } catch (IOException e) {
+                // announcements cannot be received, servers can still be found by scanning
+            }
+        }, "announcement-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        final long deadline = System.currentTimeMillis() + ANNOUNCE_INTERVAL;
+        final String subnet = Communication.getSubnet();
+        if (subnet != null) {
+            SubnetScanner.scan(subnet, options.port, new AtomicBoolean(false), hostName ->
+                    servers.putIfAbsent(new DiscoveredServer(hostName, options.port), new DiscoveredServer(hostName, options.port))
+            );
+        }
+        try {
+            Thread.sleep(Math.max(0L, deadline - System.currentTimeMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopListening.set(true);
+        synchronized (servers) {
+            servers.values().forEach(output::println);
+            return servers.isEmpty() ? EXIT_FAILURE : EXIT_SUCCESS;
+        }
+    }
+
+    /**
+     * The options and arguments of a command.
+     */
+    private static class Options {
+
+        /**
+         * The address to host on.
+         */
+        private String host = DEFAULT_BIND_ADDRESS;
+
+        /**
+         * The port to host on or connect to.
+         */
+        private int port = DEFAULT_PORT;
+
+        /**
+         * Whether to keep serving clients.
+         */
+        private boolean multiClient = false;
+
+        /**
+         * The directory to save received files in.
+         */
+        private String outputDirectory = ".";
+
+        /**
+         * Amount of servers received from at the same time.
+         */
+        private int jobs = DEFAULT_DOWNLOAD_CONCURRENCY;
+
+        /**
+         * How the connections are tuned.
+         */
+        private TuningProfile tuningProfile = TuningProfile.AUTO;
+
+        /**
+         * Limit of each transfer in bytes per second, 0 if unlimited.
+         */
+        private long rateLimit = 0L;
+
+        /**
+         * Limit of all transfers together in bytes per second, 0 if unlimited.
+         */
+        private long globalRateLimit = 0L;
+
+        /**
+         * The file to write the transfer's metrics to, or null.
+         */
+        private String metricsFile;
+
+        /**
+         * The arguments that are not options.
+         */
+        private final List<String> arguments = new ArrayList<>();
+
+        /**
+         * Parses a command's options and arguments.
+         *
+         * @param args - the options and arguments.
+         * @return the parsed options.
+         * @throws IllegalArgumentException if an option is unknown or lacks its value.
+         */
+        @NonNull
+        private static Options parse(@NonNull final List<String> args) {
+            final Options options = new Options();
+            final Iterator<String> iterator = args.iterator();
+            while (iterator.hasNext()) {
+                final String arg = iterator.next();
+                switch (arg) {
+                    case "--host":
+                        options.host = value(arg, iterator);
+                        break;
+                    case "--port":
+                        options.port = parsePort(value(arg, iterator));
+                        break;
+                    case "--output":
+                        options.outputDirectory = value(arg, iterator);
+                        break;
+                    case "--jobs":
+                        options.jobs = parseJobs(value(arg, iterator));
+                        break;
+                    case "--tuning":
+                        options.tuningProfile = TuningProfile.parse(value(arg, iterator));
+                        break;
+                    case "--limit":
+                        options.rateLimit = parseRate(value(arg, iterator));
+                        break;
+                    case "--global-limit":
+                        options.globalRateLimit = parseRate(value(arg, iterator));
+                        break;
+                    case "--metrics":
+                        options.metricsFile = value(arg, iterator);
+                        break;
+                    case "--multi":
+                        options.multiClient = true;
+                        break;
+                    default:
+                        if (arg.startsWith("--")) throw new IllegalArgumentException("Unknown option: " + arg);
+                        options.arguments.add(arg);
+                }
+            }
+            return options;
+        }
+
+        /**
+         * Reads an option's value.
+         *
+         * @param option   - the option.
+         * @param iterator - the remaining arguments.
+         * @return the value.
+         */
+        @NonNull
+        private static String value(@NonNull final String option, @NonNull final Iterator<String> iterator) {
+            if (!iterator.hasNext()) throw new IllegalArgumentException("Missing value of " + option);
+            return iterator.next();
+        }
+
+        /**
+         * Parses a port.
+         *
+         * @param value - the port.
+         * @return the port.
+         */
+        private static int parsePort(@NonNull final String value) {
+            try {
+                final int port = Integer.parseInt(value);
+                if (port < 0 || port > 65535) throw new NumberFormatException();
+                return port;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid port: " + value);
+            }
+        }
+
+        /**
+         * Parses the amount of servers received from at the same time.
+         *
+         * @param value - the amount.
+         * @return the amount.
+         */
+        private static int parseJobs(@NonNull final String value) {
+            try {
+                final int jobs = Integer.parseInt(value);
+                if (jobs < 1 || jobs > MAX_DOWNLOAD_CONCURRENCY) throw new NumberFormatException();
+                return jobs;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Invalid amount of jobs: %s (1 to %s)", value, MAX_DOWNLOAD_CONCURRENCY));
+            }
+        }
+
+        /**
+         * Parses a server's address, which may end in its port.
+         * IPv6 addresses only have a port if they are enclosed in brackets, e.g. [::1]:5050.
+         *
+         * @param value       - the address.
+         * @param defaultPort - the port if the address has none.
+         * @return the server.
+         */
+        @NonNull
+        private static DiscoveredServer parseAddress(@NonNull final String value, final int defaultPort) {
+            final int separator = value.lastIndexOf(':');
+            final boolean hasPort = separator > 0 && (value.indexOf(':') == separator || value.charAt(separator - 1) == ']');
+            if (!hasPort) return new DiscoveredServer(value, defaultPort);
+            final String host = value.substring(0, separator).replaceAll("^\\[(.*)]$", "$1");
+            return new DiscoveredServer(host, parsePort(value.substring(separator + 1)));
+        }
+
+        /**
+         * Parses a rate, which may end in k, M or G for thousands, millions or billions of bytes per second.
+         *
+         * @param value - the rate.
+         * @return the rate in bytes per second.
+         */
+        private static long parseRate(@NonNull final String value) {
+            final String suffixes = "kMG";
+            final int unit = value.isEmpty() ? -1 : suffixes.indexOf(value.charAt(value.length() - 1));
+            final String number = unit >= 0 ? value.substring(0, value.length() - 1) : value;
+            try {
+                final double rate = Double.parseDouble(number) * Math.pow(1000d, unit + 1d);
+                if (!(rate >= 0d) || rate > Long.MAX_VALUE) throw new NumberFormatException();
+                return (long) rate;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid rate: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package software.isratech.easy_file_transferer.cli;
+
+import lombok.Getter;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.net.TransferListener;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static software.isratech.easy_file_transferer.Constants.PROGRESS_LOG_INTERVAL;
+
+/**
+ * Prints the status of a transfer to the console.
+ * Only the lines that changed since the previous status are printed. On a terminal, changed lines are redrawn in
+ * place, otherwise they are logged again, at most once per interval unless a new step started.
+ */
+public class ConsoleTransferListener implements TransferListener {
+
+    /**
+     * Moves the cursor to the start of a previous line, the amount of lines is put in between.
+     */
+    private static final String CURSOR_UP_PREFIX = "\033[";
+
+    /**
+     * Ends the cursor movement and clears everything after the cursor.
+     */
+    private static final String CURSOR_UP_SUFFIX = "F\033[J";
+
+    /**
+     * Where the status is printed.
+     */
+    private final PrintStream output;
+
+    /**
+     * Whether the output is a terminal, which allows redrawing lines.
+     */
+    private final boolean interactive;
+
+    /**
+     * The lines of the last printed status.
+     */
+    private List<String> printedLines = List.of();
+
+    /**
+     * The latest status that was not printed yet, or null.
+     */
+    private String pendingStatus;
+
+    /**
+     * When the status was printed last, in milliseconds.
+     */
+    private long printTime = 0L;
+
+    /**
+     * Whether the transfer completed and was verified.
+     */
+    @Getter
+    private volatile boolean complete = false;
+
+    /**
+     * Whether the received files did not match the sent files.
+     */
+    @Getter
+    private volatile boolean hashMismatch = false;
+
+    /**
+     * @param output      - where the status is printed.
+     * @param interactive - whether the output is a terminal.
+     */
+    public ConsoleTransferListener(@NonNull final PrintStream output, final boolean interactive) {
+        this.output = output;
+        this.interactive = interactive;
+    }
+
+    @Override
+    public synchronized void onStatus(@NonNull final String status) {
+        final long now = System.currentTimeMillis();
+        final List<String> lines = Arrays.asList(status.split("\\R"));
+        if (!interactive && lines.size() <= printedLines.size() && now - printTime < PROGRESS_LOG_INTERVAL) {
+            pendingStatus = status;
+            return;
+        }
+        pendingStatus = null;
+        printTime = now;
+        print(lines);
+    }
+
+    @Override
+    public synchronized void onConnectionStatus(@NonNull final String status) {
+        final String[] lines = status.split("\\R");
+        output.println(lines[lines.length - 1]);
+        printedLines = List.of();
+    }
+
+    @Override
+    public void onComplete() {
+        complete = true;
+    }
+
+    /**
+     * Keeps the files, so batch jobs can decide what to do with them.
+     *
+     * @param files - the received files.
+     */
+    @Override
+    public void onHashMismatch(@NonNull final List<File> files) {
+        hashMismatch = true;
+    }
+
+    /**
+     * Prints the latest status, if it was held back.
+     */
+    public synchronized void finish() {
+        if (pendingStatus != null) {
+            print(Arrays.asList(pendingStatus.split("\\R")));
+            pendingStatus = null;
+        }
+    }
+
+    /**
+     * Prints the lines of a status that changed since the previous status.
+     *
+     * @param lines - the status' lines.
+     */
+    private void print(@NonNull final List<String> lines) {
+        int common = 0;
+        while (common < printedLines.size() && common < lines.size() && printedLines.get(common).equals(lines.get(common))) {
+            common++;
+        }
+        if (common == lines.size() && common == printedLines.size()) return;
+        if (interactive && common < printedLines.size()) {
+            output.print(CURSOR_UP_PREFIX + (printedLines.size() - common) + CURSOR_UP_SUFFIX);
+        }
+        for (final String line : lines.subList(common, lines.size())) {
+            output.println(line);
+        }
+        output.flush();
+        printedLines = lines;
+    }
+}
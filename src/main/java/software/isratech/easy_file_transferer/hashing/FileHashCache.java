@@ -0,0 +1,243 @@
+package software.isratech.easy_file_transferer.hashing;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.metrics.HashingEvent;
+import software.isratech.easy_file_transferer.utils.ConfigDirectory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the hashes of recently hashed files, so sending the same file again does not read it again.
+ * Entries are keyed by the file's real path, size and modification time, so a changed file is always hashed again.
+ * The cache is kept in a small index file in the user's config directory, so it survives restarts. It is bounded
+ * by the amount of files and the amount of chunk hashes, the least recently used file is evicted first.
+ * A cache that cannot be read or written only costs rehashing, so such errors are ignored.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class FileHashCache {
+
+    /**
+     * Maximum amount of cached files.
+     */
+    private static final int MAX_ENTRIES = 256;
+
+    /**
+     * Maximum amount of chunk hashes of all cached files, which bounds the index file to 8 MB.
+     */
+    private static final int MAX_CHUNK_HASHES = 262144;
+
+    /**
+     * Identifies the index file's format.
+     */
+    private static final int INDEX_MAGIC = 0x45465448;
+
+    /**
+     * Name of the index file.
+     */
+    private static final String INDEX_FILE_NAME = "hash-cache";
+
+    /**
+     * The cached hashes, in access order. Loaded from the index file on first use.
+     */
+    private static final Map<Key, FileHashes> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Amount of chunk hashes of all cached files.
+     */
+    private static int cachedChunkHashes = 0;
+
+    /**
+     * Whether the index file was loaded.
+     */
+    private static boolean loaded = false;
+
+    /**
+     * Returns the hashes of a file, computing them only if the file is not cached or changed since.
+     * Recorded as a {@link HashingEvent}, whether the hashes were cached or not.
+     *
+     * @param file      - the file.
+     * @param chunkSize - the size of the chunks.
+     * @return the file's hashes.
+     */
+    @NonNull
+    public static FileHashes getFileHashes(@NonNull final File file, final int chunkSize) throws IOException, NoSuchAlgorithmException {
+        final HashingEvent event = new HashingEvent();
+        event.begin();
+        final Key key = Key.of(file.toPath(), chunkSize);
+        final FileHashes cachedHashes = get(key);
+        final FileHashes fileHashes = cachedHashes != null ? cachedHashes : Hashing.getFileHashes(file, chunkSize);
+        if (cachedHashes == null && key.equals(Key.of(file.toPath(), chunkSize))) {
+            put(key, fileHashes);
+        }
+        if (event.shouldCommit()) {
+            event.setPath(file.getPath());
+            event.setAlgorithm(HashAlgorithm.SHA256.name());
+            event.setBytes(key.size);
+            event.setCached(cachedHashes != null);
+            event.commit();
+        }
+        return fileHashes;
+    }
+
+    /**
+     * Returns the chunk hashes of a file, if the file is cached and did not change since.
+     *
+     * @param file      - the file.
+     * @param chunkSize - the size of the chunks.
+     * @return the file's chunk hashes, empty if they are not cached.
+     */
+    @NonNull
+    public static List<byte[]> getCachedChunkHashes(@NonNull final Path file, final int chunkSize) {
+        try {
+            final FileHashes cachedHashes = get(Key.of(file, chunkSize));
+            return cachedHashes != null ? cachedHashes.getChunkHashes() : List.of();
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Looks up a file's hashes.
+     *
+     * @param key - the file's key.
+     * @return the hashes, or null.
+     */
+    private static FileHashes get(@NonNull final Key key) {
+        synchronized (CACHE) {
+            load();
+            return CACHE.get(key);
+        }
+    }
+
+    /**
+     * Caches a file's hashes, evicts the least recently used files beyond the bounds and saves the index file.
+     *
+     * @param key        - the file's key.
+     * @param fileHashes - the file's hashes.
+     */
+    private static void put(@NonNull final Key key, @NonNull final FileHashes fileHashes) {
+        synchronized (CACHE) {
+            load();
+            final FileHashes previousHashes = CACHE.put(key, fileHashes);
+            if (previousHashes != null) cachedChunkHashes -= previousHashes.getChunkHashes().size();
+            cachedChunkHashes += fileHashes.getChunkHashes().size();
+            final var iterator = CACHE.values().iterator();
+            while (iterator.hasNext() && (CACHE.size() > MAX_ENTRIES || cachedChunkHashes > MAX_CHUNK_HASHES)) {
+                cachedChunkHashes -= iterator.next().getChunkHashes().size();
+                iterator.remove();
+            }
+            save();
+        }
+    }
+
+    /**
+     * Reads the index file, once.
+     */
+    private static void load() {
+        if (loaded) return;
+        loaded = true;
+        final Path indexFile = ConfigDirectory.get().resolve(INDEX_FILE_NAME);
+        if (!Files.isRegularFile(indexFile)) return;
+        try (final DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (inputStream.readInt() != INDEX_MAGIC) return;
+            final int entries = inputStream.readInt();
+            for (int i = 0; i < entries && i < MAX_ENTRIES; i++) {
+                final Key key = new Key(inputStream.readUTF(), inputStream.readLong(), inputStream.readLong(), inputStream.readInt());
+                final String fileHash = inputStream.readUTF();
+                final int chunks = inputStream.readInt();
+                if (chunks < 0 || cachedChunkHashes + chunks > MAX_CHUNK_HASHES) break;
+                final List<byte[]> chunkHashes = new ArrayList<>(chunks);
+                for (int j = 0; j < chunks; j++) {
+                    final byte[] chunkHash = new byte[MerkleTree.HASH_LENGTH];
+                    inputStream.readFully(chunkHash);
+                    chunkHashes.add(chunkHash);
+                }
+                CACHE.put(key, new FileHashes(fileHash, key.chunkSize, chunkHashes));
+                cachedChunkHashes += chunks;
+            }
+        } catch (IOException e) {
+            // entries read before the error are kept
+        }
+    }
+
+    /**
+     * Writes the index file, least recently used file first, and replaces the old index file once it is complete.
+     */
+    private static void save() {
+        final Path indexFile = ConfigDirectory.get().resolve(INDEX_FILE_NAME);
+        final Path temporaryFile = indexFile.resolveSibling(INDEX_FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(indexFile.getParent());
+            try (final DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                outputStream.writeInt(INDEX_MAGIC);
+                outputStream.writeInt(CACHE.size());
+                for (final Map.Entry<Key, FileHashes> entry : CACHE.entrySet()) {
+                    outputStream.writeUTF(entry.getKey().path);
+                    outputStream.writeLong(entry.getKey().size);
+                    outputStream.writeLong(entry.getKey().lastModified);
+                    outputStream.writeInt(entry.getKey().chunkSize);
+                    outputStream.writeUTF(entry.getValue().getFileHash());
+                    outputStream.writeInt(entry.getValue().getChunkHashes().size());
+                    for (final byte[] chunkHash : entry.getValue().getChunkHashes()) {
+                        outputStream.write(chunkHash);
+                    }
+                }
+            }
+            Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the files are hashed again after a restart
+        }
+    }
+
+    /**
+     * Identifies a version of a file.
+     */
+    @EqualsAndHashCode
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class Key {
+
+        /**
+         * The file's real path.
+         */
+        private final String path;
+
+        /**
+         * The file's size.
+         */
+        private final long size;
+
+        /**
+         * The file's modification time, in milliseconds.
+         */
+        private final long lastModified;
+
+        /**
+         * The size of the chunks the file was hashed in.
+         */
+        private final int chunkSize;
+
+        /**
+         * Reads the current version of a file.
+         *
+         * @param path      - the file.
+         * @param chunkSize - the size of the chunks.
+         * @return the key.
+         */
+        @NonNull
+        private static Key of(@NonNull final Path path, final int chunkSize) throws IOException {
+            return new Key(path.toRealPath().toString(), Files.size(path), Files.getLastModifiedTime(path).toMillis(), chunkSize);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package software.isratech.easy_file_transferer.hashing;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * The hashes of a sent file: the hash of the whole file and the hashes of its chunks.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PUBLIC)
+public class FileHashes {
+
+    /**
+     * SHA-256 hash of the whole file, encoded in hex.
+     */
+    private final String fileHash;
+
+    /**
+     * Size of the chunks.
+     */
+    private final int chunkSize;
+
+    /**
+     * SHA-256 hashes of the chunks, in file order. Empty if the file was not hashed in chunks.
+     */
+    private final List<byte[]> chunkHashes;
+
+    /**
+     * @return the root hash of the chunk hashes' merkle tree, encoded in hex.
+     */
+    @NonNull
+    public String getRootHash() throws NoSuchAlgorithmException {
+        return Hashing.toHex(MerkleTree.getRoot(chunkHashes));
+    }
+}
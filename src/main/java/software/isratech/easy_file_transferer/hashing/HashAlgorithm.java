@@ -0,0 +1,18 @@
+package software.isratech.easy_file_transferer.hashing;
+
+/**
+ * The ways a file can be hashed as a whole.
+ */
+public enum HashAlgorithm {
+
+    /**
+     * SHA-256 of the file's content, read in order on a single core. Understood by every client.
+     */
+    SHA256,
+
+    /**
+     * Root hash of the file's chunks, which are hashed in parallel. Matches the root hash sent to clients that
+     * verify files in chunks.
+     */
+    TREE
+}
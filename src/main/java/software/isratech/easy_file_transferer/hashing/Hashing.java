@@ -3,14 +3,24 @@ package software.isratech.easy_file_transferer.hashing;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
+import software.isratech.easy_file_transferer.metrics.HashingEvent;
+import software.isratech.easy_file_transferer.metrics.TransferMetrics;
+import software.isratech.easy_file_transferer.utils.PipelinedReader;
 
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.security.DigestInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static software.isratech.easy_file_transferer.Constants.CHUNK_SIZE;
 
 /**
  * Implements hashing functionality.
@@ -18,19 +28,204 @@ import java.security.NoSuchAlgorithmException;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class Hashing {
 
+    /**
+     * Size of the buffer used for hashing parts of a file.
+     */
+    private static final int HASH_BUFFER_SIZE = 1 << 20;
+
     /**
      * Returns the SHA-256 hash of a given file.
+     * Unchanged files are looked up in the {@link FileHashCache} instead of being read again.
      *
      * @param file - the file, the hash of which shall be computed.
      * @return the file's SHA-256 hash, encoded in hex.
      */
     @NonNull
     public static String getSHA256FileHash(@NonNull final File file) throws IOException, NoSuchAlgorithmException {
-        final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
-        byte[] buffer = new byte[4096];
-        try (final DigestInputStream digestInputStream = new DigestInputStream(new FileInputStream(file), messageDigest)) {
-            while (digestInputStream.read(buffer) != -1) ;
-            return Hex.encodeHexString(messageDigest.digest());
+        return FileHashCache.getFileHashes(file, CHUNK_SIZE).getFileHash();
+    }
+
+    /**
+     * Computes the hash of a given file with the given algorithm, always reading the whole file.
+     * Recorded as a {@link HashingEvent}.
+     *
+     * @param file          - the file.
+     * @param hashAlgorithm - the algorithm.
+     * @return the file's hash, encoded in hex.
+     */
+    @NonNull
+    public static String getFileHash(@NonNull final File file, @NonNull final HashAlgorithm hashAlgorithm) throws IOException, NoSuchAlgorithmException {
+        final HashingEvent event = new HashingEvent();
+        event.begin();
+        final String hash;
+        if (hashAlgorithm == HashAlgorithm.TREE) {
+            hash = TreeHashing.getRootHash(file, CHUNK_SIZE);
+        } else {
+            final MessageDigest messageDigest = newSHA256Digest();
+            try (final FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                updateDigest(messageDigest, fileChannel, 0L, fileChannel.size());
+            }
+            hash = toHex(messageDigest);
+        }
+        if (event.shouldCommit()) {
+            event.setPath(file.getPath());
+            event.setAlgorithm(hashAlgorithm.name());
+            event.setBytes(file.length());
+            event.commit();
+        }
+        return hash;
+    }
+
+    /**
+     * Computes the SHA-256 hash of a whole file and of each of its chunks, reading the file only once.
+     * The file is read on a separate thread, so reading the next buffers overlaps with hashing the current one.
+     *
+     * @param file      - the file.
+     * @param chunkSize - the size of the chunks.
+     * @return the file's hashes.
+     */
+    @NonNull
+    public static FileHashes getFileHashes(@NonNull final File file, final int chunkSize) throws IOException, NoSuchAlgorithmException {
+        final MessageDigest fileDigest = newSHA256Digest();
+        final MessageDigest chunkDigest = newSHA256Digest();
+        final List<byte[]> chunkHashes = new ArrayList<>();
+        try (
+                final FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                final PipelinedReader pipelinedReader = new PipelinedReader(fileChannel, 0L, fileChannel.size())
+        ) {
+            long chunkRemaining = chunkSize;
+            ByteBuffer buffer;
+            while ((buffer = pipelinedReader.take()) != null) {
+                final long startNanos = System.nanoTime();
+                fileDigest.update(buffer);
+                buffer.rewind();
+                while (buffer.hasRemaining()) {
+                    final int length = (int) Math.min(buffer.remaining(), chunkRemaining);
+                    final int limit = buffer.limit();
+                    buffer.limit(buffer.position() + length);
+                    chunkDigest.update(buffer);
+                    buffer.limit(limit);
+                    chunkRemaining -= length;
+                    if (chunkRemaining == 0) {
+                        chunkHashes.add(chunkDigest.digest());
+                        chunkRemaining = chunkSize;
+                    }
+                }
+                TransferMetrics.recordHashing(startNanos, buffer.limit());
+                pipelinedReader.release(buffer);
+            }
+            if (chunkRemaining != chunkSize) {
+                chunkHashes.add(chunkDigest.digest());
+            }
+        }
+        return new FileHashes(toHex(fileDigest), chunkSize, chunkHashes);
+    }
+
+    /**
+     * Creates a new SHA-256 digest, which can be updated while data is being transferred.
+     *
+     * @return an empty SHA-256 digest.
+     */
+    @NonNull
+    public static MessageDigest newSHA256Digest() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256");
+    }
+
+    /**
+     * Creates a buffer for {@link #updateDigest(MessageDigest, FileChannel, long, long, ByteBuffer)}.
+     *
+     * @return the buffer.
+     */
+    @NonNull
+    public static ByteBuffer newHashBuffer() {
+        return ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+    }
+
+    /**
+     * Updates a digest with a region of a file.
+     *
+     * @param messageDigest - the digest to update.
+     * @param fileChannel   - the file to read from.
+     * @param position      - the offset of the region.
+     * @param length        - the length of the region.
+     */
+    public static void updateDigest(
+            @NonNull final MessageDigest messageDigest,
+            @NonNull final FileChannel fileChannel,
+            final long position,
+            final long length
+    ) throws IOException {
+        updateDigest(messageDigest, fileChannel, position, length, newHashBuffer());
+    }
+
+    /**
+     * Updates a digest with a region of a file, reading through the given buffer.
+     * Lets callers hashing many small files reuse one buffer.
+     *
+     * @param messageDigest - the digest to update.
+     * @param fileChannel   - the file to read from.
+     * @param position      - the offset of the region.
+     * @param length        - the length of the region.
+     * @param buffer        - the buffer to read through.
+     */
+    public static void updateDigest(
+            @NonNull final MessageDigest messageDigest,
+            @NonNull final FileChannel fileChannel,
+            final long position,
+            final long length,
+            @NonNull final ByteBuffer buffer
+    ) throws IOException {
+        long read = 0L;
+        while (read < length) {
+            buffer.clear();
+            buffer.limit(Math.toIntExact(Math.min(buffer.capacity(), length - read)));
+            final long readNanos = System.nanoTime();
+            final int returnCode = fileChannel.read(buffer, position + read);
+            TransferMetrics.recordDiskRead(readNanos, returnCode);
+            if (returnCode == -1) throw new EOFException("File is shorter than expected!");
+            buffer.flip();
+            final long hashNanos = System.nanoTime();
+            messageDigest.update(buffer);
+            TransferMetrics.recordHashing(hashNanos, returnCode);
+            read += returnCode;
+        }
+    }
+
+    /**
+     * Completes a digest.
+     *
+     * @param messageDigest - the digest.
+     * @return the digest's hash, encoded in hex.
+     */
+    @NonNull
+    public static String toHex(@NonNull final MessageDigest messageDigest) {
+        return Hex.encodeHexString(messageDigest.digest());
+    }
+
+    /**
+     * Encodes a hash in hex.
+     *
+     * @param hash - the hash.
+     * @return the encoded hash.
+     */
+    @NonNull
+    public static String toHex(@NonNull final byte[] hash) {
+        return Hex.encodeHexString(hash);
+    }
+
+    /**
+     * Decodes a hash encoded in hex.
+     *
+     * @param hash - the encoded hash.
+     * @return the hash.
+     * @throws IllegalArgumentException if the hash is not valid hex.
+     */
+    @NonNull
+    public static byte[] fromHex(@NonNull final String hash) {
+        try {
+            return Hex.decodeHex(hash);
+        } catch (DecoderException e) {
+            throw new IllegalArgumentException("Illegal hash: " + hash);
         }
     }
 }
@@ -0,0 +1,52 @@
+package software.isratech.easy_file_transferer.hashing;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Combines the hashes of a file's chunks into a single root hash.
+ * Each level hashes pairs of the level below it with SHA-256, an unpaired last hash is carried up unchanged.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class MerkleTree {
+
+    /**
+     * Length of a SHA-256 hash, in bytes.
+     */
+    public static final int HASH_LENGTH = 32;
+
+    /**
+     * Computes the root hash of a tree.
+     *
+     * @param leaves - the hashes of the chunks, in file order.
+     * @return the root hash, or the hash of no data if there are no chunks.
+     */
+    @NonNull
+    public static byte[] getRoot(@NonNull final List<byte[]> leaves) throws NoSuchAlgorithmException {
+        final MessageDigest messageDigest = Hashing.newSHA256Digest();
+        if (leaves.isEmpty()) {
+            return messageDigest.digest();
+        }
+        List<byte[]> level = leaves;
+        while (level.size() > 1) {
+            final List<byte[]> parents = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                if (i + 1 == level.size()) {
+                    parents.add(level.get(i));
+                    continue;
+                }
+                messageDigest.update(level.get(i));
+                messageDigest.update(level.get(i + 1));
+                parents.add(messageDigest.digest());
+            }
+            level = parents;
+        }
+        return level.get(0);
+    }
+}
@@ -0,0 +1,175 @@
+package software.isratech.easy_file_transferer.hashing;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Hashes the chunks of a file in parallel, one chunk per task, and combines them with a {@link MerkleTree}.
+ * Unlike a plain SHA-256 hash, which has to read the file in order on a single core, the chunks are independent,
+ * so hashing scales with the available cores and the disk's bandwidth. The chunks are read with large direct buffers.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TreeHashing {
+
+    /**
+     * Runs the hashing tasks, one thread per available processor.
+     */
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Each worker's read buffer, so chunks are hashed without allocating memory.
+     */
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(Hashing::newHashBuffer);
+
+    /**
+     * Computes the root hash of a file's chunks.
+     *
+     * @param file      - the file.
+     * @param chunkSize - the size of the chunks.
+     * @return the root hash, encoded in hex.
+     */
+    @NonNull
+    public static String getRootHash(@NonNull final File file, final int chunkSize) throws IOException, NoSuchAlgorithmException {
+        try (final FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final int chunks = Math.toIntExact((fileChannel.size() + chunkSize - 1) / chunkSize);
+            return Hashing.toHex(MerkleTree.getRoot(getChunkHashes(fileChannel, fileChannel.size(), chunkSize, 0, chunks)));
+        }
+    }
+
+    /**
+     * Computes the hashes of a range of a file's chunks in parallel.
+     *
+     * @param fileChannel - the file.
+     * @param fileSize    - the size of the file, which limits the last chunk.
+     * @param chunkSize   - the size of the chunks.
+     * @param from        - the index of the first chunk.
+     * @param to          - the index after the last chunk.
+     * @return the hashes of the chunks, in file order.
+     */
+    @NonNull
+    public static List<byte[]> getChunkHashes(
+            @NonNull final FileChannel fileChannel,
+            final long fileSize,
+            final int chunkSize,
+            final int from,
+            final int to
+    ) throws IOException {
+        final byte[][] chunkHashes = new byte[to - from][];
+        try {
+            POOL.invoke(new ChunkTask(fileChannel, fileSize, chunkSize, from, to, chunkHashes, from));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return Arrays.asList(chunkHashes);
+    }
+
+    /**
+     * Hashes a range of chunks, splitting it in halves until a single chunk is left.
+     */
+    private static class ChunkTask extends RecursiveAction {
+
+        /**
+         * Tasks are never serialized, {@link RecursiveAction} only happens to be serializable.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The file.
+         */
+        private final FileChannel fileChannel;
+
+        /**
+         * The size of the file.
+         */
+        private final long fileSize;
+
+        /**
+         * The size of the chunks.
+         */
+        private final int chunkSize;
+
+        /**
+         * The index of the first chunk.
+         */
+        private final int from;
+
+        /**
+         * The index after the last chunk.
+         */
+        private final int to;
+
+        /**
+         * Receives the hashes, shared by all tasks.
+         */
+        private final byte[][] chunkHashes;
+
+        /**
+         * The index of the chunk stored first in the hashes.
+         */
+        private final int offset;
+
+        /**
+         * @param fileChannel - the file.
+         * @param fileSize    - the size of the file.
+         * @param chunkSize   - the size of the chunks.
+         * @param from        - the index of the first chunk.
+         * @param to          - the index after the last chunk.
+         * @param chunkHashes - receives the hashes.
+         * @param offset      - the index of the chunk stored first in the hashes.
+         */
+        private ChunkTask(
+                @NonNull final FileChannel fileChannel,
+                final long fileSize,
+                final int chunkSize,
+                final int from,
+                final int to,
+                @NonNull final byte[][] chunkHashes,
+                final int offset
+        ) {
+            this.fileChannel = fileChannel;
+            this.fileSize = fileSize;
+            this.chunkSize = chunkSize;
+            this.from = from;
+            this.to = to;
+            this.chunkHashes = chunkHashes;
+            this.offset = offset;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(
+                        new ChunkTask(fileChannel, fileSize, chunkSize, from, middle, chunkHashes, offset),
+                        new ChunkTask(fileChannel, fileSize, chunkSize, middle, to, chunkHashes, offset)
+                );
+                return;
+            }
+            if (from == to) return;
+            final long position = (long) from * chunkSize;
+            try {
+                final MessageDigest messageDigest = Hashing.newSHA256Digest();
+                Hashing.updateDigest(messageDigest, fileChannel, position, Math.min(chunkSize, fileSize - position), BUFFERS.get());
+                chunkHashes[from - offset] = messageDigest.digest();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available!", e);
+            }
+        }
+    }
+}
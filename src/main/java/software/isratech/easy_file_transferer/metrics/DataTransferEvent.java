@@ -0,0 +1,43 @@
+package software.isratech.easy_file_transferer.metrics;
+
+import jdk.jfr.*;
+import lombok.Setter;
+
+/**
+ * Flight recorder event for sending or receiving a region of a file.
+ */
+@Name("software.isratech.easy_file_transferer.DataTransfer")
+@Label("Data Transfer")
+@Category({"Easy File Transferer", "Network"})
+@Description("A region of a file sent or received")
+@StackTrace(false)
+@Setter
+public class DataTransferEvent extends Event {
+
+    /**
+     * How the data was moved, e.g. "sendfile" or "receive".
+     */
+    @Label("Method")
+    private String method;
+
+    /**
+     * Offset of the region in the file.
+     */
+    @Label("Position")
+    @DataAmount
+    private long position;
+
+    /**
+     * Length of the region.
+     */
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * Amount of bytes moved per cycle at the end, after it adapted to the throughput.
+     */
+    @Label("Chunk Size")
+    @DataAmount
+    private long chunkSize;
+}
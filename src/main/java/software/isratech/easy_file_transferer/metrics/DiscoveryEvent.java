@@ -0,0 +1,34 @@
+package software.isratech.easy_file_transferer.metrics;
+
+import jdk.jfr.*;
+import lombok.Setter;
+
+/**
+ * Flight recorder event for scanning a subnet for servers.
+ */
+@Name("software.isratech.easy_file_transferer.Discovery")
+@Label("Discovery")
+@Category({"Easy File Transferer", "Network"})
+@Description("A subnet scanned for servers")
+@StackTrace(false)
+@Setter
+public class DiscoveryEvent extends Event {
+
+    /**
+     * The first three octets of the subnet.
+     */
+    @Label("Subnet")
+    private String subnet;
+
+    /**
+     * The probed port.
+     */
+    @Label("Port")
+    private int port;
+
+    /**
+     * Amount of servers that replied.
+     */
+    @Label("Servers Found")
+    private int serversFound;
+}
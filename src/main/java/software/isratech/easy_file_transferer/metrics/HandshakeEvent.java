@@ -0,0 +1,61 @@
+package software.isratech.easy_file_transferer.metrics;
+
+import jdk.jfr.*;
+import lombok.Setter;
+
+/**
+ * Flight recorder event for the exchange of file info and protocol extensions before a transfer.
+ */
+@Name("software.isratech.easy_file_transferer.Handshake")
+@Label("Handshake")
+@Category({"Easy File Transferer", "Network"})
+@Description("File info and protocol extensions exchanged before a transfer")
+@StackTrace(false)
+@Setter
+public class HandshakeEvent extends Event {
+
+    /**
+     * Address of the other side.
+     */
+    @Label("Remote")
+    private String remote;
+
+    /**
+     * Name of the file, or of the files.
+     */
+    @Label("File Name")
+    private String fileName;
+
+    /**
+     * Size of the whole transfer.
+     */
+    @Label("File Size")
+    @DataAmount
+    private long fileSize;
+
+    /**
+     * Size of the file on the receiving side.
+     */
+    @Label("Existing Size")
+    @DataAmount
+    private long existingSize;
+
+    /**
+     * Extensions the client supports.
+     */
+    @Label("Offered Extensions")
+    private String offeredExtensions;
+
+    /**
+     * Extensions the server chose.
+     */
+    @Label("Negotiated Extensions")
+    private String negotiatedExtensions;
+
+    /**
+     * Shortest round trip time measured during the handshake.
+     */
+    @Label("Round Trip Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long roundTripTime;
+}
@@ -0,0 +1,41 @@
+package software.isratech.easy_file_transferer.metrics;
+
+import jdk.jfr.*;
+import lombok.Setter;
+
+/**
+ * Flight recorder event for hashing a file.
+ */
+@Name("software.isratech.easy_file_transferer.Hashing")
+@Label("Hashing")
+@Category({"Easy File Transferer", "Hashing"})
+@Description("A file hashed, or looked up in the hash cache")
+@StackTrace(false)
+@Setter
+public class HashingEvent extends Event {
+
+    /**
+     * Path of the file.
+     */
+    @Label("Path")
+    private String path;
+
+    /**
+     * The hash algorithm.
+     */
+    @Label("Algorithm")
+    private String algorithm;
+
+    /**
+     * Size of the file.
+     */
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * Whether the hashes were found in the hash cache.
+     */
+    @Label("Cached")
+    private boolean cached;
+}
@@ -0,0 +1,136 @@
+package software.isratech.easy_file_transferer.metrics;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The value of the {@link TransferMetrics} counters at one point in time, or their difference between two points.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class MetricsSnapshot {
+
+    /**
+     * {@link System#nanoTime()} when the snapshot was taken, or the elapsed time of a difference.
+     */
+    private final long nanoTime;
+
+    /**
+     * Bytes written to sockets.
+     */
+    private final long bytesSent;
+
+    /**
+     * Bytes read from sockets.
+     */
+    private final long bytesReceived;
+
+    /**
+     * Bytes read from files.
+     */
+    private final long bytesRead;
+
+    /**
+     * Bytes written to files.
+     */
+    private final long bytesWritten;
+
+    /**
+     * Bytes hashed.
+     */
+    private final long bytesHashed;
+
+    /**
+     * Calls reading from or writing to sockets.
+     */
+    private final long socketCalls;
+
+    /**
+     * Calls reading from or writing to files.
+     */
+    private final long diskCalls;
+
+    /**
+     * Time waited for sockets, in nanoseconds.
+     */
+    private final long socketWaitNanos;
+
+    /**
+     * Time waited for files, in nanoseconds.
+     */
+    private final long diskWaitNanos;
+
+    /**
+     * Time spent hashing, in nanoseconds.
+     */
+    private final long hashNanos;
+
+    /**
+     * Returns what happened between an earlier snapshot and this one.
+     * Counts everything the process did in between, so concurrent transfers are included.
+     *
+     * @param start - the earlier snapshot.
+     * @return the difference, whose time is the elapsed time.
+     */
+    @NonNull
+    public MetricsSnapshot since(@NonNull final MetricsSnapshot start) {
+        return new MetricsSnapshot(
+                nanoTime - start.nanoTime,
+                bytesSent - start.bytesSent,
+                bytesReceived - start.bytesReceived,
+                bytesRead - start.bytesRead,
+                bytesWritten - start.bytesWritten,
+                bytesHashed - start.bytesHashed,
+                socketCalls - start.socketCalls,
+                diskCalls - start.diskCalls,
+                socketWaitNanos - start.socketWaitNanos,
+                diskWaitNanos - start.diskWaitNanos,
+                hashNanos - start.hashNanos
+        );
+    }
+
+    /**
+     * Formats a difference as JSON, including the throughput over its elapsed time.
+     *
+     * @return the JSON object.
+     */
+    @NonNull
+    public String toJson() {
+        final double seconds = nanoTime / 1e9;
+        return String.format(Locale.ROOT, String.join(System.lineSeparator(),
+                        "{",
+                        "  \"durationMillis\": %d,",
+                        "  \"bytesSent\": %d,",
+                        "  \"bytesReceived\": %d,",
+                        "  \"bytesRead\": %d,",
+                        "  \"bytesWritten\": %d,",
+                        "  \"bytesHashed\": %d,",
+                        "  \"sentBytesPerSecond\": %.0f,",
+                        "  \"receivedBytesPerSecond\": %.0f,",
+                        "  \"socketCalls\": %d,",
+                        "  \"diskCalls\": %d,",
+                        "  \"socketWaitMillis\": %d,",
+                        "  \"diskWaitMillis\": %d,",
+                        "  \"hashMillis\": %d",
+                        "}"),
+                TimeUnit.NANOSECONDS.toMillis(nanoTime),
+                bytesSent,
+                bytesReceived,
+                bytesRead,
+                bytesWritten,
+                bytesHashed,
+                seconds > 0 ? bytesSent / seconds : 0d,
+                seconds > 0 ? bytesReceived / seconds : 0d,
+                socketCalls,
+                diskCalls,
+                TimeUnit.NANOSECONDS.toMillis(socketWaitNanos),
+                TimeUnit.NANOSECONDS.toMillis(diskWaitNanos),
+                TimeUnit.NANOSECONDS.toMillis(hashNanos)
+        );
+    }
+}
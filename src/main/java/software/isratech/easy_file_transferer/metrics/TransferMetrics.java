@@ -0,0 +1,176 @@
+package software.isratech.easy_file_transferer.metrics;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what transfers spend their time on, for the whole process.
+ * Every blocking call on a socket or a file records how long the transfer waited for it, so a slow transfer can be
+ * attributed to the network, the disk or hashing. Counting is lock free and cheap enough to stay always on.
+ * Take a {@link MetricsSnapshot} before and after a transfer to get the transfer's own metrics.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TransferMetrics {
+
+    /**
+     * Bytes written to sockets.
+     */
+    private static final LongAdder BYTES_SENT = new LongAdder();
+
+    /**
+     * Bytes read from sockets.
+     */
+    private static final LongAdder BYTES_RECEIVED = new LongAdder();
+
+    /**
+     * Bytes read from files.
+     */
+    private static final LongAdder BYTES_READ = new LongAdder();
+
+    /**
+     * Bytes written to files.
+     */
+    private static final LongAdder BYTES_WRITTEN = new LongAdder();
+
+    /**
+     * Bytes hashed.
+     */
+    private static final LongAdder BYTES_HASHED = new LongAdder();
+
+    /**
+     * Calls reading from or writing to sockets.
+     */
+    private static final LongAdder SOCKET_CALLS = new LongAdder();
+
+    /**
+     * Calls reading from or writing to files.
+     */
+    private static final LongAdder DISK_CALLS = new LongAdder();
+
+    /**
+     * Time transfers waited for sockets, in nanoseconds.
+     */
+    private static final LongAdder SOCKET_WAIT_NANOS = new LongAdder();
+
+    /**
+     * Time transfers waited for files, in nanoseconds.
+     */
+    private static final LongAdder DISK_WAIT_NANOS = new LongAdder();
+
+    /**
+     * Time spent hashing, in nanoseconds.
+     */
+    private static final LongAdder HASH_NANOS = new LongAdder();
+
+    /**
+     * Records a write to a socket.
+     *
+     * @param startNanos - {@link System#nanoTime()} before the write.
+     * @param bytes      - the amount of bytes written.
+     */
+    public static void recordSocketWrite(final long startNanos, final long bytes) {
+        SOCKET_CALLS.increment();
+        SOCKET_WAIT_NANOS.add(System.nanoTime() - startNanos);
+        BYTES_SENT.add(bytes);
+    }
+
+    /**
+     * Records a read from a socket.
+     *
+     * @param startNanos - {@link System#nanoTime()} before the read.
+     * @param bytes      - the amount of bytes read, -1 at the end of the stream.
+     */
+    public static void recordSocketRead(final long startNanos, final long bytes) {
+        SOCKET_CALLS.increment();
+        SOCKET_WAIT_NANOS.add(System.nanoTime() - startNanos);
+        if (bytes > 0) BYTES_RECEIVED.add(bytes);
+    }
+
+    /**
+     * Records a zero-copy transfer from a file to a socket.
+     * The kernel reads the file and writes the socket in one call, so the time counts as waiting for the socket.
+     *
+     * @param startNanos - {@link System#nanoTime()} before the transfer.
+     * @param bytes      - the amount of bytes transferred.
+     */
+    public static void recordSendfile(final long startNanos, final long bytes) {
+        recordSocketWrite(startNanos, bytes);
+        BYTES_READ.add(bytes);
+    }
+
+    /**
+     * Records a read from a file that the transfer waited for.
+     *
+     * @param startNanos - {@link System#nanoTime()} before the read.
+     * @param bytes      - the amount of bytes read, -1 at the end of the file.
+     */
+    public static void recordDiskRead(final long startNanos, final long bytes) {
+        recordDiskWait(startNanos);
+        recordReadAhead(bytes);
+    }
+
+    /**
+     * Records a read from a file on a background thread, which the transfer did not wait for.
+     *
+     * @param bytes - the amount of bytes read, -1 at the end of the file.
+     */
+    public static void recordReadAhead(final long bytes) {
+        DISK_CALLS.increment();
+        if (bytes > 0) BYTES_READ.add(bytes);
+    }
+
+    /**
+     * Records a write to a file.
+     *
+     * @param startNanos - {@link System#nanoTime()} before the write.
+     * @param bytes      - the amount of bytes written.
+     */
+    public static void recordDiskWrite(final long startNanos, final long bytes) {
+        DISK_CALLS.increment();
+        DISK_WAIT_NANOS.add(System.nanoTime() - startNanos);
+        BYTES_WRITTEN.add(bytes);
+    }
+
+    /**
+     * Records the transfer waiting for data that is read from a file on a background thread.
+     *
+     * @param startNanos - {@link System#nanoTime()} before waiting.
+     */
+    public static void recordDiskWait(final long startNanos) {
+        DISK_WAIT_NANOS.add(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records hashing data.
+     *
+     * @param startNanos - {@link System#nanoTime()} before hashing.
+     * @param bytes      - the amount of bytes hashed.
+     */
+    public static void recordHashing(final long startNanos, final long bytes) {
+        HASH_NANOS.add(System.nanoTime() - startNanos);
+        BYTES_HASHED.add(bytes);
+    }
+
+    /**
+     * @return the current value of all counters.
+     */
+    @NonNull
+    public static MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(
+                System.nanoTime(),
+                BYTES_SENT.sum(),
+                BYTES_RECEIVED.sum(),
+                BYTES_READ.sum(),
+                BYTES_WRITTEN.sum(),
+                BYTES_HASHED.sum(),
+                SOCKET_CALLS.sum(),
+                DISK_CALLS.sum(),
+                SOCKET_WAIT_NANOS.sum(),
+                DISK_WAIT_NANOS.sum(),
+                HASH_NANOS.sum()
+        );
+    }
+}
@@ -0,0 +1,97 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+import static software.isratech.easy_file_transferer.Constants.INITIAL_IO_CHUNK_SIZE;
+import static software.isratech.easy_file_transferer.Constants.MAX_IO_CYCLE_TIME;
+import static software.isratech.easy_file_transferer.Constants.MIN_IO_CHUNK_SIZE;
+
+/**
+ * Adapts the amount of bytes moved per I/O cycle to the observed throughput, like TCP's congestion control.
+ * The size grows additively while cycles keep their throughput and stay short, and halves once a cycle takes too
+ * long or its throughput collapses. Fast links end up with large batches and few calls into the kernel, slow links
+ * with small cycles that keep the progress moving.
+ */
+class AdaptiveChunkSize {
+
+    /**
+     * Share of the average throughput below which a cycle's throughput counts as collapsed.
+     */
+    private static final double COLLAPSE_RATIO = 0.5d;
+
+    /**
+     * Weight of the latest cycle in the average throughput.
+     */
+    private static final double AVERAGE_WEIGHT = 0.25d;
+
+    /**
+     * Longest a cycle may take, in nanoseconds.
+     */
+    private static final long MAX_CYCLE_NANOS = TimeUnit.MILLISECONDS.toNanos(MAX_IO_CYCLE_TIME);
+
+    /**
+     * The smallest size.
+     */
+    private final int minSize;
+
+    /**
+     * The largest size, which bounds the memory a cycle may need.
+     */
+    private final int maxSize;
+
+    /**
+     * How much the size grows per cycle, which is the initial size.
+     */
+    private final int increment;
+
+    /**
+     * The current size.
+     */
+    @Getter
+    private int size;
+
+    /**
+     * Moving average of the cycles' throughput in bytes per nanosecond, 0 before the first cycle.
+     */
+    private double averageThroughput = 0d;
+
+    /**
+     * @param maxSize - the largest size.
+     */
+    AdaptiveChunkSize(final int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        this.minSize = Math.min(MIN_IO_CHUNK_SIZE, this.maxSize);
+        this.increment = Math.min(INITIAL_IO_CHUNK_SIZE, this.maxSize);
+        this.size = increment;
+    }
+
+    /**
+     * @param remaining - the amount of bytes left to move.
+     * @return the amount of bytes to move in the next cycle.
+     */
+    int next(final long remaining) {
+        return (int) Math.min(size, remaining);
+    }
+
+    /**
+     * Adapts the size to a finished cycle.
+     *
+     * @param bytes - the amount of bytes moved in the cycle.
+     * @param nanos - how long the cycle took, in nanoseconds.
+     */
+    void record(final long bytes, final long nanos) {
+        if (bytes <= 0 || nanos <= 0) return;
+        final double throughput = (double) bytes / nanos;
+        if (nanos > MAX_CYCLE_NANOS || throughput < averageThroughput * COLLAPSE_RATIO) {
+            size = Math.max(minSize, size / 2);
+            averageThroughput = throughput;
+            return;
+        }
+        averageThroughput = averageThroughput == 0d
+                ? throughput
+                : averageThroughput + AVERAGE_WEIGHT * (throughput - averageThroughput);
+        size = Math.min(maxSize, size + increment);
+    }
+}
@@ -0,0 +1,105 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static software.isratech.easy_file_transferer.Constants.DEFAULT_BYTES;
+import static software.isratech.easy_file_transferer.Constants.MIN_IO_CHUNK_SIZE;
+
+/**
+ * Keeps a small pool of reusable direct buffers, so transfers do not allocate memory per chunk.
+ * Buffers come in power of two sizes from {@link software.isratech.easy_file_transferer.Constants#MIN_IO_CHUNK_SIZE}
+ * up to the first size holding {@link software.isratech.easy_file_transferer.Constants#DEFAULT_BYTES}, so small files
+ * only take small buffers. Every size keeps a few idle buffers, which bounds the pool's memory.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class BufferPool {
+
+    /**
+     * Maximum amount of idle buffers kept per size.
+     */
+    private static final int MAX_POOLED_BUFFERS = 4;
+
+    /**
+     * Size of the smallest buffers.
+     */
+    private static final int MIN_CAPACITY = Integer.highestOneBit(MIN_IO_CHUNK_SIZE);
+
+    /**
+     * Size of the largest buffers.
+     */
+    private static final int MAX_CAPACITY = Integer.highestOneBit(DEFAULT_BYTES - 1) << 1;
+
+    /**
+     * Idle buffers, by size from the smallest to the largest.
+     */
+    private static final List<Queue<ByteBuffer>> POOLS = createPools();
+
+    /**
+     * Takes a buffer of the largest size from the pool, or allocates a new one if there is none.
+     *
+     * @return a cleared direct buffer holding at least {@link software.isratech.easy_file_transferer.Constants#DEFAULT_BYTES} bytes.
+     */
+    @NonNull
+    public static ByteBuffer acquire() {
+        return acquire(MAX_CAPACITY);
+    }
+
+    /**
+     * Takes the smallest buffer holding the given amount of bytes from the pool, or allocates a new one if there
+     * is none. Larger amounts get a buffer of the largest size.
+     *
+     * @param bytes - the amount of bytes the buffer should hold.
+     * @return a cleared direct buffer.
+     */
+    @NonNull
+    public static ByteBuffer acquire(final long bytes) {
+        final int capacity = bytes <= MIN_CAPACITY
+                ? MIN_CAPACITY
+                : (int) Math.min(MAX_CAPACITY, Long.highestOneBit(Math.min(bytes, MAX_CAPACITY) - 1) << 1);
+        final ByteBuffer buffer = POOLS.get(indexOf(capacity)).poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        return buffer.clear();
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     *
+     * @param buffer - a buffer previously taken from {@link #acquire(long)}.
+     */
+    public static void release(@NonNull final ByteBuffer buffer) {
+        final Queue<ByteBuffer> pool = POOLS.get(indexOf(buffer.capacity()));
+        if (pool.size() < MAX_POOLED_BUFFERS) {
+            pool.offer(buffer);
+        }
+    }
+
+    /**
+     * @param capacity - a buffer size.
+     * @return the index of the size's pool.
+     */
+    private static int indexOf(final int capacity) {
+        return Integer.numberOfTrailingZeros(capacity) - Integer.numberOfTrailingZeros(MIN_CAPACITY);
+    }
+
+    /**
+     * @return an empty pool for every size.
+     */
+    @NonNull
+    private static List<Queue<ByteBuffer>> createPools() {
+        final List<Queue<ByteBuffer>> pools = new ArrayList<>(indexOf(MAX_CAPACITY) + 1);
+        for (int i = 0; i <= indexOf(MAX_CAPACITY); i++) {
+            pools.add(new ConcurrentLinkedQueue<>());
+        }
+        return List.copyOf(pools);
+    }
+}
@@ -0,0 +1,341 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.Getter;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.hashing.Hashing;
+import software.isratech.easy_file_transferer.hashing.MerkleTree;
+import software.isratech.easy_file_transferer.hashing.TreeHashing;
+
+import java.io.*;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static software.isratech.easy_file_transferer.Constants.CHUNK_SIDECAR_SUFFIX;
+
+/**
+ * Verifies a received file chunk by chunk.
+ * Every chunk is hashed while it is received, so checking it against the remote's chunk hashes needs no second
+ * pass over the file, and a corrupted chunk can be fetched again on its own. The root of the chunk hashes' merkle
+ * tree replaces the whole file hash in the final comparison.
+ * The hashes of a partially received file are kept in a sidecar file next to it, so a resumed transfer can trust
+ * the existing part without reading it again.
+ */
+public class ChunkVerifier {
+
+    /**
+     * Sent by the client to request the remote's chunk hashes.
+     */
+    public static final String CHUNK_HASHES_REQUEST = "GIVE_ME_CHUNKS";
+
+    /**
+     * Sent by the client to request a single chunk again, followed by the chunk's index.
+     */
+    public static final String REFETCH_PREFIX = "REFETCH:";
+
+    /**
+     * Upper bound for the amount of chunks, so a malicious remote cannot make the client allocate unbounded memory.
+     */
+    private static final int MAX_CHUNKS = 1 << 22;
+
+    /**
+     * Identifies sidecar files.
+     */
+    private static final int SIDECAR_MAGIC = 0x45465443;
+
+    /**
+     * Size of the chunks.
+     */
+    @Getter
+    private final int chunkSize;
+
+    /**
+     * Size of the file.
+     */
+    private final long fileSize;
+
+    /**
+     * Hashes of the chunks that were received or trusted so far, null for the others.
+     */
+    private final byte[][] chunkHashes;
+
+    /**
+     * Hashes of the existing part's chunks, read from its sidecar file.
+     */
+    private final List<byte[]> trustedChunkHashes;
+
+    /**
+     * Creates a verifier for a file.
+     *
+     * @param chunkSize          - the chunk size chosen by the remote.
+     * @param fileSize           - the size of the file.
+     * @param trustedChunkHashes - the hashes of the existing part's chunks, if they were saved with the same chunk size.
+     */
+    public ChunkVerifier(final int chunkSize, final long fileSize, @NonNull final List<byte[]> trustedChunkHashes) throws ProtocolException {
+        if (chunkSize <= 0 || (fileSize + chunkSize - 1) / chunkSize > MAX_CHUNKS) {
+            throw new ProtocolException("Illegal chunk size: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.fileSize = fileSize;
+        this.chunkHashes = new byte[(int) ((fileSize + chunkSize - 1) / chunkSize)][];
+        this.trustedChunkHashes = trustedChunkHashes;
+    }
+
+    /**
+     * @return the amount of chunks.
+     */
+    public int getChunkCount() {
+        return chunkHashes.length;
+    }
+
+    /**
+     * @param index - the chunk's index.
+     * @return the chunk's offset in the file.
+     */
+    public long getChunkPosition(final int index) {
+        return (long) index * chunkSize;
+    }
+
+    /**
+     * @param index - the chunk's index.
+     * @return the chunk's length, only the last chunk may be shorter than the chunk size.
+     */
+    public long getChunkLength(final int index) {
+        return Math.min(chunkSize, fileSize - getChunkPosition(index));
+    }
+
+    /**
+     * Restores the hashes of the existing part of a resumed file.
+     * Chunks covered by the saved or cached chunk hashes are trusted, the complete chunks after them are hashed from the
+     * disk in parallel.
+     * An incomplete last chunk is hashed by {@link #hasherAt}, once the transfer continues it.
+     *
+     * @param fileChannel    - the file.
+     * @param existingLength - the length of the existing part.
+     */
+    public void hashExistingPart(@NonNull final FileChannel fileChannel, final long existingLength) throws IOException, NoSuchAlgorithmException {
+        final long completeLength = Math.min(existingLength, fileSize) / chunkSize * chunkSize;
+        final int trustedChunks = (int) Math.min(trustedChunkHashes.size(), completeLength / chunkSize);
+        for (int i = 0; i < trustedChunks; i++) {
+            chunkHashes[i] = trustedChunkHashes.get(i);
+        }
+        final int completeChunks = (int) (completeLength / chunkSize);
+        final List<byte[]> existingChunkHashes = TreeHashing.getChunkHashes(fileChannel, fileSize, chunkSize, trustedChunks, completeChunks);
+        for (int i = trustedChunks; i < completeChunks; i++) {
+            chunkHashes[i] = existingChunkHashes.get(i - trustedChunks);
+        }
+    }
+
+    /**
+     * Creates a hasher for data received from the given position on.
+     * If the position is inside a chunk, the part of the chunk before it is read from the file first.
+     *
+     * @param fileChannel - the file, readable if the position is inside a chunk.
+     * @param position    - the offset the received data starts at.
+     * @return the hasher.
+     */
+    @NonNull
+    public Hasher hasherAt(@NonNull final FileChannel fileChannel, final long position) throws IOException, NoSuchAlgorithmException {
+        final long chunkPosition = position / chunkSize * chunkSize;
+        final Hasher hasher = new Hasher(chunkPosition);
+        hasher.update(fileChannel, chunkPosition, position - chunkPosition);
+        return hasher;
+    }
+
+    /**
+     * Compares the chunks to the remote's chunk hashes.
+     *
+     * @param expectedChunkHashes - the remote's chunk hashes.
+     * @return the indices of all chunks that differ or were not received.
+     */
+    @NonNull
+    public List<Integer> findCorruptedChunks(@NonNull final List<byte[]> expectedChunkHashes) {
+        final List<Integer> corruptedChunks = new ArrayList<>();
+        for (int i = 0; i < chunkHashes.length; i++) {
+            if (!Arrays.equals(chunkHashes[i], expectedChunkHashes.get(i))) {
+                corruptedChunks.add(i);
+            }
+        }
+        return corruptedChunks;
+    }
+
+    /**
+     * @return the root hash of the chunk hashes' merkle tree, encoded in hex.
+     */
+    @NonNull
+    public String getRootHash() throws IOException, NoSuchAlgorithmException {
+        for (int i = 0; i < chunkHashes.length; i++) {
+            if (chunkHashes[i] == null) throw new IOException(String.format("Chunk %s was not received!", i));
+        }
+        return Hashing.toHex(MerkleTree.getRoot(Arrays.asList(chunkHashes)));
+    }
+
+    /**
+     * Saves the hashes of the complete chunks at the start of the file into its sidecar file.
+     * The sidecar records the file's size and modification time, so it is ignored once the file was changed.
+     * A sidecar that cannot be written only costs rehashing on resume, so errors are ignored.
+     *
+     * @param file - the received file.
+     */
+    public void saveSidecar(@NonNull final Path file) {
+        int chunks = 0;
+        while (chunks < chunkHashes.length && chunkHashes[chunks] != null && getChunkLength(chunks) == chunkSize) {
+            chunks++;
+        }
+        final Path sidecar = getSidecarPath(file);
+        try {
+            if (chunks == 0 || !Files.isRegularFile(file)) {
+                Files.deleteIfExists(sidecar);
+                return;
+            }
+            try (final DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(sidecar)))) {
+                outputStream.writeInt(SIDECAR_MAGIC);
+                outputStream.writeInt(chunkSize);
+                outputStream.writeLong(Files.size(file));
+                outputStream.writeLong(Files.getLastModifiedTime(file).toMillis());
+                outputStream.writeInt(chunks);
+                for (int i = 0; i < chunks; i++) {
+                    outputStream.write(chunkHashes[i]);
+                }
+            }
+        } catch (IOException ignored) {
+            // the existing part is rehashed on resume
+        }
+    }
+
+    /**
+     * Reads the chunk hashes saved for a partially received file.
+     *
+     * @param file      - the partially received file.
+     * @param chunkSize - the chunk size the hashes must have been saved with.
+     * @return the hashes of the file's first chunks, empty if there is no valid sidecar for the file as it is now.
+     */
+    @NonNull
+    public static List<byte[]> loadSidecar(@NonNull final Path file, final int chunkSize) {
+        final Path sidecar = getSidecarPath(file);
+        if (!Files.isRegularFile(sidecar)) return List.of();
+        try (final DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar)))) {
+            final long fileSize = Files.size(file);
+            if (inputStream.readInt() != SIDECAR_MAGIC
+                    || inputStream.readInt() != chunkSize
+                    || inputStream.readLong() != fileSize
+                    || inputStream.readLong() != Files.getLastModifiedTime(file).toMillis()) {
+                return List.of();
+            }
+            final int chunks = inputStream.readInt();
+            if (chunks <= 0 || (long) chunks * chunkSize > fileSize) return List.of();
+            final List<byte[]> chunkHashes = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                final byte[] chunkHash = new byte[MerkleTree.HASH_LENGTH];
+                inputStream.readFully(chunkHash);
+                chunkHashes.add(chunkHash);
+            }
+            return chunkHashes;
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Deletes the sidecar file of a file, once it was received completely.
+     *
+     * @param file - the received file.
+     */
+    public static void deleteSidecar(@NonNull final Path file) throws IOException {
+        Files.deleteIfExists(getSidecarPath(file));
+    }
+
+    /**
+     * @param file - the received file.
+     * @return the path of the file's sidecar file.
+     */
+    @NonNull
+    private static Path getSidecarPath(@NonNull final Path file) {
+        return file.resolveSibling(file.getFileName() + CHUNK_SIDECAR_SUFFIX);
+    }
+
+    /**
+     * Hashes consecutive data of the file and records the hash of every chunk it completes.
+     * Each stripe of a transfer uses its own hasher, so they never share a chunk.
+     */
+    public class Hasher {
+
+        /**
+         * Digest of the current chunk.
+         */
+        private final MessageDigest messageDigest = Hashing.newSHA256Digest();
+
+        /**
+         * Index of the current chunk.
+         */
+        private int index;
+
+        /**
+         * Offset in the file of the next byte.
+         */
+        private long position;
+
+        /**
+         * @param position - the offset of the first byte, must be the start of a chunk.
+         */
+        private Hasher(final long position) throws NoSuchAlgorithmException {
+            this.index = (int) (position / chunkSize);
+            this.position = position;
+        }
+
+        /**
+         * Hashes the remaining content of a buffer.
+         *
+         * @param data - the data, consumed by this call.
+         */
+        public void update(@NonNull final ByteBuffer data) {
+            final int limit = data.limit();
+            while (data.hasRemaining()) {
+                final long chunkEnd = getChunkPosition(index) + getChunkLength(index);
+                final int length = (int) Math.min(data.remaining(), chunkEnd - position);
+                if (length <= 0) {
+                    throw new IllegalStateException("Received data beyond the end of the file!");
+                }
+                data.limit(data.position() + length);
+                messageDigest.update(data);
+                data.limit(limit);
+                position += length;
+                if (position == chunkEnd) {
+                    chunkHashes[index++] = messageDigest.digest();
+                }
+            }
+        }
+
+        /**
+         * Hashes a region of the file.
+         *
+         * @param fileChannel - the file.
+         * @param position    - the offset of the region, must be the next byte of this hasher.
+         * @param length      - the length of the region.
+         */
+        private void update(@NonNull final FileChannel fileChannel, final long position, final long length) throws IOException {
+            final ByteBuffer buffer = BufferPool.acquire(length);
+            try {
+                long read = 0L;
+                while (read < length) {
+                    buffer.clear();
+                    buffer.limit(Math.toIntExact(Math.min(buffer.capacity(), length - read)));
+                    final int returnCode = fileChannel.read(buffer, position + read);
+                    if (returnCode == -1) throw new EOFException("File is shorter than expected!");
+                    buffer.flip();
+                    update(buffer);
+                    read += returnCode;
+                }
+            } finally {
+                BufferPool.release(buffer);
+            }
+        }
+    }
+}
@@ -1,22 +1,28 @@
 package software.isratech.easy_file_transferer.net;
 
-import javafx.application.Platform;
-import javafx.scene.control.Alert;
-import javafx.scene.control.ButtonBar;
-import javafx.scene.control.ButtonType;
-import javafx.scene.control.Label;
 import lombok.*;
+import software.isratech.easy_file_transferer.hashing.FileHashCache;
 import software.isratech.easy_file_transferer.hashing.Hashing;
+import software.isratech.easy_file_transferer.metrics.HandshakeEvent;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.ProtocolException;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static software.isratech.easy_file_transferer.Constants.CHUNK_SIZE;
+import static software.isratech.easy_file_transferer.Constants.DEFAULT_STREAMS;
 import static software.isratech.easy_file_transferer.net.Communication.*;
 
 /**
@@ -25,79 +31,248 @@ import static software.isratech.easy_file_transferer.net.Communication.*;
 @NoArgsConstructor(access = AccessLevel.PUBLIC)
 public class Client {
 
+    /**
+     * Protocol extensions the server chose to use for the current transfer.
+     */
+    private Map<String, String> negotiatedExtensions = Map.of();
+
+    /**
+     * Hashes of the existing file's first chunks, read from its sidecar file or the hash cache.
+     */
+    private List<byte[]> trustedChunkHashes = List.of();
+
+    /**
+     * The path the file is received into, claimed so no other transfer of this process writes it at the same time.
+     */
+    private List<Path> claimedPaths = List.of();
+
+    /**
+     * How the connections are tuned.
+     */
+    @Setter
+    private TuningProfile tuningProfile = TuningProfile.AUTO;
+
+    /**
+     * Limit of the transfer in bytes per second, 0 if unlimited.
+     */
+    @Setter
+    private long rateLimit = 0L;
+
     /**
      * Connect to remote and receive a file
+     * If another transfer of this process receives a file of the same name into the same directory, the file is
+     * only received once that transfer is over.
      *
-     * @param remoteHost - ip address of the remote host
-     * @param remotePort - the port of the remote host
+     * @param remoteHost     - ip address of the remote host
+     * @param remotePort     - the port of the remote host
+     * @param exportFilePath - the directory to save the files in
+     * @param listener       - receives the transfer's status
      */
     public void connect(
             @NonNull final String remoteHost,
             final int remotePort,
             @NonNull final String exportFilePath,
-            @NonNull final Label connectionInfoLabel,
-            @NonNull final Label statusMessageLabel
+            @NonNull final TransferListener listener
+    ) throws IOException, NoSuchAlgorithmException {
+        final TransferStatus status = new TransferStatus(listener);
+        try {
+            receive(remoteHost, remotePort, exportFilePath, status);
+        } finally {
+            ReceivingPaths.release(claimedPaths);
+            claimedPaths = List.of();
+        }
+    }
+
+    /**
+     * Connects to the remote and receives its files.
+     *
+     * @param remoteHost     - ip address of the remote host
+     * @param remotePort     - the port of the remote host
+     * @param exportFilePath - the directory to save the files in
+     * @param status         - the transfer's status
+     */
+    private void receive(
+            @NonNull final String remoteHost,
+            final int remotePort,
+            @NonNull final String exportFilePath,
+            @NonNull final TransferStatus status
     ) throws IOException, NoSuchAlgorithmException {
+        final TransferListener listener = status.getListener();
         final SocketAddress socketAddress = new InetSocketAddress(remoteHost, remotePort);
-        try (final Socket socket = new Socket()) {
+        try (
+                final SocketChannel socketChannel = SocketChannel.open();
+                final Throttle throttle = Throttle.open(rateLimit)
+        ) {
+            final Socket socket = socketChannel.socket();
             String connectionStatusText = String.format("Connecting to %s:%s...", remoteHost, remotePort);
-            updateTextLabel(connectionStatusText, connectionInfoLabel);
+            listener.onConnectionStatus(connectionStatusText);
+            SocketTuning.configure(socket, tuningProfile);
             socket.connect(socketAddress);
             connectionStatusText += "\nConnection successful!";
-            updateTextLabel(connectionStatusText, connectionInfoLabel);
-            final InputStream socketInputStream = socket.getInputStream();
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(socketInputStream));
-            final PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true);
-            final Quadruple<String, Long, Boolean, Long> fileInfoQuadruple = handleInitialCommunication(reader, writer, exportFilePath, statusMessageLabel);
-            final File receivedFile = receiveFile(socketInputStream, fileInfoQuadruple, statusMessageLabel);
-            updateTextLabel(String.format("%s%n%s", statusMessageLabel.getText(), "Computing hashes..."), statusMessageLabel);
-            compareFileHashes(reader, writer, receivedFile, statusMessageLabel);
-            updateTextLabel(String.format("%s%n%s", statusMessageLabel.getText(), "Transfer complete."), statusMessageLabel);
+            listener.onConnectionStatus(connectionStatusText);
+            final Connection connection = new Connection(socket);
+            final HandshakeEvent handshakeEvent = new HandshakeEvent();
+            handshakeEvent.begin();
+            final Quadruple<String, Long, Boolean, Long> fileInfoQuadruple = handleInitialCommunication(connection, exportFilePath, status, handshakeEvent);
+            if (handshakeEvent.shouldCommit()) {
+                handshakeEvent.setRemote(socketAddress.toString());
+                handshakeEvent.setFileName(fileInfoQuadruple.getFirst());
+                handshakeEvent.setFileSize(fileInfoQuadruple.getSecond());
+                handshakeEvent.setExistingSize(fileInfoQuadruple.getFourth());
+                handshakeEvent.setNegotiatedExtensions(negotiatedExtensions.toString());
+                handshakeEvent.setRoundTripTime(connection.getRoundTripNanos());
+                handshakeEvent.commit();
+            }
+            // the receiver cannot measure the throughput before receiving, so only the round trip time is known
+            final TuningProfile profile = tuningProfile.resolve(connection.getRoundTripNanos(), 0d);
+            SocketTuning.configure(socket, profile);
+            final MessageDigest messageDigest = Hashing.newSHA256Digest();
+            final int streams = ProtocolExtensions.getInt(negotiatedExtensions, ProtocolExtensions.STREAMS, 1);
+            final ChunkVerifier chunkVerifier = createChunkVerifier(fileInfoQuadruple.getSecond());
+            final InflatingChannel inflatingChannel = negotiatedExtensions.containsKey(ProtocolExtensions.COMPRESS)
+                    ? new InflatingChannel(connection.getDataInput())
+                    : null;
+            final ReadableByteChannel source = inflatingChannel != null ? inflatingChannel : connection.getDataInput();
+            final List<File> receivedFiles;
+            if (negotiatedExtensions.containsKey(ProtocolExtensions.MANIFEST)) {
+                receivedFiles = receiveFiles(connection, source, Path.of(exportFilePath), fileInfoQuadruple.getSecond(), messageDigest, throttle, status);
+            } else if (negotiatedExtensions.containsKey(ProtocolExtensions.DELTA)) {
+                final int blockSize = ProtocolExtensions.getInt(negotiatedExtensions, ProtocolExtensions.DELTA, 0);
+                receivedFiles = List.of(receiveDeltaFile(connection, blockSize, fileInfoQuadruple, messageDigest, throttle, status));
+            } else if (streams > 1) {
+                receivedFiles = List.of(receiveStripedFile(socketAddress, negotiatedExtensions.get(ProtocolExtensions.SESSION), streams, fileInfoQuadruple, messageDigest, chunkVerifier, profile, throttle, status));
+            } else {
+                receivedFiles = List.of(receiveFile(source, fileInfoQuadruple, messageDigest, chunkVerifier, throttle, status));
+            }
+            if (inflatingChannel != null) {
+                inflatingChannel.close();
+                status.append(Compression.formatRatio(inflatingChannel.getRawBytes(), inflatingChannel.getCompressedBytes()));
+            }
+            final String fileHash;
+            if (chunkVerifier != null) {
+                status.append("Verifying chunks...");
+                verifyChunks(connection, Path.of(fileInfoQuadruple.getFirst()), chunkVerifier, status);
+                fileHash = chunkVerifier.getRootHash();
+            } else {
+                fileHash = Hashing.toHex(messageDigest);
+            }
+            status.append("Comparing hashes...");
+            final boolean hashesMatch = compareFileHashes(connection, receivedFiles, fileHash, status);
+            status.append("Transfer complete.");
+            if (hashesMatch) listener.onComplete();
         }
     }
 
     /**
      * Handles initial client-server communication and returns info about the file that will be received.
      *
-     * @param reader - the input reader to read incoming messages from.
-     * @param writer - the writer to send messages to the remote with.
+     * @param connection     - the connection to the remote.
+     * @param handshakeEvent - records the offered protocol extensions.
      * @return a quadruple containing file name, file size, file exists on own system and the existing file size.
      */
     @NonNull
     private Quadruple<String, Long, Boolean, Long> handleInitialCommunication(
-            @NonNull final BufferedReader reader,
-            @NonNull final PrintWriter writer,
+            @NonNull final Connection connection,
             @NonNull final String exportFilePath,
-            @NonNull final Label statusMessageLabel
+            @NonNull final TransferStatus status,
+            @NonNull final HandshakeEvent handshakeEvent
     ) throws IOException {
         long existingFileSize = 0L;
-        sendMessage(writer, "init");
+        sendMessage(connection, "init");
         String transferStatusText = "Retrieving file info...";
-        updateTextLabel(transferStatusText, statusMessageLabel);
-        final String fileName = receiveMessage(reader);
-        sendMessage(writer, "Received Name");
-        final long fileSize = receiveLong(reader);
+        status.setText(transferStatusText);
+        final String fileName = receiveMessage(connection);
+        if (fileName == null) {
+            throw new ProtocolException("Server closed the connection, it may be serving another client!");
+        }
+        // the name is chosen by the remote, so it must not lead outside of the download directory
+        final Path absolutePath = Manifest.resolve(Path.of(exportFilePath), fileName);
+        final String waitingStatusText = transferStatusText + "\nWaiting for another transfer of the same file...";
+        ReceivingPaths.claim(List.of(absolutePath), () -> status.setText(waitingStatusText));
+        claimedPaths = List.of(absolutePath);
+        final File existingFile = getExistingFileUri(absolutePath.toAbsolutePath().toString());
+        trustedChunkHashes = existingFile != null ? ChunkVerifier.loadSidecar(existingFile.toPath(), CHUNK_SIZE) : List.of();
+        final boolean resumed = !trustedChunkHashes.isEmpty();
+        if (existingFile != null && !resumed) {
+            // a complete file hashed before, e.g. when it was sent, does not need to be read again
+            trustedChunkHashes = FileHashCache.getCachedChunkHashes(existingFile.toPath(), CHUNK_SIZE);
+        }
+        final Map<String, String> extensions = new LinkedHashMap<>();
+        extensions.put(ProtocolExtensions.STREAMS, Integer.toString(DEFAULT_STREAMS));
+        extensions.put(ProtocolExtensions.MANIFEST, "1");
+        extensions.put(ProtocolExtensions.CHUNKS, "1");
+        extensions.put(ProtocolExtensions.COMPRESS, Compression.DEFLATE);
+        if (!resumed) {
+            // an existing file with saved chunk hashes is an interrupted transfer, which is resumed instead
+            extensions.put(ProtocolExtensions.DELTA, "1");
+        }
+        handshakeEvent.setOfferedExtensions(extensions.toString());
+        sendMessage(connection, ProtocolExtensions.append("Received Name", extensions));
+        final long fileSize = receiveLong(connection);
         transferStatusText += String.format("%nFile name: %s%nFile size: %s", fileName, getHumanReadableFileSize(fileSize));
-        updateTextLabel(transferStatusText, statusMessageLabel);
+        status.setText(transferStatusText);
         final AtomicBoolean fileExists = new AtomicBoolean(false);
-        final Path absolutePath = Path.of(exportFilePath, fileName);
-        final File existingFile = getExistingFileUri(absolutePath.toAbsolutePath().toString());
-        if (existingFile != null) {
-            existingFileSize = Files.size(existingFile.toPath());
-            sendMessage(writer, String.format("SIZE:%s", existingFileSize));
+        final long localFileSize = existingFile == null ? -1L
+                : !resumed ? Files.size(existingFile.toPath()) : (long) trustedChunkHashes.size() * CHUNK_SIZE;
+        if (localFileSize >= 0 && (localFileSize <= fileSize || !resumed)) {
+            existingFileSize = localFileSize;
+            sendMessage(connection, String.format("SIZE:%s", existingFileSize));
             fileExists.set(true);
         } else {
-            sendMessage(writer, "NONEXISTANT");
+            // an interrupted transfer of a larger file cannot be resumed, so it is replaced
+            trustedChunkHashes = List.of();
+            sendMessage(connection, "NONEXISTANT");
         }
-        receiveMessage(reader);
-        sendMessage(writer, "Beginning files transfer...");
+        negotiatedExtensions = ProtocolExtensions.parse(receiveMessage(connection));
+        if (existingFileSize > fileSize && !negotiatedExtensions.containsKey(ProtocolExtensions.DELTA)) {
+            // a copy larger than the remote's file can only be synced, otherwise the server sends the whole file
+            existingFileSize = 0L;
+            fileExists.set(false);
+            trustedChunkHashes = List.of();
+        }
+        sendMessage(connection, "Beginning files transfer...");
         return new Quadruple<>(absolutePath.toAbsolutePath().toString(), fileSize, fileExists.get(), existingFileSize);
     }
 
+    /**
+     * Creates the verifier for the file's chunks, if the server chose to verify the file in chunks.
+     * The existing file's saved chunk hashes are only used if they were saved with the chosen chunk size.
+     *
+     * @param fileSize - the size of the file.
+     * @return the verifier, or null.
+     */
+    private ChunkVerifier createChunkVerifier(final long fileSize) throws ProtocolException {
+        if (!negotiatedExtensions.containsKey(ProtocolExtensions.CHUNKS)) return null;
+        final int chunkSize = ProtocolExtensions.getInt(negotiatedExtensions, ProtocolExtensions.CHUNKS, 0);
+        return new ChunkVerifier(chunkSize, fileSize, chunkSize == CHUNK_SIZE ? trustedChunkHashes : List.of());
+    }
+
+    /**
+     * Verifies the received file's chunks and fetches corrupted chunks again.
+     * The chunk hashes are kept next to the file while any chunk is still corrupted, so receiving the file again
+     * only fetches the corrupted chunks.
+     *
+     * @param connection    - the connection to the remote.
+     * @param path          - the received file.
+     * @param chunkVerifier - holds the hashes of the received chunks.
+     */
+    private void verifyChunks(
+            @NonNull final Connection connection,
+            @NonNull final Path path,
+            @NonNull final ChunkVerifier chunkVerifier,
+            @NonNull final TransferStatus status
+    ) throws IOException, NoSuchAlgorithmException {
+        if (repairChunks(connection, path, chunkVerifier, status)) {
+            ChunkVerifier.deleteSidecar(path);
+        } else {
+            chunkVerifier.saveSidecar(path);
+        }
+    }
+
     private File getExistingFileUri(
             @NonNull final String filePath
     ) {
-        if (Files.exists(Path.of(filePath))) {
+        if (Files.isRegularFile(Path.of(filePath))) {
             return new File(filePath);
         }
         return null;
@@ -105,61 +280,46 @@ public class Client {
 
     /**
      * Checks if the hash of the received file matches that of the sent file.
+     * The listener decides what happens to the files if they do not match.
      *
      * @param receivedFileHash - hash of the received file.
      * @param fileHash         - the actual file hash.
+     * @param files            - the received files.
+     * @return whether the hashes match.
      */
-    private void verifyHashesMatch(
+    private boolean verifyHashesMatch(
             @NonNull final String receivedFileHash,
             @NonNull final String fileHash,
-            @NonNull final File file,
-            @NonNull final Label statusMessageLabel
+            @NonNull final List<File> files,
+            @NonNull final TransferStatus status
     ) {
         if (!receivedFileHash.equalsIgnoreCase(fileHash)) {
-            updateTextLabel(String.format("%s%n%s", statusMessageLabel.getText(), "Hashes mismatch!"), statusMessageLabel);
-            statusMessageLabel.setStyle("-fx-text-fill: red !important;");
-            Platform.runLater(() -> {
-                final Alert alert = new Alert(Alert.AlertType.ERROR);
-                alert.setTitle("Hashes mismatch!");
-                alert.setContentText("Hashes mismatch! Do you want to delete the file?");
-                final ButtonType delete = new ButtonType("Keep", ButtonBar.ButtonData.YES);
-                final ButtonType keep = new ButtonType("Delete", ButtonBar.ButtonData.NO);
-                alert.getButtonTypes().setAll(delete, keep);
-                alert.showAndWait().ifPresent(type -> {
-                    if (type == ButtonType.NO) {
-                        try {
-                            Files.delete(file.toPath());
-                        }
-                        catch (IOException e) {
-                            updateTextLabel(String.format("%s%n%s", statusMessageLabel.getText(), "Failed to delete file!"), statusMessageLabel);
-                        }
-                    }
-                });
-            });
-        } else {
-            updateTextLabel(String.format("%s%n%s", statusMessageLabel.getText(), "File hashes match!"), statusMessageLabel);
-            statusMessageLabel.setStyle("-fx-text-fill: green !important;");
+            status.append("Hashes mismatch!");
+            status.getListener().onHashMismatch(files);
+            return false;
         }
+        status.append("File hashes match!");
+        return true;
     }
 
     /**
-     * Receives the hash of the file that was sent from the remote and compares it to the received
-     * file's hash.
+     * Receives the hash of the files that were sent from the remote and compares it to the received
+     * files' hash.
      *
-     * @param reader - the reader to receive data from.
-     * @param writer - the writer to send messages to the remote.
-     * @param file   - the received file.
+     * @param connection - the connection to the remote.
+     * @param files      - the received files.
+     * @param fileHash   - the received files' hash, computed while they were received.
+     * @return whether the hashes match.
      */
-    private void compareFileHashes(
-            @NonNull final BufferedReader reader,
-            @NonNull final PrintWriter writer,
-            @NonNull final File file,
-            @NonNull final Label statusMessageLabel
-    ) throws IOException, NoSuchAlgorithmException {
-        sendMessage(writer, "GIVE_ME_HASH");
-        final String receivedFileHash = receiveMessage(reader);
-        final String fileHash = Hashing.getSHA256FileHash(file);
-        verifyHashesMatch(receivedFileHash, fileHash, file, statusMessageLabel);
+    private boolean compareFileHashes(
+            @NonNull final Connection connection,
+            @NonNull final List<File> files,
+            @NonNull final String fileHash,
+            @NonNull final TransferStatus status
+    ) throws IOException {
+        sendMessage(connection, "GIVE_ME_HASH");
+        final String receivedFileHash = receiveMessage(connection);
+        return verifyHashesMatch(receivedFileHash, fileHash, files, status);
     }
 
     /**
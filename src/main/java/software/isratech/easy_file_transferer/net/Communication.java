@@ -1,21 +1,24 @@
 package software.isratech.easy_file_transferer.net;
 
-import javafx.application.Platform;
-import javafx.scene.control.Label;
-import javafx.scene.control.ListView;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import software.isratech.easy_file_transferer.hashing.Hashing;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.CharacterIterator;
 import java.text.StringCharacterIterator;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Locale;
-import java.util.Objects;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.*;
+import java.util.function.LongConsumer;
 
 import static software.isratech.easy_file_transferer.Constants.*;
 
@@ -26,103 +29,389 @@ import static software.isratech.easy_file_transferer.Constants.*;
 public class Communication {
 
     /**
-     * Set the content of a javaFX label from a different thread.
+     * Send a message over a connection.
      *
-     * @param message - the message to put in the label.
-     * @param label   - the label to update
+     * @param connection - the connection to send the message over.
+     * @param message    - the message to send.
      */
-    public static void updateTextLabel(@NonNull final String message, @NonNull final Label label) {
-        Platform.runLater(() -> label.setText(message));
+    public static void sendMessage(@NonNull final Connection connection, @NonNull final String message) throws IOException {
+        connection.sendMessage(message);
     }
 
     /**
-     * Write some text to a printWriter.
+     * Receive a message from a connection.
      *
-     * @param writer  - the writer to write the text to.
-     * @param message - the message to write.
+     * @param connection - the connection to read the message from.
+     * @return the read message, or null if the remote closed the connection.
      */
-    public static void sendMessage(@NonNull final PrintWriter writer, @NonNull final String message) {
-        writer.println(message);
+    public static String receiveMessage(@NonNull final Connection connection) throws IOException {
+        return connection.receiveMessage();
     }
 
     /**
-     * Receive a message from an input stream.
+     * Receive a single long value from a connection.
      *
-     * @param bufferedReader - the buffered reader to read the message from.
-     * @return the read message.
+     * @param connection - the connection to read the long from.
+     * @return a single long.
      */
     @NonNull
-    public static String receiveMessage(@NonNull final BufferedReader bufferedReader) throws IOException {
-        return bufferedReader.readLine();
+    public static Long receiveLong(@NonNull final Connection connection) throws IOException {
+        final String message = receiveMessage(connection);
+        if (message == null) {
+            throw new EOFException("Connection closed by remote!");
+        }
+        return Long.parseLong(message);
     }
 
     /**
-     * Receive a single long value from an input stream.
+     * Receive a file from the remote.
+     * If the file is being resumed, the existing part is hashed first, so the digest covers the whole file.
+     * If the file is verified in chunks, the chunks are hashed instead of the whole file. The chunk hashes are
+     * saved next to the file even if the transfer fails, so resuming it does not need to hash the existing part again.
      *
-     * @param bufferedReader - the buffered reader to read the long from.
-     * @return a single long.
+     * @param source                 - the socket's channel to read data from
+     * @param fileInfoQuadruple      - a quadruple containing file name, size, file exists and existing file size
+     * @param messageDigest          - the digest to update with the file's content
+     * @param chunkVerifier          - verifies the file's chunks, or null
+     * @param throttle               - limits the transfer's rate
+     * @return the file after it was received
      */
     @NonNull
-    public static Long receiveLong(@NonNull final BufferedReader bufferedReader) throws IOException {
-        return Long.parseLong(receiveMessage(bufferedReader));
+    public static File receiveFile(
+            @NonNull final ReadableByteChannel source,
+            @NonNull final Client.Quadruple<String, Long, Boolean, Long> fileInfoQuadruple,
+            @NonNull final MessageDigest messageDigest,
+            final ChunkVerifier chunkVerifier,
+            @NonNull final Throttle throttle,
+            @NonNull final TransferStatus status
+    ) throws IOException, NoSuchAlgorithmException {
+        final Set<StandardOpenOption> openOptions = fileInfoQuadruple.getThird()
+                ? EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        final Path path = Path.of(fileInfoQuadruple.getFirst());
+        try (final FileChannel fileChannel = FileChannel.open(path, openOptions)) {
+            final long existingLength = fileInfoQuadruple.getFourth();
+            final String transferStatusText = status.getText();
+            final TransferProgress progress = new TransferProgress(fileInfoQuadruple.getSecond(), existingLength);
+            final ProgressTicker progressTicker = new ProgressTicker(status::setText, () -> transferStatusText + "\n" + progress.format());
+            try {
+                final LongConsumer onProgress = throttle.throttle(received -> progress.set(existingLength + received));
+                final long remainingLength = fileInfoQuadruple.getSecond() - existingLength;
+                if (chunkVerifier != null) {
+                    chunkVerifier.hashExistingPart(fileChannel, existingLength);
+                    TransferEngine.receiveFile(source, fileChannel, existingLength, remainingLength, chunkVerifier.hasherAt(fileChannel, existingLength), onProgress);
+                } else {
+                    Hashing.updateDigest(messageDigest, fileChannel, 0L, existingLength);
+                    TransferEngine.receiveFile(source, fileChannel, existingLength, remainingLength, messageDigest, onProgress);
+                }
+            } finally {
+                progressTicker.close();
+            }
+            status.setText(transferStatusText + "\nReceived file.");
+            return new File(fileInfoQuadruple.getFirst());
+        } catch (IOException e) {
+            throw new IOException(e.getMessage());
+        } finally {
+            if (chunkVerifier != null) chunkVerifier.saveSidecar(path);
+        }
     }
 
     /**
-     * Receive a file from the remote
+     * Receive a file from the remote by syncing the existing file block by block.
+     * The checksums of the existing file's blocks are sent first, then the file is rebuilt from the blocks the
+     * remote found in it and the data it sent for everything else. The rebuilt file is written into a part file,
+     * which replaces the existing file once it is complete.
      *
-     * @param is                     - the socket's input stream to read data from
+     * @param connection             - the connection to the remote
+     * @param blockSize              - the block size chosen by the remote
      * @param fileInfoQuadruple      - a quadruple containing file name, size, file exists and existing file size
+     * @param messageDigest          - the digest to update with the file's content
+     * @param throttle               - limits the transfer's rate
      * @return the file after it was received
      */
     @NonNull
-    public static File receiveFile(
-            @NonNull final InputStream is,
+    public static File receiveDeltaFile(
+            @NonNull final Connection connection,
+            final int blockSize,
             @NonNull final Client.Quadruple<String, Long, Boolean, Long> fileInfoQuadruple,
-            @NonNull final Label statusMessageLabel
-    ) throws IOException {
+            @NonNull final MessageDigest messageDigest,
+            @NonNull final Throttle throttle,
+            @NonNull final TransferStatus status
+    ) throws IOException, NoSuchAlgorithmException {
+        if (blockSize <= 0) {
+            throw new ProtocolException("Illegal block size: " + blockSize);
+        }
+        final Path targetPath = Path.of(fileInfoQuadruple.getFirst());
+        final Path partPath = Path.of(fileInfoQuadruple.getFirst() + PART_FILE_SUFFIX);
+        final long existingLength = fileInfoQuadruple.getFourth();
+        final String transferStatusText = status.getText();
         try (
-                final BufferedOutputStream bufferedWriter = new BufferedOutputStream(
-                        new FileOutputStream(fileInfoQuadruple.getFirst(), fileInfoQuadruple.getThird()))
+                final FileChannel existingFile = FileChannel.open(targetPath, StandardOpenOption.READ);
+                final FileChannel fileChannel = FileChannel.open(partPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
         ) {
-            long receivedLength = fileInfoQuadruple.getFourth();
-            final String transferStatusText = statusMessageLabel.getText();
-            final String fileSize = getHumanReadableFileSize(fileInfoQuadruple.getSecond());
-            String receivedSize = getHumanReadableFileSize(receivedLength);
-            final String formatText = "%s%nReceived %s/%s";
-            updateTextLabel(String.format(formatText, transferStatusText, receivedSize, fileSize), statusMessageLabel);
-            while (receivedLength < fileInfoQuadruple.getSecond()) {
-                int code;
-                byte[] buffer = new byte[Math.toIntExact(getBufferSize(fileInfoQuadruple.getSecond(), receivedLength))];
-                code = is.read(buffer);
-                bufferedWriter.write(buffer, 0, code);
-                receivedLength += code;
-                receivedSize = getHumanReadableFileSize(receivedLength);
-                updateTextLabel(String.format(formatText, transferStatusText, receivedSize, fileSize), statusMessageLabel);
+            status.setText(transferStatusText + "\nComparing blocks of the existing file...");
+            DeltaSync.sendSignatures(existingFile, existingLength, blockSize, connection.getDataOutput());
+            final String deltaStatusText = transferStatusText + "\nReceiving changed blocks";
+            final TransferProgress progress = new TransferProgress(fileInfoQuadruple.getSecond(), 0L);
+            final ProgressTicker progressTicker = new ProgressTicker(status::setText, () -> deltaStatusText + "\n" + progress.format());
+            try {
+                DeltaSync.receiveDelta(connection.getDataInput(), existingFile, existingLength / blockSize, blockSize,
+                        fileChannel, fileInfoQuadruple.getSecond(), messageDigest, throttle.throttle(progress::set));
+            } finally {
+                progressTicker.close();
             }
-            updateTextLabel(transferStatusText + "\nReceived file.", statusMessageLabel);
-            bufferedWriter.flush();
-            return new File(fileInfoQuadruple.getFirst());
-        } catch (IOException e) {
-            throw new IOException(e.getMessage());
         }
+        Files.move(partPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        status.setText(transferStatusText + "\nReceived file.");
+        return targetPath.toFile();
     }
 
     /**
-     * Determines how many bytes of data should be read from the socket.
-     * The standard transfer speed shall be 2 MB/cycle.
+     * Receive several files from the remote.
+     * The manifest is received and checked first, then the content of all files follows back-to-back.
+     * The files are claimed first, so no other transfer of this process writes them at the same time.
      *
-     * @param fileSize - the size of the file to receive
-     * @param readSize - the amount of bytes already read
-     * @return how many bytes should be read in the next cycle
+     * @param connection             - the connection to the remote
+     * @param source                 - the channel to read the files' content from
+     * @param exportPath             - the directory to save the files in
+     * @param totalSize              - the combined size of all files, as announced by the remote
+     * @param messageDigest          - the digest to update with the files' content
+     * @param throttle               - limits the transfer's rate
+     * @return the received files
      */
-    private static long getBufferSize(final long fileSize, final long readSize) {
-        if (fileSize < DEFAULT_BYTES) {
-            if (readSize > 0L) {
-                return Math.max(fileSize - readSize, 0L);
+    @NonNull
+    public static List<File> receiveFiles(
+            @NonNull final Connection connection,
+            @NonNull final ReadableByteChannel source,
+            @NonNull final Path exportPath,
+            final long totalSize,
+            @NonNull final MessageDigest messageDigest,
+            @NonNull final Throttle throttle,
+            @NonNull final TransferStatus status
+    ) throws IOException {
+        final List<Manifest.Entry> entries = receiveManifest(connection, exportPath, totalSize);
+        final List<Path> filePaths = new ArrayList<>();
+        for (final Manifest.Entry entry : entries) {
+            if (!entry.isDirectory()) filePaths.add(Manifest.resolve(exportPath, entry.getPath()));
+        }
+        final String transferStatusText = status.getText();
+        ReceivingPaths.claim(filePaths, () -> status.setText(transferStatusText + "\nWaiting for another transfer of the same files..."));
+        try {
+            return receiveFiles(source, exportPath, entries, totalSize, messageDigest, throttle, status, transferStatusText);
+        } finally {
+            ReceivingPaths.release(filePaths);
+        }
+    }
+
+    /**
+     * Receives the content of the manifest's files back-to-back.
+     *
+     * @param source             - the channel to read the files' content from
+     * @param exportPath         - the directory to save the files in
+     * @param entries            - the manifest's entries
+     * @param totalSize          - the combined size of all files
+     * @param messageDigest      - the digest to update with the files' content
+     * @param throttle           - limits the transfer's rate
+     * @param transferStatusText - the status before the files are received
+     * @return the received files
+     */
+    @NonNull
+    private static List<File> receiveFiles(
+            @NonNull final ReadableByteChannel source,
+            @NonNull final Path exportPath,
+            @NonNull final List<Manifest.Entry> entries,
+            final long totalSize,
+            @NonNull final MessageDigest messageDigest,
+            @NonNull final Throttle throttle,
+            @NonNull final TransferStatus status,
+            @NonNull final String transferStatusText
+    ) throws IOException {
+        final List<File> receivedFiles = new ArrayList<>();
+        final TransferProgress progress = new TransferProgress(totalSize, 0L);
+        final LongConsumer onProgress = throttle.throttle(progress::set);
+        final ProgressTicker progressTicker = new ProgressTicker(status::setText, () -> transferStatusText + "\n" + progress.format());
+        try {
+            long received = 0L;
+            for (final Manifest.Entry entry : entries) {
+                final Path path = Manifest.resolve(exportPath, entry.getPath());
+                if (entry.isDirectory()) {
+                    Files.createDirectories(path);
+                    continue;
+                }
+                Files.createDirectories(path.getParent());
+                final long previouslyReceived = received;
+                try (final FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    TransferEngine.receiveFile(source, fileChannel, 0L, entry.getSize(), messageDigest, entryReceived ->
+                            onProgress.accept(previouslyReceived + entryReceived)
+                    );
+                }
+                receivedFiles.add(path.toFile());
+                received += entry.getSize();
             }
-            return fileSize;
+        } finally {
+            progressTicker.close();
         }
-        return Math.min(fileSize - readSize, DEFAULT_BYTES);
+        status.setText(String.format("%s%nReceived %s files.", transferStatusText, receivedFiles.size()));
+        return receivedFiles;
+    }
+
+    /**
+     * Receives a manifest and checks all of its paths before any file is written.
+     *
+     * @param connection - the connection to the remote
+     * @param exportPath - the directory the files will be saved in
+     * @param totalSize  - the combined size of all files, as announced by the remote
+     * @return the manifest's entries
+     */
+    @NonNull
+    private static List<Manifest.Entry> receiveManifest(
+            @NonNull final Connection connection,
+            @NonNull final Path exportPath,
+            final long totalSize
+    ) throws IOException {
+        final List<Manifest.Entry> entries = new ArrayList<>();
+        long manifestSize = 0L;
+        String message;
+        while (!Manifest.END.equals(message = receiveMessage(connection))) {
+            if (message == null) {
+                throw new EOFException("Connection closed before the manifest was received!");
+            }
+            final Manifest.Entry entry = Manifest.Entry.parse(message);
+            Manifest.resolve(exportPath, entry.getPath());
+            manifestSize += entry.getSize();
+            entries.add(entry);
+        }
+        if (manifestSize != totalSize) {
+            throw new ProtocolException("Manifest does not match the announced size!");
+        }
+        return entries;
+    }
+
+    /**
+     * Receive a file from the remote over several parallel connections.
+     * The stripes are written into a part file, which replaces the target file once all of them arrived.
+     * An interrupted striped transfer therefore never leaves a target file with gaps behind.
+     *
+     * @param socketAddress          - the remote's address
+     * @param sessionId              - the transfer's session id
+     * @param streams                - the amount of parallel connections
+     * @param fileInfoQuadruple      - a quadruple containing file name, size, file exists and existing file size
+     * @param messageDigest          - the digest to update with the file's content
+     * @param chunkVerifier          - verifies the file's chunks instead of the digest, or null
+     * @param profile                - the tuning profile of the parallel connections
+     * @param throttle               - limits the transfer's rate over all connections
+     * @return the file after it was received
+     */
+    @NonNull
+    public static File receiveStripedFile(
+            @NonNull final SocketAddress socketAddress,
+            @NonNull final String sessionId,
+            final int streams,
+            @NonNull final Client.Quadruple<String, Long, Boolean, Long> fileInfoQuadruple,
+            @NonNull final MessageDigest messageDigest,
+            final ChunkVerifier chunkVerifier,
+            @NonNull final TuningProfile profile,
+            @NonNull final Throttle throttle,
+            @NonNull final TransferStatus status
+    ) throws IOException, NoSuchAlgorithmException {
+        final Path targetPath = Path.of(fileInfoQuadruple.getFirst());
+        final Path partPath = Path.of(fileInfoQuadruple.getFirst() + PART_FILE_SUFFIX);
+        if (fileInfoQuadruple.getThird()) {
+            Files.move(targetPath, partPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        final Set<StandardOpenOption> openOptions = fileInfoQuadruple.getThird()
+                ? EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try (final FileChannel fileChannel = FileChannel.open(partPath, openOptions)) {
+            final long existingLength = fileInfoQuadruple.getFourth();
+            final String transferStatusText = status.getText();
+            final String stripedStatusText = String.format("%s%nReceiving over %s connections", transferStatusText, streams);
+            final TransferProgress progress = new TransferProgress(fileInfoQuadruple.getSecond(), existingLength);
+            if (chunkVerifier != null) {
+                chunkVerifier.hashExistingPart(fileChannel, existingLength);
+            }
+            final ProgressTicker progressTicker = new ProgressTicker(status::setText, () -> stripedStatusText + "\n" + progress.format());
+            try {
+                StripedTransfer.receive(socketAddress, fileChannel, sessionId, streams, existingLength, fileInfoQuadruple.getSecond(), chunkVerifier, profile, throttle.throttle(received ->
+                        progress.set(existingLength + received)
+                ));
+            } finally {
+                progressTicker.close();
+            }
+            status.setText(transferStatusText + "\nReceived file.");
+            if (chunkVerifier == null) {
+                Hashing.updateDigest(messageDigest, fileChannel, 0L, fileInfoQuadruple.getSecond());
+            }
+        }
+        Files.move(partPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        return targetPath.toFile();
+    }
+
+    /**
+     * Compares the chunks of a received file to the remote's chunk hashes and fetches corrupted chunks again.
+     * All corrupted chunks are requested at once, so each attempt costs a single round trip.
+     *
+     * @param connection    - the connection to the remote
+     * @param path          - the received file
+     * @param chunkVerifier - holds the hashes of the received chunks
+     * @return whether all chunks match the remote's
+     */
+    public static boolean repairChunks(
+            @NonNull final Connection connection,
+            @NonNull final Path path,
+            @NonNull final ChunkVerifier chunkVerifier,
+            @NonNull final TransferStatus status
+    ) throws IOException, NoSuchAlgorithmException {
+        final List<byte[]> expectedChunkHashes = receiveChunkHashes(connection, chunkVerifier.getChunkCount());
+        final String transferStatusText = status.getText();
+        List<Integer> corruptedChunks = chunkVerifier.findCorruptedChunks(expectedChunkHashes);
+        for (int attempt = 1; !corruptedChunks.isEmpty() && attempt <= MAX_REFETCH_ATTEMPTS; attempt++) {
+            status.setText(String.format("%s%nFetching %s corrupted chunks again (attempt %s of %s)...",
+                    transferStatusText, corruptedChunks.size(), attempt, MAX_REFETCH_ATTEMPTS));
+            final List<String> requests = new ArrayList<>();
+            for (final int index : corruptedChunks) {
+                requests.add(ChunkVerifier.REFETCH_PREFIX + index);
+            }
+            connection.sendMessages(requests);
+            try (final FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                for (final int index : corruptedChunks) {
+                    final long position = chunkVerifier.getChunkPosition(index);
+                    TransferEngine.receiveFile(connection.getDataInput(), fileChannel, position, chunkVerifier.getChunkLength(index),
+                            chunkVerifier.hasherAt(fileChannel, position), received -> {
+                            });
+                }
+            }
+            corruptedChunks = chunkVerifier.findCorruptedChunks(expectedChunkHashes);
+        }
+        return corruptedChunks.isEmpty();
+    }
+
+    /**
+     * Requests the chunk hashes of the sent file from the remote.
+     *
+     * @param connection - the connection to the remote
+     * @param chunkCount - the amount of chunks of the file
+     * @return the chunk hashes, in file order
+     */
+    @NonNull
+    private static List<byte[]> receiveChunkHashes(@NonNull final Connection connection, final int chunkCount) throws IOException {
+        sendMessage(connection, ChunkVerifier.CHUNK_HASHES_REQUEST);
+        if (receiveLong(connection) != chunkCount) {
+            throw new ProtocolException("Remote sent the hashes of a different amount of chunks!");
+        }
+        final List<byte[]> chunkHashes = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            final String message = receiveMessage(connection);
+            if (message == null) {
+                throw new EOFException("Connection closed before the chunk hashes were received!");
+            }
+            try {
+                chunkHashes.add(Hashing.fromHex(message));
+            } catch (IllegalArgumentException e) {
+                throw new ProtocolException(e.getMessage());
+            }
+        }
+        return chunkHashes;
     }
 
     /**
@@ -140,73 +429,21 @@ public class Communication {
     }
 
     /**
-     * Ping all addresses in subnet to find a server listening for connections
+     * Get the subnet of the network interface used to reach other hosts.
      *
-     * @param port          - the port to ping on
-     * @param stopScanning  - used to stop scanning for hosts
-     * @return a list of all available servers and their mac addresses
+     * @return the first three octets of the subnet, followed by a dot, or null if the host is offline.
      */
-    public static void getAvailableServers(
-            final int port,
-            final AtomicBoolean stopScanning,
-            final ListView<String> listView,
-            final Label infoTextField
-            ) {
-        final List<String> result = new ArrayList<>();
+    public static String getSubnet() {
         final String hostAddress = getIpAddress();
-        if (DEFAULT_LOOPBACK_ADDRESS.equalsIgnoreCase(hostAddress)) {
-            Platform.runLater(() -> {
-                infoTextField.setText("Cant ping yourself!");
-                infoTextField.setStyle("-fx-text-fill: red !important;");
-                infoTextField.setVisible(true);
-            });
-            return;
-        }
+        if (DEFAULT_LOOPBACK_ADDRESS.equalsIgnoreCase(hostAddress)) return null;
         final String[] hostAddressSplit = Objects.requireNonNull(hostAddress).split("\\.");
         if (hostAddressSplit.length < 3) throw new IllegalArgumentException("Cannot find subnet!");
-        final String subnet = String.format(
+        return String.format(
                 "%s.%s.%s.",
                 hostAddressSplit[0],
                 hostAddressSplit[1],
                 hostAddressSplit[2]
         );
-        for (int i = 0; i < 256; i++) {
-            if (stopScanning.get()) break;
-            final String hostName = subnet + i;
-            try (final Socket socket = new Socket()) {
-                Platform.runLater(() -> infoTextField.setText("Pinging " + hostName + "..."));
-                final SocketAddress socketAddress = new InetSocketAddress(hostName, port);
-                socket.connect(socketAddress, 250);
-                if (pingServer(socket)) {
-                    result.add(hostName);
-                    Platform.runLater(() -> listView.getItems().add(hostName));
-                }
-            } catch (Exception e) {
-                // ignored
-            }
-        }
-        if (result.isEmpty()) {
-            Platform.runLater(() -> {
-                infoTextField.setText("No servers found!");
-                infoTextField.setStyle("-fx-text-fill: red !important;");
-                infoTextField.setVisible(true);
-            });
-            return;
-        }
-        Platform.runLater(() -> infoTextField.setVisible(false));
-    }
-
-    /**
-     * Sends a ping to a socket
-     *
-     * @param socket - the connected socket
-     * @return true if the server responds with REPLY, else false
-     */
-    private static boolean pingServer(final Socket socket) throws IOException {
-        final PrintWriter printWriter = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true);
-        final BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        sendMessage(printWriter, "PING");
-        return "REPLY".equalsIgnoreCase(receiveMessage(bufferedReader));
     }
 
     /**
@@ -0,0 +1,190 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.Getter;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.metrics.TransferMetrics;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.function.LongConsumer;
+import java.util.zip.Deflater;
+
+import static software.isratech.easy_file_transferer.Constants.COMPRESSION_BLOCK_SIZE;
+
+/**
+ * Sends file data compressed with deflate.
+ * The blocks are read and compressed on a pool of workers, one block per worker, while the frames are written
+ * in file order. Blocks that look incompressible or do not shrink are sent raw, so already compressed content
+ * costs almost no CPU time.
+ */
+public class CompressedSender implements Closeable {
+
+    /**
+     * Compresses the blocks.
+     */
+    private final ExecutorService workers;
+
+    /**
+     * Maximum amount of blocks read ahead of the one being written.
+     */
+    private final int window;
+
+    /**
+     * Amount of bytes sent, before compression.
+     */
+    @Getter
+    private long rawBytes = 0L;
+
+    /**
+     * Amount of bytes sent, including the frames' headers.
+     */
+    @Getter
+    private long compressedBytes = 0L;
+
+    /**
+     * Starts a worker per available processor.
+     */
+    public CompressedSender() {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        this.window = threads * 2;
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "compression");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sends a region of a file as compressed frames.
+     *
+     * @param fileChannel - the file to send.
+     * @param target      - the channel to send the frames to.
+     * @param position    - the offset in the file to start sending from.
+     * @param count       - the amount of bytes to send.
+     * @param onProgress  - called with the amount of bytes sent so far, before compression, after each block.
+     */
+    public void send(
+            @NonNull final FileChannel fileChannel,
+            @NonNull final WritableByteChannel target,
+            final long position,
+            final long count,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        final Deque<Future<ByteBuffer>> pendingFrames = new ArrayDeque<>();
+        try {
+            long submitted = 0L;
+            long sent = 0L;
+            while (sent < count) {
+                while (submitted < count && pendingFrames.size() < window) {
+                    final long blockPosition = position + submitted;
+                    final int blockLength = (int) Math.min(COMPRESSION_BLOCK_SIZE, count - submitted);
+                    pendingFrames.add(workers.submit(() -> encodeBlock(fileChannel, blockPosition, blockLength)));
+                    submitted += blockLength;
+                }
+                final ByteBuffer frame = awaitFrame(pendingFrames.poll());
+                final int blockLength = frame.getInt(1);
+                compressedBytes += frame.remaining();
+                while (frame.hasRemaining()) {
+                    final long startNanos = System.nanoTime();
+                    TransferMetrics.recordSocketWrite(startNanos, target.write(frame));
+                }
+                sent += blockLength;
+                rawBytes += blockLength;
+                onProgress.accept(sent);
+            }
+        } finally {
+            for (final Future<ByteBuffer> pendingFrame : pendingFrames) {
+                pendingFrame.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Stops the workers.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Reads a block of the file and encodes it as a frame.
+     *
+     * @param fileChannel - the file.
+     * @param position    - the block's offset.
+     * @param length      - the block's length.
+     * @return the frame, ready to be written.
+     */
+    @NonNull
+    private static ByteBuffer encodeBlock(@NonNull final FileChannel fileChannel, final long position, final int length) throws IOException {
+        final byte[] block = new byte[length];
+        final ByteBuffer blockBuffer = ByteBuffer.wrap(block);
+        while (blockBuffer.hasRemaining()) {
+            final int returnCode = fileChannel.read(blockBuffer, position + blockBuffer.position());
+            TransferMetrics.recordReadAhead(returnCode);
+            if (returnCode == -1) {
+                throw new EOFException("File was truncated while sending!");
+            }
+        }
+        if (Compression.isCompressible(block, length)) {
+            final byte[] payload = new byte[length];
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(block, 0, length);
+                deflater.finish();
+                final int payloadLength = deflater.deflate(payload);
+                if (deflater.finished() && payloadLength < length) {
+                    return toFrame(Compression.DEFLATED_FRAME, length, payload, payloadLength);
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+        return toFrame(Compression.RAW_FRAME, length, block, length);
+    }
+
+    /**
+     * Puts a payload into a frame.
+     *
+     * @param kind          - the frame's kind.
+     * @param blockLength   - the length of the block.
+     * @param payload       - the payload.
+     * @param payloadLength - the length of the payload.
+     * @return the frame, ready to be written.
+     */
+    @NonNull
+    private static ByteBuffer toFrame(final byte kind, final int blockLength, @NonNull final byte[] payload, final int payloadLength) {
+        return ByteBuffer.allocate(Compression.FRAME_HEADER_LENGTH + payloadLength)
+                .put(kind)
+                .putInt(blockLength)
+                .putInt(payloadLength)
+                .put(payload, 0, payloadLength)
+                .flip();
+    }
+
+    /**
+     * Waits for a block to be encoded.
+     *
+     * @param pendingFrame - the pending frame.
+     * @return the frame.
+     */
+    @NonNull
+    private static ByteBuffer awaitFrame(@NonNull final Future<ByteBuffer> pendingFrame) throws IOException {
+        try {
+            return pendingFrame.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing the file!");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+}
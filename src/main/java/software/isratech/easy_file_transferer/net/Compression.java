@@ -0,0 +1,148 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static software.isratech.easy_file_transferer.net.Communication.getHumanReadableFileSize;
+
+/**
+ * Shared parts of compressed transfers.
+ * The data is sent as a sequence of frames, each carrying one block of the file. A frame starts with its kind,
+ * the block's length and the payload's length, followed by the payload. Blocks that do not compress are sent raw.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class Compression {
+
+    /**
+     * The deflate codec, at its fastest level.
+     */
+    public static final String DEFLATE = "DEFLATE";
+
+    /**
+     * Frame carrying a block as it is.
+     */
+    static final byte RAW_FRAME = 'R';
+
+    /**
+     * Frame carrying a deflated block.
+     */
+    static final byte DEFLATED_FRAME = 'D';
+
+    /**
+     * Length of a frame's header: its kind, the block's length and the payload's length.
+     */
+    static final int FRAME_HEADER_LENGTH = 9;
+
+    /**
+     * Data with more bits of entropy per byte than this is treated as already compressed.
+     */
+    private static final double MAX_COMPRESSIBLE_ENTROPY = 7.5;
+
+    /**
+     * Amount of samples taken of a file or block.
+     */
+    private static final int SAMPLES = 16;
+
+    /**
+     * Length of a single sample.
+     */
+    private static final int SAMPLE_LENGTH = 256;
+
+    /**
+     * Checks whether a client supports a codec.
+     *
+     * @param codecs - the codecs the client sent, separated by ",", or null.
+     * @param codec  - the codec.
+     * @return whether the client supports the codec.
+     */
+    public static boolean supports(final String codecs, @NonNull final String codec) {
+        return codecs != null && Arrays.asList(codecs.toUpperCase(Locale.ROOT).split(",")).contains(codec);
+    }
+
+    /**
+     * Samples a region of a file to decide whether compressing it is worth the CPU time.
+     * Samples are taken evenly spread over the region, so a compressed archive with a text header is still
+     * recognized as such.
+     *
+     * @param fileChannel - the file.
+     * @param position    - the offset of the region.
+     * @param length      - the length of the region.
+     * @return whether the region looks compressible.
+     */
+    public static boolean isCompressible(@NonNull final FileChannel fileChannel, final long position, final long length) throws IOException {
+        if (length <= 0) return false;
+        final ByteBuffer sample = ByteBuffer.allocate(SAMPLE_LENGTH);
+        final int[] histogram = new int[256];
+        int sampled = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sample.clear();
+            final long samplePosition = position + length / SAMPLES * i;
+            final int read = fileChannel.read(sample, samplePosition);
+            for (int j = 0; j < read; j++) {
+                histogram[sample.get(j) & 0xFF]++;
+            }
+            sampled += Math.max(read, 0);
+        }
+        return getEntropy(histogram, sampled) <= MAX_COMPRESSIBLE_ENTROPY;
+    }
+
+    /**
+     * Samples a block to decide whether compressing it is worth the CPU time.
+     *
+     * @param block  - the block's content.
+     * @param length - the block's length.
+     * @return whether the block looks compressible.
+     */
+    static boolean isCompressible(@NonNull final byte[] block, final int length) {
+        final int[] histogram = new int[256];
+        int sampled = 0;
+        final int stride = Math.max(length / SAMPLES, 1);
+        for (int start = 0; start < length; start += stride) {
+            final int end = Math.min(start + SAMPLE_LENGTH, length);
+            for (int i = start; i < end; i++) {
+                histogram[block[i] & 0xFF]++;
+            }
+            sampled += end - start;
+        }
+        return getEntropy(histogram, sampled) <= MAX_COMPRESSIBLE_ENTROPY;
+    }
+
+    /**
+     * Computes the Shannon entropy of sampled bytes.
+     *
+     * @param histogram - how often each byte value was sampled.
+     * @param sampled   - the amount of sampled bytes.
+     * @return the entropy, in bits per byte.
+     */
+    private static double getEntropy(@NonNull final int[] histogram, final int sampled) {
+        if (sampled == 0) return 0.0;
+        double entropy = 0.0;
+        for (final int count : histogram) {
+            if (count == 0) continue;
+            final double probability = (double) count / sampled;
+            entropy -= probability * Math.log(probability) / Math.log(2);
+        }
+        return entropy;
+    }
+
+    /**
+     * Formats the effective compression ratio of a transfer.
+     *
+     * @param rawBytes        - the amount of bytes before compression.
+     * @param compressedBytes - the amount of bytes actually sent, including the frames' headers.
+     * @return the formatted ratio.
+     */
+    @NonNull
+    public static String formatRatio(final long rawBytes, final long compressedBytes) {
+        final double ratio = compressedBytes > 0 ? (double) rawBytes / compressedBytes : 1.0;
+        return String.format(Locale.ENGLISH, "Compression ratio %.1fx (%s sent for %s)",
+                ratio, getHumanReadableFileSize(compressedBytes), getHumanReadableFileSize(rawBytes));
+    }
+}
@@ -0,0 +1,251 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.Getter;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.metrics.TransferMetrics;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static software.isratech.easy_file_transferer.Constants.MAX_MESSAGE_LENGTH;
+
+/**
+ * Frames the messages and data sent over a single socket.
+ * Control messages are newline terminated lines, so the protocol stays compatible with the other clients.
+ * All reads go through one buffer, so bytes that arrive right after a message are handed to the data phase
+ * instead of being lost in a reader's buffer.
+ * Every reply that had to be waited for measures the round trip time, so the link is measured by the handshake
+ * itself, without sending anything extra.
+ */
+public class Connection {
+
+    /**
+     * The socket.
+     */
+    @Getter
+    private final Socket socket;
+
+    /**
+     * Reads from the socket.
+     */
+    private final ReadableByteChannel input;
+
+    /**
+     * Writes to the socket.
+     */
+    private final WritableByteChannel output;
+
+    /**
+     * Bytes read from the socket, but not consumed yet.
+     * Kept in read mode between calls.
+     */
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(8192).flip();
+
+    /**
+     * {@link System#nanoTime()} when the last message was sent, 0 once its reply was received.
+     */
+    private long sendNanos = 0L;
+
+    /**
+     * The shortest measured round trip time in nanoseconds, -1 until a round trip was measured.
+     */
+    @Getter
+    private long roundTripNanos = -1L;
+
+    /**
+     * Wraps a connected socket.
+     * Uses the socket's channel if it has one, otherwise its streams.
+     *
+     * @param socket - the socket.
+     */
+    public Connection(@NonNull final Socket socket) throws IOException {
+        this.socket = socket;
+        if (socket.getChannel() != null) {
+            this.input = socket.getChannel();
+            this.output = socket.getChannel();
+        } else {
+            this.input = Channels.newChannel(socket.getInputStream());
+            this.output = Channels.newChannel(socket.getOutputStream());
+        }
+    }
+
+    /**
+     * Sends a single message.
+     *
+     * @param message - the message, must not contain line breaks.
+     */
+    public void sendMessage(@NonNull final String message) throws IOException {
+        final ByteBuffer buffer = StandardCharsets.UTF_8.encode(message + "\n");
+        while (buffer.hasRemaining()) {
+            write(buffer);
+        }
+        sendNanos = System.nanoTime();
+    }
+
+    /**
+     * Sends several messages, batching them into as few writes as possible.
+     *
+     * @param messages - the messages, must not contain line breaks.
+     */
+    public void sendMessages(@NonNull final Iterable<String> messages) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(MAX_MESSAGE_LENGTH);
+        for (final String message : messages) {
+            final ByteBuffer encodedMessage = StandardCharsets.UTF_8.encode(message + "\n");
+            if (encodedMessage.remaining() > buffer.remaining()) {
+                flush(buffer);
+            }
+            if (encodedMessage.remaining() > buffer.remaining()) {
+                flush(encodedMessage);
+            } else {
+                buffer.put(encodedMessage);
+            }
+        }
+        flush(buffer);
+        sendNanos = System.nanoTime();
+    }
+
+    /**
+     * Receives a single message.
+     *
+     * @return the message without its line break, or null if the remote closed the connection before sending one.
+     */
+    public String receiveMessage() throws IOException {
+        ByteBuffer line = ByteBuffer.allocate(256);
+        boolean waited = false;
+        while (true) {
+            while (readBuffer.hasRemaining()) {
+                final byte b = readBuffer.get();
+                if (b == '\n') {
+                    if (waited) measureRoundTrip();
+                    sendNanos = 0L;
+                    return decodeLine(line);
+                }
+                if (!line.hasRemaining()) {
+                    if (line.capacity() >= MAX_MESSAGE_LENGTH) {
+                        throw new ProtocolException("Message exceeds " + MAX_MESSAGE_LENGTH + " bytes!");
+                    }
+                    line = ByteBuffer.allocate(line.capacity() * 2).put(line.flip());
+                }
+                line.put(b);
+            }
+            if (fillReadBuffer() == -1) {
+                if (line.position() == 0) return null;
+                return decodeLine(line);
+            }
+            waited = true;
+        }
+    }
+
+    /**
+     * Measures the time since the last message was sent, if its reply had to be waited for.
+     * Replies that were already buffered would measure nothing but the time in between.
+     */
+    private void measureRoundTrip() {
+        if (sendNanos == 0L) return;
+        final long nanos = System.nanoTime() - sendNanos;
+        if (roundTripNanos < 0L || nanos < roundTripNanos) roundTripNanos = nanos;
+    }
+
+    /**
+     * The channel file data is read from.
+     * Returns the bytes that were already buffered first, then reads straight from the socket.
+     *
+     * @return the data channel.
+     */
+    @NonNull
+    public ReadableByteChannel getDataInput() {
+        return new ReadableByteChannel() {
+            @Override
+            public int read(final ByteBuffer target) throws IOException {
+                if (!readBuffer.hasRemaining()) {
+                    return input.read(target);
+                }
+                final int count = Math.min(readBuffer.remaining(), target.remaining());
+                final ByteBuffer slice = readBuffer.slice();
+                slice.limit(count);
+                target.put(slice);
+                readBuffer.position(readBuffer.position() + count);
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return input.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                input.close();
+            }
+        };
+    }
+
+    /**
+     * The channel file data is written to.
+     * Writes go straight to the socket, so zero-copy transfers to it still work.
+     *
+     * @return the data channel.
+     */
+    @NonNull
+    public WritableByteChannel getDataOutput() {
+        return output;
+    }
+
+    /**
+     * Writes the content of a buffer to the socket and clears the buffer.
+     *
+     * @param buffer - the buffer, in write mode.
+     */
+    private void flush(@NonNull final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes a buffer to the socket once, recording the write.
+     *
+     * @param buffer - the buffer, in read mode.
+     */
+    private void write(@NonNull final ByteBuffer buffer) throws IOException {
+        final long startNanos = System.nanoTime();
+        TransferMetrics.recordSocketWrite(startNanos, output.write(buffer));
+    }
+
+    /**
+     * Reads more bytes from the socket into the empty read buffer.
+     *
+     * @return the amount of bytes read, or -1 at the end of the stream.
+     */
+    private int fillReadBuffer() throws IOException {
+        readBuffer.clear();
+        final long startNanos = System.nanoTime();
+        final int read = input.read(readBuffer);
+        TransferMetrics.recordSocketRead(startNanos, read);
+        readBuffer.flip();
+        return read;
+    }
+
+    /**
+     * Decodes a line, dropping a trailing carriage return sent by Windows peers.
+     *
+     * @param line - the line's bytes, in write mode.
+     * @return the decoded line.
+     */
+    @NonNull
+    private static String decodeLine(@NonNull final ByteBuffer line) {
+        line.flip();
+        if (line.limit() > 0 && line.get(line.limit() - 1) == '\r') {
+            line.limit(line.limit() - 1);
+        }
+        return StandardCharsets.UTF_8.decode(line).toString();
+    }
+}
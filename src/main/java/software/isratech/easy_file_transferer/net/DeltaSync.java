@@ -0,0 +1,770 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.metrics.TransferMetrics;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+import static software.isratech.easy_file_transferer.Constants.DEFAULT_BYTES;
+import static software.isratech.easy_file_transferer.Constants.MIN_DELTA_FILE_SIZE;
+
+/**
+ * Implements block-level delta transfers, similar to rsync.
+ * The receiver sends a weak rolling checksum and a strong checksum of every block of its existing copy.
+ * The sender scans its file with the rolling checksum and answers with instructions to copy blocks from the
+ * receiver's copy, or with literal data for the parts the receiver does not have. Literal data is sent using
+ * zero-copy transfers.
+ * Strong checksums only need to tell blocks apart, the whole file is verified by the final hash comparison.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class DeltaSync {
+
+    /**
+     * Smallest block size used.
+     */
+    private static final int MIN_BLOCK_SIZE = 2048;
+
+    /**
+     * Largest block size used.
+     */
+    private static final int MAX_BLOCK_SIZE = 131072;
+
+    /**
+     * Maximum amount of blocks a delta transfer is negotiated for and the receiver may send checksums for.
+     */
+    private static final long MAX_BLOCKS = 1 << 22;
+
+    /**
+     * Length of a block's strong checksum (MD5).
+     */
+    private static final int STRONG_CHECKSUM_LENGTH = 16;
+
+    /**
+     * Length of a block's checksums on the wire.
+     */
+    private static final int SIGNATURE_LENGTH = Integer.BYTES + STRONG_CHECKSUM_LENGTH;
+
+    /**
+     * Instruction to copy blocks from the receiver's copy, followed by the first block's index and the amount of blocks.
+     */
+    private static final byte COPY = 'C';
+
+    /**
+     * Instruction to write literal data, followed by the data's length and the data.
+     */
+    private static final byte DATA = 'D';
+
+    /**
+     * Marks the end of the instructions.
+     */
+    private static final byte END = 'E';
+
+    /**
+     * Size of the buffer the sender scans its file through.
+     */
+    private static final int SCAN_BUFFER_SIZE = 8 << 20;
+
+    /**
+     * Chooses the block size for a file, growing with the square root of its size like rsync does.
+     *
+     * @param fileSize - the size of the file being sent.
+     * @return the block size.
+     */
+    public static int getBlockSize(final long fileSize) {
+        final long root = (long) Math.sqrt(fileSize);
+        final long roundedRoot = (root + 1023) / 1024 * 1024;
+        return (int) Math.max(MIN_BLOCK_SIZE, Math.min(MAX_BLOCK_SIZE, roundedRoot));
+    }
+
+    /**
+     * Whether a delta transfer is worth its overhead.
+     * Small existing files are sent again completely, and huge ones would need too many checksums.
+     *
+     * @param existingSize - the size of the receiver's copy.
+     * @param fileSize     - the size of the file being sent.
+     * @return whether to use a delta transfer.
+     */
+    public static boolean isWorthwhile(final long existingSize, final long fileSize) {
+        return existingSize >= MIN_DELTA_FILE_SIZE && existingSize / getBlockSize(fileSize) <= MAX_BLOCKS;
+    }
+
+    /**
+     * Sends the checksums of every full block of the receiver's copy.
+     *
+     * @param existingFile - the receiver's copy.
+     * @param existingSize - the size of the receiver's copy, as sent to the remote.
+     * @param blockSize    - the block size.
+     * @param target       - the channel to send the checksums to.
+     */
+    public static void sendSignatures(
+            @NonNull final FileChannel existingFile,
+            final long existingSize,
+            final int blockSize,
+            @NonNull final WritableByteChannel target
+    ) throws IOException, NoSuchAlgorithmException {
+        final MessageDigest strongChecksum = MessageDigest.getInstance("MD5");
+        final long blockCount = existingSize / blockSize;
+        final int blocksPerRead = Math.max(1, DEFAULT_BYTES / blockSize);
+        final byte[] data = new byte[blocksPerRead * blockSize];
+        final ByteBuffer output = ByteBuffer.allocate(SIGNATURE_LENGTH * 4096);
+        for (long block = 0L; block < blockCount; block += blocksPerRead) {
+            final int blocks = (int) Math.min(blocksPerRead, blockCount - block);
+            readFully(existingFile, ByteBuffer.wrap(data, 0, blocks * blockSize), block * blockSize);
+            for (int i = 0; i < blocks; i++) {
+                if (output.remaining() < SIGNATURE_LENGTH) {
+                    writeFully(target, output);
+                }
+                output.putInt(weakChecksum(data, i * blockSize, blockSize));
+                strongChecksum.update(data, i * blockSize, blockSize);
+                output.put(strongChecksum.digest());
+            }
+        }
+        writeFully(target, output);
+    }
+
+    /**
+     * Receives the checksums of the receiver's blocks.
+     * The receiver's copy may be larger than the file being sent, e.g. if the file got smaller, but may not have more
+     * than {@link #MAX_BLOCKS} blocks, which bounds the memory a receiver can make the sender allocate.
+     *
+     * @param source     - the channel to read the checksums from.
+     * @param blockCount - the amount of blocks.
+     * @return the checksums, indexed for lookups.
+     */
+    @NonNull
+    public static Signatures receiveSignatures(@NonNull final ReadableByteChannel source, final long blockCount) throws IOException {
+        if (blockCount < 0 || blockCount > MAX_BLOCKS) {
+            throw new ProtocolException("Too many blocks for a delta transfer!");
+        }
+        final Signatures signatures = new Signatures((int) blockCount);
+        final ByteBuffer input = ByteBuffer.allocate(SIGNATURE_LENGTH * 4096);
+        for (int block = 0; block < blockCount; ) {
+            input.clear();
+            input.limit((int) Math.min(input.capacity(), (blockCount - block) * SIGNATURE_LENGTH));
+            readFully(source, input);
+            input.flip();
+            while (input.hasRemaining()) {
+                signatures.weakChecksums[block] = input.getInt();
+                input.get(signatures.strongChecksums, block * STRONG_CHECKSUM_LENGTH, STRONG_CHECKSUM_LENGTH);
+                signatures.add(block++);
+            }
+        }
+        return signatures;
+    }
+
+    /**
+     * Scans a file for blocks the receiver already has and sends the instructions to rebuild the file.
+     *
+     * @param fileChannel - the file to send.
+     * @param signatures  - the checksums of the receiver's blocks.
+     * @param blockSize   - the block size.
+     * @param target      - the channel to send the instructions to.
+     * @param onProgress  - called with the amount of bytes of the file described so far.
+     */
+    public static void sendDelta(
+            @NonNull final FileChannel fileChannel,
+            @NonNull final Signatures signatures,
+            final int blockSize,
+            @NonNull final WritableByteChannel target,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException, NoSuchAlgorithmException {
+        final MessageDigest strongChecksum = MessageDigest.getInstance("MD5");
+        final long fileSize = fileChannel.size();
+        final InstructionWriter writer = new InstructionWriter(fileChannel, target, blockSize, onProgress);
+        final ScanWindow window = new ScanWindow(fileChannel, fileSize, blockSize);
+        long position = 0L;
+        long literalStart = 0L;
+        boolean recompute = true;
+        int a = 0;
+        int b = 0;
+        while (signatures.count > 0 && position + blockSize <= fileSize) {
+            final int offset = window.moveTo(position);
+            final byte[] data = window.data;
+            if (recompute) {
+                a = 0;
+                b = 0;
+                for (int i = 0; i < blockSize; i++) {
+                    a += data[offset + i] & 0xFF;
+                    b += (blockSize - i) * (data[offset + i] & 0xFF);
+                }
+                recompute = false;
+            }
+            final int weakChecksum = (a & 0xFFFF) | (b << 16);
+            final int match = signatures.mightContain(weakChecksum)
+                    ? signatures.find(weakChecksum, data, offset, blockSize, writer.nextBlock(), strongChecksum)
+                    : -1;
+            if (match >= 0) {
+                writer.literal(literalStart, position - literalStart);
+                writer.copy(match);
+                position += blockSize;
+                literalStart = position;
+                recompute = true;
+                continue;
+            }
+            if (position + blockSize == fileSize) break;
+            final int outgoing = data[offset] & 0xFF;
+            a += (data[offset + blockSize] & 0xFF) - outgoing;
+            b += a - blockSize * outgoing;
+            position++;
+            if (position - literalStart >= DEFAULT_BYTES) {
+                writer.literal(literalStart, position - literalStart);
+                literalStart = position;
+            }
+        }
+        writer.literal(literalStart, fileSize - literalStart);
+        writer.end();
+    }
+
+    /**
+     * Receives the instructions and rebuilds the file from the receiver's copy and the literal data.
+     *
+     * @param source        - the channel to read the instructions from.
+     * @param existingFile  - the receiver's copy.
+     * @param blockCount    - the amount of blocks checksums were sent for.
+     * @param blockSize     - the block size.
+     * @param fileChannel   - the file to write to.
+     * @param fileSize      - the size of the file being received.
+     * @param messageDigest - the digest to update with the rebuilt file's content.
+     * @param onProgress    - called with the amount of bytes written so far.
+     */
+    public static void receiveDelta(
+            @NonNull final ReadableByteChannel source,
+            @NonNull final FileChannel existingFile,
+            final long blockCount,
+            final int blockSize,
+            @NonNull final FileChannel fileChannel,
+            final long fileSize,
+            @NonNull final MessageDigest messageDigest,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(1 + Long.BYTES);
+        long written = 0L;
+        while (true) {
+            header.clear().limit(1);
+            readFully(source, header);
+            final byte instruction = header.get(0);
+            if (instruction == END) {
+                if (written != fileSize) throw new ProtocolException("Delta does not match the file's size!");
+                return;
+            }
+            header.clear().limit(1 + Long.BYTES);
+            header.position(1);
+            readFully(source, header);
+            if (instruction == COPY) {
+                final long firstBlock = header.getInt(1);
+                final long blocks = header.getInt(1 + Integer.BYTES);
+                final long length = blocks * blockSize;
+                if (firstBlock < 0 || blocks <= 0 || firstBlock + blocks > blockCount || length > fileSize - written) {
+                    throw new ProtocolException("Illegal copy instruction!");
+                }
+                copy(existingFile, firstBlock * blockSize, fileChannel, written, length, messageDigest);
+                written += length;
+                onProgress.accept(written);
+            } else if (instruction == DATA) {
+                final long length = header.getLong(1);
+                if (length < 0 || length > fileSize - written) {
+                    throw new ProtocolException("Illegal data instruction!");
+                }
+                final long previouslyWritten = written;
+                TransferEngine.receiveFile(source, fileChannel, written, length, messageDigest, received ->
+                        onProgress.accept(previouslyWritten + received)
+                );
+                written += length;
+            } else {
+                throw new ProtocolException("Unknown delta instruction!");
+            }
+        }
+    }
+
+    /**
+     * Copies a region of the receiver's copy into the file being rebuilt.
+     *
+     * @param existingFile   - the receiver's copy.
+     * @param sourcePosition - the offset of the region in the receiver's copy.
+     * @param fileChannel    - the file being rebuilt.
+     * @param targetPosition - the offset to write the region to.
+     * @param length         - the length of the region.
+     * @param messageDigest  - the digest to update with the region.
+     */
+    private static void copy(
+            @NonNull final FileChannel existingFile,
+            final long sourcePosition,
+            @NonNull final FileChannel fileChannel,
+            final long targetPosition,
+            final long length,
+            @NonNull final MessageDigest messageDigest
+    ) throws IOException {
+        final ByteBuffer buffer = BufferPool.acquire(length);
+        try {
+            long copied = 0L;
+            while (copied < length) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - copied));
+                readFully(existingFile, buffer, sourcePosition + copied);
+                buffer.flip();
+                final long hashNanos = System.nanoTime();
+                messageDigest.update(buffer);
+                TransferMetrics.recordHashing(hashNanos, buffer.limit());
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    final long writeNanos = System.nanoTime();
+                    final int written = fileChannel.write(buffer, targetPosition + copied);
+                    TransferMetrics.recordDiskWrite(writeNanos, written);
+                    copied += written;
+                }
+            }
+        } finally {
+            BufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Computes the weak checksum of a block, as used by rsync.
+     *
+     * @param data   - the data.
+     * @param offset - the offset of the block.
+     * @param length - the length of the block.
+     * @return the checksum.
+     */
+    private static int weakChecksum(final byte[] data, final int offset, final int length) {
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < length; i++) {
+            a += data[offset + i] & 0xFF;
+            b += (length - i) * (data[offset + i] & 0xFF);
+        }
+        return (a & 0xFFFF) | (b << 16);
+    }
+
+    /**
+     * Fills a buffer from a file.
+     *
+     * @param fileChannel - the file.
+     * @param buffer      - the buffer.
+     * @param position    - the offset to read from.
+     */
+    private static void readFully(@NonNull final FileChannel fileChannel, @NonNull final ByteBuffer buffer, final long position) throws IOException {
+        long read = 0L;
+        while (buffer.hasRemaining()) {
+            final long startNanos = System.nanoTime();
+            final int returnCode = fileChannel.read(buffer, position + read);
+            TransferMetrics.recordDiskRead(startNanos, returnCode);
+            if (returnCode == -1) throw new EOFException("File is shorter than expected!");
+            read += returnCode;
+        }
+    }
+
+    /**
+     * Fills a buffer from a channel.
+     *
+     * @param source - the channel.
+     * @param buffer - the buffer.
+     */
+    private static void readFully(@NonNull final ReadableByteChannel source, @NonNull final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            final long startNanos = System.nanoTime();
+            final int read = source.read(buffer);
+            TransferMetrics.recordSocketRead(startNanos, read);
+            if (read == -1) throw new EOFException("Connection closed during delta transfer!");
+        }
+    }
+
+    /**
+     * Writes a buffer to a channel and clears it.
+     *
+     * @param target - the channel.
+     * @param buffer - the buffer, in write mode.
+     */
+    private static void writeFully(@NonNull final WritableByteChannel target, @NonNull final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            final long startNanos = System.nanoTime();
+            TransferMetrics.recordSocketWrite(startNanos, target.write(buffer));
+        }
+        buffer.clear();
+    }
+
+    /**
+     * The checksums of the receiver's blocks, with an open addressing table for looking up weak checksums.
+     * Blocks with equal checksums are only indexed once, so files with many identical blocks stay fast to index.
+     */
+    public static class Signatures {
+
+        /**
+         * Size of the filter, in bits.
+         */
+        private static final int FILTER_BITS = 1 << 20;
+
+        /**
+         * Amount of blocks.
+         */
+        private final int count;
+
+        /**
+         * Weak checksum of every block.
+         */
+        private final int[] weakChecksums;
+
+        /**
+         * Strong checksum of every block, back to back.
+         */
+        private final byte[] strongChecksums;
+
+        /**
+         * Block index + 1 per slot, 0 for empty slots.
+         */
+        private final int[] table;
+
+        /**
+         * One bit per filter slot, set if any block's weak checksum falls into it.
+         * Lets the scan skip the table for almost all positions that match no block.
+         */
+        private final long[] filter = new long[FILTER_BITS / Long.SIZE];
+
+        /**
+         * Creates empty checksums.
+         *
+         * @param count - the amount of blocks.
+         */
+        private Signatures(final int count) {
+            this.count = count;
+            this.weakChecksums = new int[count];
+            this.strongChecksums = new byte[count * STRONG_CHECKSUM_LENGTH];
+            this.table = new int[Integer.highestOneBit(Math.max(count, 1) * 2 - 1) * 2];
+        }
+
+        /**
+         * Indexes a block, unless an identical block is indexed already.
+         *
+         * @param block - the block's index.
+         */
+        private void add(final int block) {
+            final int mask = table.length - 1;
+            int slot = slotOf(weakChecksums[block]) & mask;
+            while (table[slot] != 0) {
+                final int other = table[slot] - 1;
+                if (weakChecksums[other] == weakChecksums[block] && strongEquals(other, strongChecksums, block * STRONG_CHECKSUM_LENGTH)) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = block + 1;
+            final int filterSlot = filterSlotOf(weakChecksums[block]);
+            filter[filterSlot >>> 6] |= 1L << filterSlot;
+        }
+
+        /**
+         * Whether any block might have the given weak checksum.
+         *
+         * @param weakChecksum - the weak checksum.
+         * @return false if no block has the checksum.
+         */
+        private boolean mightContain(final int weakChecksum) {
+            final int filterSlot = filterSlotOf(weakChecksum);
+            return (filter[filterSlot >>> 6] & (1L << filterSlot)) != 0;
+        }
+
+        /**
+         * Finds a block with the given content.
+         * The block following the previous match is preferred, so runs of blocks can be copied with one instruction.
+         *
+         * @param weakChecksum   - the content's weak checksum.
+         * @param data           - the data containing the content.
+         * @param offset         - the offset of the content.
+         * @param blockSize      - the block size.
+         * @param preferredBlock - the block to prefer, or -1.
+         * @param strongChecksum - the digest used for computing strong checksums.
+         * @return the block's index, or -1 if the receiver does not have the content.
+         */
+        private int find(
+                final int weakChecksum,
+                final byte[] data,
+                final int offset,
+                final int blockSize,
+                final int preferredBlock,
+                @NonNull final MessageDigest strongChecksum
+        ) {
+            byte[] strong = null;
+            if (preferredBlock >= 0 && preferredBlock < count && weakChecksums[preferredBlock] == weakChecksum) {
+                strongChecksum.update(data, offset, blockSize);
+                strong = strongChecksum.digest();
+                if (strongEquals(preferredBlock, strong, 0)) return preferredBlock;
+            }
+            final int mask = table.length - 1;
+            for (int slot = slotOf(weakChecksum) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                final int block = table[slot] - 1;
+                if (weakChecksums[block] != weakChecksum) continue;
+                if (strong == null) {
+                    strongChecksum.update(data, offset, blockSize);
+                    strong = strongChecksum.digest();
+                }
+                if (strongEquals(block, strong, 0)) return block;
+            }
+            return -1;
+        }
+
+        /**
+         * Compares a block's strong checksum.
+         *
+         * @param block  - the block's index.
+         * @param other  - the array containing the other checksum.
+         * @param offset - the offset of the other checksum.
+         * @return whether both are equal.
+         */
+        private boolean strongEquals(final int block, final byte[] other, final int offset) {
+            final int start = block * STRONG_CHECKSUM_LENGTH;
+            return Arrays.equals(
+                    strongChecksums, start, start + STRONG_CHECKSUM_LENGTH,
+                    other, offset, offset + STRONG_CHECKSUM_LENGTH
+            );
+        }
+
+        /**
+         * Spreads a weak checksum over the table's slots.
+         *
+         * @param weakChecksum - the checksum.
+         * @return the unmasked slot.
+         */
+        private static int slotOf(final int weakChecksum) {
+            return weakChecksum * 0x9E3779B9 >>> 7;
+        }
+
+        /**
+         * Spreads a weak checksum over the filter's slots.
+         *
+         * @param weakChecksum - the checksum.
+         * @return the filter slot.
+         */
+        private static int filterSlotOf(final int weakChecksum) {
+            return (weakChecksum * 0x85EBCA6B) >>> (Integer.SIZE - 20);
+        }
+    }
+
+    /**
+     * Buffers the part of the file being scanned, so the current block and the byte after it are always available.
+     */
+    private static class ScanWindow {
+
+        /**
+         * The buffered data.
+         */
+        private final byte[] data;
+
+        /**
+         * The file.
+         */
+        private final FileChannel fileChannel;
+
+        /**
+         * The file's size.
+         */
+        private final long fileSize;
+
+        /**
+         * Amount of bytes needed after the current position.
+         */
+        private final int needed;
+
+        /**
+         * Offset of the buffered data in the file.
+         */
+        private long start = 0L;
+
+        /**
+         * Amount of bytes buffered.
+         */
+        private int length = 0;
+
+        /**
+         * Creates the window.
+         *
+         * @param fileChannel - the file.
+         * @param fileSize    - the file's size.
+         * @param blockSize   - the block size.
+         */
+        private ScanWindow(@NonNull final FileChannel fileChannel, final long fileSize, final int blockSize) {
+            this.fileChannel = fileChannel;
+            this.fileSize = fileSize;
+            this.needed = blockSize + 1;
+            this.data = new byte[SCAN_BUFFER_SIZE + needed];
+        }
+
+        /**
+         * Makes sure the block at the position and the byte after it are buffered, as far as the file reaches.
+         * Positions only ever move forward.
+         *
+         * @param position - the position.
+         * @return the position's offset in {@link #data}.
+         */
+        private int moveTo(final long position) throws IOException {
+            if (position + needed > start + length && start + length < fileSize) {
+                refill(position);
+            }
+            return (int) (position - start);
+        }
+
+        /**
+         * Moves the window's start to the position and fills the rest of it from the file.
+         *
+         * @param position - the new start.
+         */
+        private void refill(final long position) throws IOException {
+            final int kept = (int) Math.max(0L, start + length - position);
+            System.arraycopy(data, length - kept, data, 0, kept);
+            start = position;
+            length = kept;
+            final ByteBuffer buffer = ByteBuffer.wrap(data, length, (int) Math.min(data.length - length, fileSize - start - length));
+            readFully(fileChannel, buffer, start + length);
+            length = buffer.position();
+        }
+    }
+
+    /**
+     * Writes the instructions, merging copies of consecutive blocks into one instruction.
+     */
+    private static class InstructionWriter {
+
+        /**
+         * The file being sent.
+         */
+        private final FileChannel fileChannel;
+
+        /**
+         * The channel to write to.
+         */
+        private final WritableByteChannel target;
+
+        /**
+         * The block size.
+         */
+        private final int blockSize;
+
+        /**
+         * Called with the amount of bytes described so far.
+         */
+        private final LongConsumer onProgress;
+
+        /**
+         * Buffered instructions.
+         */
+        private final ByteBuffer instructions = ByteBuffer.allocate(65536);
+
+        /**
+         * First block of the pending copy, -1 if there is none.
+         */
+        private int runStart = -1;
+
+        /**
+         * Amount of blocks of the pending copy.
+         */
+        private int runLength = 0;
+
+        /**
+         * Amount of bytes of the file described so far.
+         */
+        private long described = 0L;
+
+        /**
+         * Creates the writer.
+         *
+         * @param fileChannel - the file being sent.
+         * @param target      - the channel to write to.
+         * @param blockSize   - the block size.
+         * @param onProgress  - called with the amount of bytes described so far.
+         */
+        private InstructionWriter(
+                @NonNull final FileChannel fileChannel,
+                @NonNull final WritableByteChannel target,
+                final int blockSize,
+                @NonNull final LongConsumer onProgress
+        ) {
+            this.fileChannel = fileChannel;
+            this.target = target;
+            this.blockSize = blockSize;
+            this.onProgress = onProgress;
+        }
+
+        /**
+         * @return the block that would extend the pending copy, or -1.
+         */
+        private int nextBlock() {
+            return runStart < 0 ? -1 : runStart + runLength;
+        }
+
+        /**
+         * Adds a block copy.
+         *
+         * @param block - the block's index.
+         */
+        private void copy(final int block) throws IOException {
+            if (block != nextBlock()) {
+                flushCopy();
+                runStart = block;
+            }
+            runLength++;
+            described += blockSize;
+        }
+
+        /**
+         * Sends a region of the file as literal data.
+         *
+         * @param position - the region's offset.
+         * @param length   - the region's length.
+         */
+        private void literal(final long position, final long length) throws IOException {
+            if (length == 0) return;
+            flushCopy();
+            reserve(1 + Long.BYTES);
+            instructions.put(DATA).putLong(length);
+            writeFully(target, instructions);
+            final long previouslyDescribed = described;
+            TransferEngine.sendFile(fileChannel, target, position, length, sent -> onProgress.accept(previouslyDescribed + sent));
+            described += length;
+        }
+
+        /**
+         * Ends the instructions.
+         */
+        private void end() throws IOException {
+            flushCopy();
+            reserve(1);
+            instructions.put(END);
+            writeFully(target, instructions);
+        }
+
+        /**
+         * Buffers the pending copy.
+         */
+        private void flushCopy() throws IOException {
+            if (runLength == 0) return;
+            reserve(1 + 2 * Integer.BYTES);
+            instructions.put(COPY).putInt(runStart).putInt(runLength);
+            runStart = -1;
+            runLength = 0;
+            onProgress.accept(described);
+        }
+
+        /**
+         * Sends the buffered instructions if there is not enough space left.
+         *
+         * @param space - the space needed.
+         */
+        private void reserve(final int space) throws IOException {
+            if (instructions.remaining() < space) {
+                writeFully(target, instructions);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.*;
+
+import static software.isratech.easy_file_transferer.net.Communication.getHumanReadableFileSize;
+
+/**
+ * A server found on the network, either by a network scan or by its announcements.
+ * Two entries are equal if they point to the same address and port.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PUBLIC)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class DiscoveredServer {
+
+    /**
+     * The server's IP Address.
+     */
+    @EqualsAndHashCode.Include
+    private final String ipAddress;
+
+    /**
+     * The server's port.
+     */
+    @EqualsAndHashCode.Include
+    private final int port;
+
+    /**
+     * Name of the file the server is sending, null if unknown.
+     */
+    private final String fileName;
+
+    /**
+     * Size of the file the server is sending, -1 if unknown.
+     */
+    private final long fileSize;
+
+    /**
+     * Creates an entry for a server found by a network scan, which does not reveal what it is sending.
+     *
+     * @param ipAddress - the server's IP Address.
+     * @param port      - the server's port.
+     */
+    public DiscoveredServer(@NonNull final String ipAddress, final int port) {
+        this(ipAddress, port, null, -1L);
+    }
+
+    @Override
+    public String toString() {
+        if (fileName == null) return String.format("%s:%s", ipAddress, port);
+        return String.format("%s:%s - %s (%s)", ipAddress, port, fileName, getHumanReadableFileSize(fileSize));
+    }
+}
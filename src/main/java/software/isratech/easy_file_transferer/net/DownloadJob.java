@@ -0,0 +1,144 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.concurrent.Future;
+
+/**
+ * A download in a {@link DownloadQueue}.
+ * The queue's threads update its state and status, which may be read from any thread.
+ */
+public class DownloadJob {
+
+    /**
+     * The states of a download.
+     */
+    public enum State {
+        QUEUED, RUNNING, RETRYING, COMPLETED, FAILED, CANCELLED;
+
+        /**
+         * @return whether the download is over and may be retried.
+         */
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    /**
+     * The server's IP Address.
+     */
+    @Getter
+    private final String host;
+
+    /**
+     * The server's port.
+     */
+    @Getter
+    private final int port;
+
+    /**
+     * The directory to save the files in.
+     */
+    @Getter
+    private final String exportPath;
+
+    /**
+     * The current state.
+     */
+    @Getter
+    private volatile State state = State.QUEUED;
+
+    /**
+     * The status of the current or last attempt, one line per step.
+     */
+    @Getter
+    private volatile String status = "";
+
+    /**
+     * Amount of attempts so far.
+     */
+    @Getter
+    private volatile int attempts = 0;
+
+    /**
+     * The pending or running attempt, or the pending retry.
+     */
+    private Future<?> future;
+
+    /**
+     * @param host       - the server's IP Address.
+     * @param port       - the server's port.
+     * @param exportPath - the directory to save the files in.
+     */
+    DownloadJob(@NonNull final String host, final int port, @NonNull final String exportPath) {
+        this.host = host;
+        this.port = port;
+        this.exportPath = exportPath;
+    }
+
+    /**
+     * Changes the state, unless the download was cancelled.
+     *
+     * @param next - the new state.
+     * @return whether the state was changed.
+     */
+    synchronized boolean setState(@NonNull final State next) {
+        if (state == State.CANCELLED) return false;
+        state = next;
+        return true;
+    }
+
+    /**
+     * @param status - the status of the current attempt.
+     */
+    void setStatus(@NonNull final String status) {
+        this.status = status;
+    }
+
+    /**
+     * Counts a new attempt.
+     *
+     * @return the attempt's number, starting at 1.
+     */
+    synchronized int nextAttempt() {
+        return ++attempts;
+    }
+
+    /**
+     * @param future - the pending or running attempt, or the pending retry.
+     */
+    synchronized void setFuture(@NonNull final Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Cancels the download, interrupting its running attempt.
+     *
+     * @return whether the download was cancelled, false if it was already over.
+     */
+    synchronized boolean cancel() {
+        if (state.isFinished()) return false;
+        state = State.CANCELLED;
+        if (future != null) future.cancel(true);
+        return true;
+    }
+
+    /**
+     * Queues a download that is over once more.
+     *
+     * @return whether the download was queued, false if it was not over yet.
+     */
+    synchronized boolean reset() {
+        if (!state.isFinished()) return false;
+        state = State.QUEUED;
+        status = "";
+        attempts = 0;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:%s", host, port);
+    }
+}
@@ -0,0 +1,314 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static software.isratech.easy_file_transferer.Constants.DOWNLOAD_RETRY_DELAY;
+import static software.isratech.easy_file_transferer.Constants.MAX_DOWNLOAD_ATTEMPTS;
+import static software.isratech.easy_file_transferer.Constants.MAX_DOWNLOAD_CONCURRENCY;
+
+/**
+ * Receives files from several servers, running a limited amount of downloads at the same time.
+ * Downloads that fail are retried after a delay, which doubles with every attempt. Retries resume the files
+ * received so far and do not hold a slot while they wait. Downloads can be cancelled at any time, which interrupts
+ * their transfer.
+ */
+public class DownloadQueue implements Closeable {
+
+    /**
+     * Receives the changes of the queue's downloads.
+     */
+    public interface Listener {
+
+        /**
+         * Called from the queue's threads whenever the state or status of a download changed, up to several times
+         * per second while data is received.
+         *
+         * @param job - the download.
+         */
+        void onJobChanged(@NonNull DownloadJob job);
+    }
+
+    /**
+     * All downloads, in the order they were added.
+     */
+    @Getter
+    private final List<DownloadJob> jobs = new CopyOnWriteArrayList<>();
+
+    /**
+     * Runs the downloads, one thread per running download.
+     */
+    private final ThreadPoolExecutor downloadExecutor;
+
+    /**
+     * Queues failed downloads again once their delay is over.
+     */
+    private final ScheduledExecutorService retryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "download-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Listener of a queue nobody listens to.
+     */
+    private static final Listener NO_LISTENER = job -> {
+    };
+
+    /**
+     * Receives the changes of the downloads.
+     */
+    @Setter
+    private volatile Listener listener = NO_LISTENER;
+
+    /**
+     * How the downloads' connections are tuned.
+     */
+    @Setter
+    private volatile TuningProfile tuningProfile = TuningProfile.AUTO;
+
+    /**
+     * Limit of each download in bytes per second, 0 if unlimited.
+     */
+    @Setter
+    private volatile long rateLimit = 0L;
+
+    /**
+     * @param concurrency - the amount of downloads running at the same time.
+     */
+    public DownloadQueue(final int concurrency) {
+        final int threads = limitConcurrency(concurrency);
+        this.downloadExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "download");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the amount of downloads running at the same time.
+     */
+    public int getConcurrency() {
+        return downloadExecutor.getMaximumPoolSize();
+    }
+
+    /**
+     * Changes the amount of downloads running at the same time.
+     * Running downloads are never interrupted, a lower limit only applies once enough of them are over.
+     *
+     * @param concurrency - the amount of downloads, at most {@link software.isratech.easy_file_transferer.Constants#MAX_DOWNLOAD_CONCURRENCY}.
+     */
+    public synchronized void setConcurrency(final int concurrency) {
+        final int threads = limitConcurrency(concurrency);
+        if (threads > downloadExecutor.getMaximumPoolSize()) {
+            downloadExecutor.setMaximumPoolSize(threads);
+            downloadExecutor.setCorePoolSize(threads);
+        } else {
+            downloadExecutor.setCorePoolSize(threads);
+            downloadExecutor.setMaximumPoolSize(threads);
+        }
+    }
+
+    /**
+     * Stops telling a listener about changes, unless another listener replaced it already.
+     *
+     * @param listener - the listener.
+     */
+    public synchronized void removeListener(@NonNull final Listener listener) {
+        if (this.listener == listener) {
+            this.listener = NO_LISTENER;
+        }
+    }
+
+    /**
+     * Queues a download.
+     *
+     * @param host       - the server's IP Address.
+     * @param port       - the server's port.
+     * @param exportPath - the directory to save the files in.
+     * @return the download.
+     */
+    @NonNull
+    public DownloadJob add(@NonNull final String host, final int port, @NonNull final String exportPath) {
+        final DownloadJob job = new DownloadJob(host, port, exportPath);
+        jobs.add(job);
+        listener.onJobChanged(job);
+        submit(job);
+        return job;
+    }
+
+    /**
+     * Cancels a download.
+     *
+     * @param job - the download.
+     */
+    public void cancel(@NonNull final DownloadJob job) {
+        if (job.cancel()) changed(job);
+    }
+
+    /**
+     * Queues a download that is over once more, e.g. after it failed or was cancelled.
+     *
+     * @param job - the download.
+     */
+    public void retry(@NonNull final DownloadJob job) {
+        if (!job.reset()) return;
+        changed(job);
+        submit(job);
+    }
+
+    /**
+     * Waits until all downloads are over.
+     */
+    public synchronized void awaitCompletion() throws InterruptedException {
+        while (!jobs.stream().allMatch(job -> job.getState().isFinished())) {
+            wait();
+        }
+    }
+
+    /**
+     * Cancels all downloads and stops the queue's threads.
+     */
+    @Override
+    public void close() {
+        for (final DownloadJob job : jobs) {
+            cancel(job);
+        }
+        downloadExecutor.shutdownNow();
+        retryExecutor.shutdownNow();
+    }
+
+    /**
+     * Hands a download to the download threads, unless it was cancelled.
+     *
+     * @param job - the download.
+     */
+    private void submit(@NonNull final DownloadJob job) {
+        synchronized (job) {
+            if (job.getState() == DownloadJob.State.CANCELLED) return;
+            job.setFuture(downloadExecutor.submit(() -> attempt(job)));
+        }
+    }
+
+    /**
+     * Attempts a download once.
+     * A failed attempt is retried later if the connection or the transfer failed and attempts are left.
+     *
+     * @param job - the download.
+     */
+    private void attempt(@NonNull final DownloadJob job) {
+        final int attempt = job.nextAttempt();
+        if (!changeState(job, DownloadJob.State.RUNNING)) return;
+        final JobTransferListener transferListener = new JobTransferListener(job);
+        try {
+            final Client client = new Client();
+            client.setTuningProfile(tuningProfile);
+            client.setRateLimit(rateLimit);
+            client.connect(job.getHost(), job.getPort(), job.getExportPath(), transferListener);
+            changeState(job, transferListener.complete ? DownloadJob.State.COMPLETED : DownloadJob.State.FAILED);
+        } catch (IOException e) {
+            if (job.getState() == DownloadJob.State.CANCELLED) return;
+            job.setStatus(String.format("%s%nAttempt %s of %s failed: %s", job.getStatus(), attempt, MAX_DOWNLOAD_ATTEMPTS, e.getMessage()).trim());
+            if (attempt < MAX_DOWNLOAD_ATTEMPTS && changeState(job, DownloadJob.State.RETRYING)) {
+                scheduleRetry(job, DOWNLOAD_RETRY_DELAY << (attempt - 1));
+                return;
+            }
+            changeState(job, DownloadJob.State.FAILED);
+        } catch (NoSuchAlgorithmException | RuntimeException e) {
+            job.setStatus(String.format("%s%nFailed: %s", job.getStatus(), e.getMessage()).trim());
+            changeState(job, DownloadJob.State.FAILED);
+        }
+    }
+
+    /**
+     * Queues a download again once the delay is over.
+     *
+     * @param job   - the download.
+     * @param delay - the delay in milliseconds.
+     */
+    private void scheduleRetry(@NonNull final DownloadJob job, final long delay) {
+        synchronized (job) {
+            if (job.getState() == DownloadJob.State.CANCELLED) return;
+            job.setFuture(retryExecutor.schedule(() -> submit(job), delay, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * Changes the state of a download, unless it was cancelled.
+     *
+     * @param job   - the download.
+     * @param state - the new state.
+     * @return whether the state was changed.
+     */
+    private boolean changeState(@NonNull final DownloadJob job, @NonNull final DownloadJob.State state) {
+        final boolean changed = job.setState(state);
+        if (changed) changed(job);
+        return changed;
+    }
+
+    /**
+     * Tells the listener and the threads waiting for the queue about a changed download.
+     *
+     * @param job - the download.
+     */
+    private void changed(@NonNull final DownloadJob job) {
+        listener.onJobChanged(job);
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * @param concurrency - an amount of downloads running at the same time.
+     * @return the amount, at least 1 and at most {@link software.isratech.easy_file_transferer.Constants#MAX_DOWNLOAD_CONCURRENCY}.
+     */
+    private static int limitConcurrency(final int concurrency) {
+        return Math.max(1, Math.min(MAX_DOWNLOAD_CONCURRENCY, concurrency));
+    }
+
+    /**
+     * Keeps the status of a download's attempt.
+     */
+    private class JobTransferListener implements TransferListener {
+
+        /**
+         * The download.
+         */
+        private final DownloadJob job;
+
+        /**
+         * Whether the transfer completed and the hashes matched.
+         */
+        private volatile boolean complete = false;
+
+        /**
+         * @param job - the download.
+         */
+        private JobTransferListener(@NonNull final DownloadJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void onStatus(@NonNull final String status) {
+            job.setStatus(status);
+            listener.onJobChanged(job);
+        }
+
+        @Override
+        public void onConnectionStatus(@NonNull final String status) {
+            onStatus(status);
+        }
+
+        @Override
+        public void onComplete() {
+            complete = true;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.Getter;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.metrics.TransferMetrics;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static software.isratech.easy_file_transferer.Constants.COMPRESSION_BLOCK_SIZE;
+
+/**
+ * Reads the frames sent by a {@link CompressedSender} and returns the decompressed data.
+ * Frames are only read while more data is requested, so nothing after the last frame is consumed.
+ */
+public class InflatingChannel implements ReadableByteChannel {
+
+    /**
+     * The channel the frames are read from.
+     */
+    private final ReadableByteChannel source;
+
+    /**
+     * Decompresses deflated frames.
+     */
+    private final Inflater inflater = new Inflater();
+
+    /**
+     * Header of the current frame.
+     */
+    private final ByteBuffer header = ByteBuffer.allocate(Compression.FRAME_HEADER_LENGTH);
+
+    /**
+     * Payload of the current frame.
+     */
+    private final byte[] payload = new byte[COMPRESSION_BLOCK_SIZE];
+
+    /**
+     * Decompressed content of deflated frames.
+     */
+    private final byte[] inflatedBlock = new byte[COMPRESSION_BLOCK_SIZE];
+
+    /**
+     * The current block's data that was not returned yet.
+     */
+    private ByteBuffer block = ByteBuffer.allocate(0);
+
+    /**
+     * Amount of bytes returned, after decompression.
+     */
+    @Getter
+    private long rawBytes = 0L;
+
+    /**
+     * Amount of bytes read, including the frames' headers.
+     */
+    @Getter
+    private long compressedBytes = 0L;
+
+    /**
+     * @param source - the channel the frames are read from.
+     */
+    public InflatingChannel(@NonNull final ReadableByteChannel source) {
+        this.source = source;
+    }
+
+    @Override
+    public int read(@NonNull final ByteBuffer target) throws IOException {
+        if (!block.hasRemaining() && !readFrame()) {
+            return -1;
+        }
+        final int count = Math.min(block.remaining(), target.remaining());
+        final int limit = block.limit();
+        block.limit(block.position() + count);
+        target.put(block);
+        block.limit(limit);
+        rawBytes += count;
+        return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return source.isOpen();
+    }
+
+    /**
+     * Releases the inflater, the source stays open.
+     */
+    @Override
+    public void close() {
+        inflater.end();
+    }
+
+    /**
+     * Reads the next frame and decodes its block.
+     *
+     * @return false if the source ended before the frame started.
+     */
+    private boolean readFrame() throws IOException {
+        header.clear();
+        if (!readFully(header, true)) return false;
+        header.flip();
+        final byte kind = header.get();
+        final int blockLength = header.getInt();
+        final int payloadLength = header.getInt();
+        if (blockLength <= 0 || blockLength > COMPRESSION_BLOCK_SIZE || payloadLength <= 0 || payloadLength > blockLength) {
+            throw new ProtocolException("Illegal compressed frame!");
+        }
+        readFully(ByteBuffer.wrap(payload, 0, payloadLength), false);
+        compressedBytes += Compression.FRAME_HEADER_LENGTH + payloadLength;
+        if (kind == Compression.RAW_FRAME && payloadLength == blockLength) {
+            block = ByteBuffer.wrap(payload, 0, blockLength);
+        } else if (kind == Compression.DEFLATED_FRAME) {
+            block = ByteBuffer.wrap(inflatedBlock, 0, inflate(payloadLength, blockLength));
+        } else {
+            throw new ProtocolException("Illegal compressed frame!");
+        }
+        return true;
+    }
+
+    /**
+     * Decompresses the current frame's payload.
+     *
+     * @param payloadLength - the payload's length.
+     * @param blockLength   - the length the block must have.
+     * @return the block's length.
+     */
+    private int inflate(final int payloadLength, final int blockLength) throws ProtocolException {
+        inflater.reset();
+        inflater.setInput(payload, 0, payloadLength);
+        try {
+            final int inflatedLength = inflater.inflate(inflatedBlock, 0, blockLength);
+            if (inflatedLength != blockLength || !inflater.finished()) {
+                throw new ProtocolException("Compressed frame does not match its length!");
+            }
+            return inflatedLength;
+        } catch (DataFormatException e) {
+            throw new ProtocolException("Corrupted compressed frame: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fills a buffer from the source.
+     *
+     * @param buffer     - the buffer.
+     * @param endAllowed - whether the source may end before the first byte.
+     * @return false if the source ended before the first byte.
+     */
+    private boolean readFully(@NonNull final ByteBuffer buffer, final boolean endAllowed) throws IOException {
+        while (buffer.hasRemaining()) {
+            final long startNanos = System.nanoTime();
+            final int read = source.read(buffer);
+            TransferMetrics.recordSocketRead(startNanos, read);
+            if (read == -1) {
+                if (endAllowed && buffer.position() == 0) return false;
+                throw new EOFException("Connection closed in the middle of a compressed frame!");
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,241 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.hashing.Hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Lists the files and directories of a transfer.
+ * The manifest is sent as one message per entry, followed by {@link #END}. The content of all files follows
+ * back-to-back in manifest order, so no round trip is needed per file.
+ * Paths are relative to the receiver's download directory and always use "/" as separator.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class Manifest {
+
+    /**
+     * Sent after the last entry.
+     */
+    public static final String END = "END";
+
+    /**
+     * Prefix of file entries, followed by the file's size and path.
+     */
+    private static final String FILE_PREFIX = "F:";
+
+    /**
+     * Prefix of directory entries, followed by the directory's path.
+     */
+    private static final String DIRECTORY_PREFIX = "D:";
+
+    /**
+     * Name shown to the receiver.
+     */
+    private final String name;
+
+    /**
+     * The entries, directories always come before their content.
+     */
+    private final List<Entry> entries;
+
+    /**
+     * Combined size of all files.
+     */
+    private final long totalSize;
+
+    /**
+     * Whether the transfer is a single plain file, which is sent with the plain protocol.
+     */
+    private final boolean singleFile;
+
+    /**
+     * Creates the manifest of the selected files. Directories are added with their whole content.
+     * Symbolic links and other special files inside directories are skipped.
+     *
+     * @param files - the selected files and directories.
+     * @return the manifest.
+     */
+    @NonNull
+    public static Manifest of(@NonNull final List<File> files) throws IOException {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No files selected!");
+        }
+        final List<Entry> entries = new ArrayList<>();
+        long totalSize = 0L;
+        for (final File file : files) {
+            final Path root = file.toPath().toAbsolutePath().normalize();
+            final Path base = root.getParent() != null ? root.getParent() : root;
+            final List<Path> paths;
+            try (final Stream<Path> walk = Files.walk(root)) {
+                paths = walk.collect(Collectors.toList());
+            }
+            for (final Path path : paths) {
+                final String relativePath = toRelativePath(base, path);
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    entries.add(new Entry(relativePath, 0L, true, null));
+                } else if (Files.isRegularFile(path, path == root ? new LinkOption[0] : new LinkOption[]{LinkOption.NOFOLLOW_LINKS})) {
+                    final long size = Files.size(path);
+                    entries.add(new Entry(relativePath, size, false, path.toFile()));
+                    totalSize += size;
+                }
+            }
+        }
+        final boolean singleFile = files.size() == 1 && entries.size() == 1 && !entries.get(0).isDirectory();
+        final String name = files.size() == 1 ? files.get(0).getName() : String.format("%s files", files.size());
+        return new Manifest(name, entries, totalSize, singleFile);
+    }
+
+    /**
+     * Computes the SHA-256 hash of the content of all files, in manifest order.
+     *
+     * @return the hash, encoded in hex.
+     */
+    @NonNull
+    public String getSHA256Hash() throws IOException, NoSuchAlgorithmException {
+        final MessageDigest messageDigest = Hashing.newSHA256Digest();
+        final ByteBuffer buffer = Hashing.newHashBuffer();
+        for (final Entry entry : entries) {
+            if (entry.isDirectory()) continue;
+            try (final FileChannel fileChannel = FileChannel.open(entry.getFile().toPath(), StandardOpenOption.READ)) {
+                Hashing.updateDigest(messageDigest, fileChannel, 0L, entry.getSize(), buffer);
+            }
+        }
+        return Hashing.toHex(messageDigest);
+    }
+
+    /**
+     * Converts a path into the manifest's path format.
+     *
+     * @param base - the directory the path is relative to.
+     * @param path - the path.
+     * @return the relative path, separated by "/".
+     */
+    @NonNull
+    private static String toRelativePath(@NonNull final Path base, @NonNull final Path path) throws IOException {
+        final List<String> names = new ArrayList<>();
+        for (final Path name : base.relativize(path)) {
+            names.add(name.toString());
+        }
+        final String relativePath = String.join("/", names);
+        if (relativePath.isEmpty()) {
+            throw new IOException("Cannot send a file system root: " + path);
+        }
+        if (relativePath.contains("\n") || relativePath.contains("\r")) {
+            throw new IOException("File names must not contain line breaks: " + path);
+        }
+        return relativePath;
+    }
+
+    /**
+     * Resolves a path received in a manifest, or the name of a single received file, against the download directory.
+     * Rejects paths that would end up outside of it, such as absolute paths, paths containing ".." or paths starting
+     * with a drive letter, which Windows resolves against that drive rather than the download directory.
+     *
+     * @param base         - the download directory.
+     * @param relativePath - the received path.
+     * @return the path to write to.
+     */
+    @NonNull
+    public static Path resolve(@NonNull final Path base, @NonNull final String relativePath) throws ProtocolException {
+        final Path normalizedBase = base.toAbsolutePath().normalize();
+        if (relativePath.length() > 1 && relativePath.charAt(1) == ':' && Character.isLetter(relativePath.charAt(0))) {
+            throw new ProtocolException("Illegal path in manifest: " + relativePath);
+        }
+        for (final String name : relativePath.split("/", -1)) {
+            if (name.isEmpty() || ".".equals(name) || "..".equals(name) || name.contains("\\")) {
+                throw new ProtocolException("Illegal path in manifest: " + relativePath);
+            }
+        }
+        final Path resolved;
+        try {
+            resolved = normalizedBase.resolve(relativePath).normalize();
+        } catch (RuntimeException e) {
+            throw new ProtocolException("Illegal path in manifest: " + relativePath);
+        }
+        if (!resolved.startsWith(normalizedBase) || resolved.equals(normalizedBase)) {
+            throw new ProtocolException("Illegal path in manifest: " + relativePath);
+        }
+        return resolved;
+    }
+
+    /**
+     * A single file or directory of a transfer.
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Entry {
+
+        /**
+         * The entry's path, relative to the receiver's download directory.
+         */
+        private final String path;
+
+        /**
+         * The file's size, 0 for directories.
+         */
+        private final long size;
+
+        /**
+         * Whether the entry is a directory.
+         */
+        private final boolean directory;
+
+        /**
+         * The file on the sender's system, null on the receiver's.
+         */
+        private final File file;
+
+        /**
+         * Formats the entry as a manifest message.
+         *
+         * @return the message.
+         */
+        @NonNull
+        public String format() {
+            return directory ? DIRECTORY_PREFIX + path : FILE_PREFIX + size + ":" + path;
+        }
+
+        /**
+         * Parses a manifest message.
+         *
+         * @param message - the message.
+         * @return the entry.
+         */
+        @NonNull
+        public static Entry parse(@NonNull final String message) throws ProtocolException {
+            try {
+                if (message.startsWith(DIRECTORY_PREFIX)) {
+                    return new Entry(message.substring(DIRECTORY_PREFIX.length()), 0L, true, null);
+                }
+                if (message.startsWith(FILE_PREFIX)) {
+                    final int separatorIndex = message.indexOf(':', FILE_PREFIX.length());
+                    final long size = Long.parseLong(message.substring(FILE_PREFIX.length(), separatorIndex));
+                    if (size < 0) throw new NumberFormatException();
+                    return new Entry(message.substring(separatorIndex + 1), size, false, null);
+                }
+            } catch (IndexOutOfBoundsException | NumberFormatException ignored) {
+                // rejected below
+            }
+            throw new ProtocolException("Illegal manifest entry: " + message);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static software.isratech.easy_file_transferer.Constants.PROGRESS_UPDATE_INTERVAL;
+
+/**
+ * Renders the status of running transfers at a fixed rate, no matter how fast the transfer loops run.
+ */
+public class ProgressTicker implements Closeable {
+
+    /**
+     * Runs the ticks.
+     */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "progress-ticker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Receives the rendered status.
+     */
+    private final Consumer<String> onStatus;
+
+    /**
+     * Renders the current status.
+     */
+    private final Supplier<String> render;
+
+    /**
+     * Starts rendering the status.
+     *
+     * @param onStatus - receives the rendered status.
+     * @param render   - renders the current status.
+     */
+    public ProgressTicker(@NonNull final Consumer<String> onStatus, @NonNull final Supplier<String> render) {
+        this.onStatus = onStatus;
+        this.render = render;
+        scheduler.scheduleAtFixedRate(this::tick, 0L, PROGRESS_UPDATE_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Renders the current status.
+     */
+    private void tick() {
+        onStatus.accept(render.get());
+    }
+
+    /**
+     * Stops rendering.
+     * Waits for a running tick, so no stale status is rendered after the caller's final status.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(PROGRESS_UPDATE_INTERVAL, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
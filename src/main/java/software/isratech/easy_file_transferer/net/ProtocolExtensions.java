@@ -0,0 +1,117 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Optional extensions of the transfer protocol.
+ * The client appends the extensions it supports to its "Received Name" message, the server appends the ones
+ * it chose to use to its "Ready for transfer!" message. Plain peers (e.g. the Android app or ptransfer) ignore
+ * the content of both messages, so they keep working with the plain protocol.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProtocolExtensions {
+
+    /**
+     * Separates extensions from the message and from each other.
+     */
+    private static final String SEPARATOR = ";";
+
+    /**
+     * Separates an extension's name from its value.
+     */
+    private static final String VALUE_SEPARATOR = ":";
+
+    /**
+     * Amount of parallel connections used for a striped transfer.
+     */
+    public static final String STREAMS = "STREAMS";
+
+    /**
+     * Identifies a transfer, so additional connections can be matched to it.
+     */
+    public static final String SESSION = "SESSION";
+
+    /**
+     * Sent by additional connections of a striped transfer, followed by the session id and the stripe's index.
+     */
+    public static final String STRIPE = "STRIPE";
+
+    /**
+     * Sent by clients that can receive several files. Sent back by the server with the amount of manifest entries,
+     * if the transfer consists of several files.
+     */
+    public static final String MANIFEST = "MANIFEST";
+
+    /**
+     * Sent by clients that can receive delta transfers. Sent back by the server with the block size, if the client's
+     * existing copy is synced block by block instead of being resumed.
+     */
+    public static final String DELTA = "DELTA";
+
+    /**
+     * Sent by clients that can verify files chunk by chunk. Sent back by the server with the chunk size, if the
+     * file is verified by its chunk hashes instead of a single hash.
+     */
+    public static final String CHUNKS = "CHUNKS";
+
+    /**
+     * Sent by clients that can receive compressed data, followed by the supported codecs separated by ",".
+     * Sent back by the server with the chosen codec, if the data phase is compressed.
+     */
+    public static final String COMPRESS = "COMPRESS";
+
+    /**
+     * Appends extensions to a message.
+     *
+     * @param message    - the message.
+     * @param extensions - the extensions and their values.
+     * @return the message with all extensions appended.
+     */
+    @NonNull
+    public static String append(@NonNull final String message, @NonNull final Map<String, String> extensions) {
+        final StringBuilder stringBuilder = new StringBuilder(message);
+        extensions.forEach((name, value) -> stringBuilder.append(SEPARATOR).append(name).append(VALUE_SEPARATOR).append(value));
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Parses the extensions appended to a message.
+     * Names are upper-cased independently of the default locale, e.g. "manifest" stays MANIFEST on Turkish systems.
+     *
+     * @param message - the message.
+     * @return the extensions and their values, empty if the message carries none.
+     */
+    @NonNull
+    public static Map<String, String> parse(final String message) {
+        final Map<String, String> extensions = new LinkedHashMap<>();
+        if (message == null) return extensions;
+        final String[] parts = message.split(SEPARATOR);
+        for (int i = 1; i < parts.length; i++) {
+            final String[] extension = parts[i].split(VALUE_SEPARATOR, 2);
+            extensions.put(extension[0].trim().toUpperCase(Locale.ROOT), extension.length > 1 ? extension[1].trim() : "");
+        }
+        return extensions;
+    }
+
+    /**
+     * Reads a numeric extension.
+     *
+     * @param extensions   - the parsed extensions.
+     * @param name         - the extension's name.
+     * @param defaultValue - returned if the extension is missing or malformed.
+     * @return the extension's value.
+     */
+    public static int getInt(@NonNull final Map<String, String> extensions, @NonNull final String name, final int defaultValue) {
+        try {
+            return Integer.parseInt(extensions.get(name));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
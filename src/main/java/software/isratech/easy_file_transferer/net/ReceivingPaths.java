@@ -0,0 +1,73 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps the paths files are currently received into, so transfers running at the same time never write the same
+ * file, e.g. when several servers send a file of the same name into the same directory.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class ReceivingPaths {
+
+    /**
+     * The claimed paths, absolute and normalized.
+     */
+    private static final Set<Path> CLAIMED_PATHS = new HashSet<>();
+
+    /**
+     * Claims paths for a transfer, waiting while another transfer holds any of them.
+     * All paths are claimed at once, so two transfers never wait for each other.
+     *
+     * @param paths  - the paths.
+     * @param onWait - called once before waiting, if any path is claimed by another transfer.
+     * @throws InterruptedIOException if the transfer was interrupted while waiting.
+     */
+    static synchronized void claim(@NonNull final Collection<Path> paths, @NonNull final Runnable onWait) throws InterruptedIOException {
+        final Set<Path> normalizedPaths = normalize(paths);
+        boolean waited = false;
+        while (normalizedPaths.stream().anyMatch(CLAIMED_PATHS::contains)) {
+            if (!waited) {
+                onWait.run();
+                waited = true;
+            }
+            try {
+                ReceivingPaths.class.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for another transfer of the same file!");
+            }
+        }
+        CLAIMED_PATHS.addAll(normalizedPaths);
+    }
+
+    /**
+     * Releases paths claimed by {@link #claim(Collection, Runnable)}.
+     *
+     * @param paths - the paths.
+     */
+    static synchronized void release(@NonNull final Collection<Path> paths) {
+        CLAIMED_PATHS.removeAll(normalize(paths));
+        ReceivingPaths.class.notifyAll();
+    }
+
+    /**
+     * @param paths - paths.
+     * @return the paths, absolute and normalized.
+     */
+    @NonNull
+    private static Set<Path> normalize(@NonNull final Collection<Path> paths) {
+        final Set<Path> normalizedPaths = new HashSet<>();
+        for (final Path path : paths) {
+            normalizedPaths.add(path.toAbsolutePath().normalize());
+        }
+        return normalizedPaths;
+    }
+}
@@ -1,217 +1,809 @@
 package software.isratech.easy_file_transferer.net;
 
-import javafx.application.Platform;
-import javafx.scene.control.Label;
-import javafx.scene.paint.Color;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import lombok.Setter;
+import software.isratech.easy_file_transferer.hashing.FileHashCache;
+import software.isratech.easy_file_transferer.hashing.FileHashes;
 import software.isratech.easy_file_transferer.hashing.Hashing;
+import software.isratech.easy_file_transferer.metrics.HandshakeEvent;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.ProtocolException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketAddress;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
 
-import static software.isratech.easy_file_transferer.Constants.DEFAULT_BYTES;
+import static software.isratech.easy_file_transferer.Constants.CHUNK_SIZE;
+import static software.isratech.easy_file_transferer.Constants.MAX_STREAMS;
+import static software.isratech.easy_file_transferer.Constants.MIN_STRIPED_TRANSFER_SIZE;
+import static software.isratech.easy_file_transferer.Constants.TUNING_PROBE_SIZE;
 import static software.isratech.easy_file_transferer.net.Communication.*;
 
 /**
- * Implements sending files to a remote client.
+ * Implements sending files to remote clients.
+ * Every accepted connection is handled on its own thread, so pings, additional connections of striped transfers
+ * and (in multi client mode) several clients are served concurrently. All clients share one open file handle and
+ * one set of precomputed hashes. The file is sent with sendfile, so all clients read it from the same page cache.
  */
 @NoArgsConstructor(access = AccessLevel.PUBLIC)
 public class Server {
 
+    /**
+     * Whether the server keeps serving clients until its socket is closed, instead of stopping after one transfer.
+     */
+    @Setter
+    private boolean multiClient = false;
+
+    /**
+     * How the connections are tuned.
+     */
+    @Setter
+    private TuningProfile tuningProfile = TuningProfile.AUTO;
+
+    /**
+     * Limit of each client's transfer in bytes per second, 0 if unlimited.
+     */
+    @Setter
+    private long rateLimit = 0L;
+
+    /**
+     * Handles accepted connections.
+     */
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "client-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Additional connections of striped transfers, by session id.
+     */
+    private final Map<String, BlockingQueue<StripedTransfer.Stripe>> pendingStripes = new ConcurrentHashMap<>();
+
+    /**
+     * Status of every client, in the order they connected.
+     */
+    private final Map<String, String> clientStatus = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * Progress of every client that is currently receiving the file.
+     */
+    private final Map<String, TransferProgress> clientProgress = new ConcurrentHashMap<>();
+
+    /**
+     * Error of the transfer in single client mode.
+     */
+    private final AtomicReference<Exception> transferError = new AtomicReference<>();
+
+    /**
+     * Status of the server itself, shown above the clients' status.
+     */
+    private String serverStatus = "";
+
+    /**
+     * Amount of clients whose transfer started.
+     */
+    private int startedSessions = 0;
+
+    /**
+     * Amount of clients whose transfer is still running.
+     */
+    private int runningSessions = 0;
+
+    /**
+     * Whether the server is stopping, so no further transfers are started.
+     */
+    private boolean stopping = false;
+
+    /**
+     * Receives the server's and clients' status.
+     */
+    private TransferListener listener;
+
+    /**
+     * The files being served.
+     */
+    private Manifest manifest;
+
+    /**
+     * The file, opened once and shared by all clients. Null if several files are served.
+     */
+    private FileChannel fileChannel;
+
+    /**
+     * Name of the file, or of the served files.
+     */
+    private String fileName;
+
+    /**
+     * The pending hashes of the file, or the hash of all served files' content, shared by all clients.
+     */
+    private Future<FileHashes> fileHashes;
+
     /**
      * Starts a listener which serves files to remote clients
      *
      * @param serverSocket - the server socket, passed so it can be closed externally
      * @param host         - the address to host on
      * @param port         - the port to listen on
-     * @param file         - the file
+     * @param manifest     - the files
+     * @param listener     - receives the server's and clients' status
      */
     public void serve(
             @NonNull final ServerSocket serverSocket,
             @NonNull final String host,
             final int port,
-            @NonNull final File file,
-            @NonNull final Label statusMessageLabel
+            @NonNull final Manifest manifest,
+            @NonNull final TransferListener listener
     ) throws IOException, IllegalArgumentException, NoSuchAlgorithmException {
-        String data = "";
-        data += "Starting server...";
-        updateTextLabel(data, statusMessageLabel);
+        this.listener = listener;
+        this.manifest = manifest;
+        this.fileName = manifest.getName();
+        this.fileHashes = startHashing(manifest);
+        serverStatus = "Starting server...";
+        showStatus();
         final SocketAddress socketAddress = new InetSocketAddress(host, port);
+        SocketTuning.configure(serverSocket, tuningProfile);
         serverSocket.bind(socketAddress);
-        data += String.format("%nServer bound and listening on %s:%s...%nWaiting for client connection...", host, port);
-        updateTextLabel(data, statusMessageLabel);
-        final Socket clientSocket = getClientSocket(serverSocket);
-        data += String.format("%nAccepted connection from %s", clientSocket.getRemoteSocketAddress().toString());
-        updateTextLabel(data, statusMessageLabel);
-        handleClient(clientSocket, file, statusMessageLabel);
+        serverStatus += String.format("%nServer bound and listening on %s:%s...%nWaiting for client connection...", host, port);
+        showStatus();
+        try (
+                final FileChannel sharedFileChannel = manifest.isSingleFile()
+                        ? FileChannel.open(manifest.getEntries().get(0).getFile().toPath(), StandardOpenOption.READ)
+                        : null;
+                final ServiceAnnouncer serviceAnnouncer = new ServiceAnnouncer(serverSocket.getLocalPort(), fileName, manifest.getTotalSize())
+        ) {
+            final ProgressTicker progressTicker = new ProgressTicker(listener::onStatus, this::renderStatus);
+            try {
+                this.fileChannel = sharedFileChannel;
+                serviceAnnouncer.start();
+                acceptConnections(serverSocket);
+            } finally {
+                awaitSessions();
+                progressTicker.close();
+            }
+        } finally {
+            connectionExecutor.shutdownNow();
+        }
+        rethrowTransferError();
     }
 
     /**
-     * Replies to client pings until a client initiates an actual connection.
+     * Starts computing the files' hashes in the background, so they are usually ready by the time the transfer ends.
+     * The files' bytes are sent without passing through the heap, so they cannot be hashed inline on this side.
+     * A single file is hashed as a whole and in chunks at once, several files are only hashed as a whole.
+     * The hashes of a single file are cached, so serving an unchanged file again does not hash it again.
+     *
+     * @param manifest - the files.
+     * @return the pending hashes.
+     */
+    @NonNull
+    private Future<FileHashes> startHashing(@NonNull final Manifest manifest) {
+        final FutureTask<FileHashes> pendingHash = new FutureTask<>(() -> manifest.isSingleFile()
+                ? FileHashCache.getFileHashes(manifest.getEntries().get(0).getFile(), CHUNK_SIZE)
+                : new FileHashes(manifest.getSHA256Hash(), CHUNK_SIZE, List.of()));
+        final Thread hashingThread = new Thread(pendingHash, "file-hashing");
+        hashingThread.setDaemon(true);
+        hashingThread.start();
+        return pendingHash;
+    }
+
+    /**
+     * Accepts connections until the server socket is closed, either externally or after a single client was served.
      *
      * @param serverSocket - the server socket.
-     * @return the client's socket.
      */
-    private Socket getClientSocket(@NonNull final ServerSocket serverSocket) throws IOException {
-        Socket clientSocket = serverSocket.accept();
-        while (!receiveMessage(new BufferedReader(new InputStreamReader(clientSocket.getInputStream()))).equalsIgnoreCase("init")) {
-            sendMessage(new PrintWriter(new OutputStreamWriter(clientSocket.getOutputStream()), true), "REPLY");
-            clientSocket = serverSocket.accept();
+    private void acceptConnections(@NonNull final ServerSocket serverSocket) throws IOException {
+        while (!serverSocket.isClosed()) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) return;
+                throw e;
+            }
+            connectionExecutor.execute(() -> dispatchConnection(serverSocket, socket));
         }
-        return clientSocket;
     }
 
     /**
-     * Handles a connected client by sending them the selected file.
+     * Reads the first message of a connection and hands the connection to whatever it asked for.
+     * Clients start a transfer with "init", additional connections of striped transfers identify their session
+     * and anything else is treated as a ping from a client scanning the network.
+     * In single client mode, only the first client is served, the connections of further clients are closed.
      *
+     * @param serverSocket - the server socket.
+     * @param socket       - the accepted connection.
+     */
+    private void dispatchConnection(@NonNull final ServerSocket serverSocket, @NonNull final Socket socket) {
+        try {
+            SocketTuning.configure(socket, tuningProfile);
+            final Connection connection = new Connection(socket);
+            final String message = receiveMessage(connection);
+            if ("init".equalsIgnoreCase(message)) {
+                if (startSession()) {
+                    serveClient(serverSocket, socket, connection);
+                } else {
+                    socket.close();
+                }
+                return;
+            }
+            final StripedTransfer.Stripe stripe = StripedTransfer.parseStripe(message, socket);
+            if (stripe != null) {
+                final BlockingQueue<StripedTransfer.Stripe> stripeQueue = pendingStripes.get(stripe.getSessionId());
+                if (stripeQueue != null) {
+                    stripeQueue.offer(stripe);
+                    return;
+                }
+            } else if (message != null) {
+                sendMessage(connection, "REPLY");
+            }
+            socket.close();
+        } catch (IOException e) {
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Serves a client and records the outcome.
+     * In single client mode, the server stops after this client, whether the transfer succeeded or failed, even if
+     * it failed unexpectedly.
+     *
+     * @param serverSocket - the server socket.
      * @param clientSocket - the client's socket.
-     * @param file         - the file.
+     * @param connection   - the connection to the client.
      */
-    private void handleClient(
+    private void serveClient(
+            @NonNull final ServerSocket serverSocket,
             @NonNull final Socket clientSocket,
-            @NonNull final File file,
-            @NonNull final Label statusMessageLabel
+            @NonNull final Connection connection
+    ) {
+        final String clientName = clientSocket.getRemoteSocketAddress().toString();
+        try (clientSocket) {
+            setClientStatus(clientName, "Accepted connection.");
+            handleClient(connection, clientName);
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            setClientStatus(clientName, "Transfer failed! " + e.getMessage());
+            transferError.compareAndSet(null, e);
+        } finally {
+            if (!multiClient) {
+                closeQuietly(serverSocket);
+            }
+            endSession();
+        }
+    }
+
+    /**
+     * Starts a client's transfer, unless the server is stopping or, in single client mode, already served a client.
+     *
+     * @return whether the client may be served.
+     */
+    private synchronized boolean startSession() {
+        if (stopping || (!multiClient && startedSessions > 0)) return false;
+        startedSessions++;
+        runningSessions++;
+        return true;
+    }
+
+    /**
+     * Ends a client's transfer.
+     */
+    private synchronized void endSession() {
+        runningSessions--;
+        notifyAll();
+    }
+
+    /**
+     * Stops starting transfers and waits for the running ones, so the shared file is not closed while it is sent.
+     */
+    private synchronized void awaitSessions() {
+        stopping = true;
+        try {
+            while (runningSessions > 0) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Handles a connected client by sending them the selected file.
+     * The client's throttle covers the transfer and the chunks fetched again afterwards, so refetching does not
+     * take a second share of the global limit.
+     *
+     * @param connection - the connection to the client.
+     * @param clientName - the name the client's status is shown under.
+     */
+    private void handleClient(
+            @NonNull final Connection connection,
+            @NonNull final String clientName
     ) throws IOException, NoSuchAlgorithmException {
-        String data = statusMessageLabel.getText();
-        final InputStream socketInputStream = clientSocket.getInputStream();
-        final BufferedReader reader = new BufferedReader(new InputStreamReader(socketInputStream));
-        final OutputStream socketOutputStream = clientSocket.getOutputStream();
-        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(socketOutputStream), true);
-        data += "\nExchanging file info with client...";
-        updateTextLabel(data, statusMessageLabel);
-        final long existingFileSize = handleInitialCommunication(reader, writer, file);
-        data += "\nSending file to client...";
-        updateTextLabel(data, statusMessageLabel);
-        handleFileTransfer(socketOutputStream, file, existingFileSize, statusMessageLabel);
-        data += "\nSending file hash...";
-        updateTextLabel(data, statusMessageLabel);
-        checkFileHashes(reader, writer, file);
-        data += "\nFile transfer complete.";
-        final String endData = data;
-        Platform.runLater(() -> {
-            statusMessageLabel.setTextFill(Color.GREEN);
-            statusMessageLabel.setText(endData);
-        });
+        setClientStatus(clientName, "Exchanging file info with client...");
+        final Map<String, String> extensions = new LinkedHashMap<>();
+        final String transferSummary;
+        try (final Throttle throttle = Throttle.open(rateLimit)) {
+            try {
+                final long existingFileSize = handleInitialCommunication(connection, clientName, extensions);
+                setClientStatus(clientName, "Sending file to client...");
+                transferSummary = handleFileTransfer(connection, clientName, existingFileSize, extensions, throttle);
+            } finally {
+                final String sessionId = extensions.get(ProtocolExtensions.SESSION);
+                if (sessionId != null) pendingStripes.remove(sessionId);
+            }
+            setClientStatus(clientName, "Sending file hash...");
+            checkFileHashes(connection, extensions, throttle);
+        }
+        setClientStatus(clientName, "File transfer complete." + transferSummary);
+        if (!multiClient) {
+            listener.onComplete();
+        }
     }
 
     /**
      * Handles initial communication with a client for exchanging file info.
+     * Recorded as a {@link HandshakeEvent}.
      *
-     * @param reader - the reader used for receiving messages.
-     * @param writer - the writer used for sending messages.
-     * @param file   - the file to send
+     * @param connection - the connection to the client.
+     * @param clientName - the client's address.
+     * @param extensions - filled with the protocol extensions chosen for this transfer.
      * @return the size of the file on the client's system.
      */
     @SuppressWarnings("SpellCheckingInspection")
     private long handleInitialCommunication(
-            @NonNull final BufferedReader reader,
-            @NonNull final PrintWriter writer,
-            @NonNull final File file
+            @NonNull final Connection connection,
+            @NonNull final String clientName,
+            @NonNull final Map<String, String> extensions
     ) throws IOException {
-        sendMessage(writer, file.getName());
-        System.out.println(receiveMessage(reader));
-        final long fileSize = Files.size(file.toPath());
-        sendMessage(writer, Long.toString(fileSize));
-        final String response = receiveMessage(reader);
-        long existingSize = 0L;
-        System.out.println(response);
-        if (!"NONEXISTANT".equalsIgnoreCase(response)) {
-            existingSize = Long.parseLong(response.split("SIZE:")[1]);
-        }
-        sendMessage(writer, "Ready for transfer!");
-        System.out.println(receiveMessage(reader));
+        final HandshakeEvent event = new HandshakeEvent();
+        event.begin();
+        sendMessage(connection, fileName);
+        final String nameResponse = receiveMessage(connection);
+        final Map<String, String> clientExtensions = ProtocolExtensions.parse(nameResponse);
+        if (!manifest.isSingleFile() && !clientExtensions.containsKey(ProtocolExtensions.MANIFEST)) {
+            throw new IOException("Client cannot receive several files!");
+        }
+        final long fileSize = getTransferSize();
+        sendMessage(connection, Long.toString(fileSize));
+        final String response = receiveMessage(connection);
+        final boolean deltaOffered = clientExtensions.containsKey(ProtocolExtensions.DELTA);
+        final long clientSize = manifest.isSingleFile() ? parseExistingSize(response, fileSize, deltaOffered) : 0L;
+        extensions.putAll(negotiateExtensions(clientExtensions, clientSize, fileSize));
+        final long existingSize = extensions.containsKey(ProtocolExtensions.DELTA) ? clientSize : getResumeOffset(clientSize, fileSize);
+        sendMessage(connection, ProtocolExtensions.append("Ready for transfer!", extensions));
+        receiveMessage(connection);
+        if (event.shouldCommit()) {
+            event.setRemote(clientName);
+            event.setFileName(fileName);
+            event.setFileSize(fileSize);
+            event.setExistingSize(clientSize);
+            event.setOfferedExtensions(clientExtensions.toString());
+            event.setNegotiatedExtensions(extensions.toString());
+            event.setRoundTripTime(connection.getRoundTripNanos());
+            event.commit();
+        }
         return existingSize;
     }
 
     /**
-     * Reads the first n bytes of a file that already exists on a client's system and then sends
-     * the remaining bytes to the client.
+     * Parses the client's reply stating the size of its copy of the file.
+     * A copy larger than the served file can only be synced, so it is only accepted from clients offering delta
+     * transfers, e.g. for a file that got smaller.
      *
-     * @param socketOutputStream - the client socket's output stream.
-     * @param file               - the file.
-     * @param currentFileSize    - the size of the file currently on the client's system.
+     * @param response     - the client's reply, either "NONEXISTANT" or "SIZE:" followed by the size.
+     * @param fileSize     - the size of the served file.
+     * @param deltaOffered - whether the client offered delta transfers.
+     * @return the size of the client's copy.
+     * @throws ProtocolException if the reply is missing or malformed, or the size is outside of the served file.
      */
-    private void handleFileTransfer(
-            @NonNull final OutputStream socketOutputStream,
-            @NonNull final File file,
-            final long currentFileSize,
-            @NonNull final Label statusMessageLabel
+    @SuppressWarnings("SpellCheckingInspection")
+    private static long parseExistingSize(final String response, final long fileSize, final boolean deltaOffered) throws ProtocolException {
+        if (response == null) {
+            throw new ProtocolException("Client closed the connection before sending its file size!");
+        }
+        if ("NONEXISTANT".equalsIgnoreCase(response)) return 0L;
+        final int sizeIndex = response.indexOf("SIZE:");
+        try {
+            if (sizeIndex < 0) throw new NumberFormatException();
+            final long existingSize = Long.parseLong(response.substring(sizeIndex + "SIZE:".length()).trim());
+            if (existingSize < 0 || (existingSize > fileSize && !deltaOffered)) throw new NumberFormatException();
+            return existingSize;
+        } catch (NumberFormatException e) {
+            throw new ProtocolException("Illegal file size: " + response);
+        }
+    }
+
+    /**
+     * @param clientSize - the size of the client's copy of the file.
+     * @param fileSize   - the size of the served file.
+     * @return the offset a transfer without delta sync resumes at, 0 if the client's copy is larger than the file.
+     */
+    private static long getResumeOffset(final long clientSize, final long fileSize) {
+        return clientSize <= fileSize ? clientSize : 0L;
+    }
+
+    /**
+     * Picks the protocol extensions to use for a transfer.
+     * A single file is compressed if a sample of it looks compressible, otherwise it is sent zero-copy.
+     * If a striped transfer is chosen, the client's additional connections are routed to it from now on.
+     *
+     * @param clientExtensions - the extensions supported by the client.
+     * @param clientSize       - the size of the file on the client's system.
+     * @param fileSize         - the size of the whole transfer.
+     * @return the chosen extensions, which are sent back to the client.
+     */
+    @NonNull
+    private Map<String, String> negotiateExtensions(
+            @NonNull final Map<String, String> clientExtensions,
+            final long clientSize,
+            final long fileSize
     ) throws IOException {
-        try (final InputStream fileInputStream = readExistingData(file, currentFileSize)) {
-            long readSize = currentFileSize;
-            final long fileSize = Files.size(file.toPath());
-            final String transferInfoText = statusMessageLabel.getText();
-            String currentProgress = String.format("Progress: %s/%s", getHumanReadableFileSize(currentFileSize), getHumanReadableFileSize(fileSize));
-            updateTextLabel(String.format("%s%n%s", transferInfoText, currentProgress), statusMessageLabel);
-            while (readSize < fileSize) {
-                int currentReadSize = getReadThreshold(fileSize - readSize);
-                final byte[] buffer = new byte[currentReadSize];
-                final int returnCode = fileInputStream.read(buffer);
-                if (returnCode == -1) break;
-                socketOutputStream.write(buffer);
-                readSize += returnCode;
-                socketOutputStream.flush();
-                currentProgress = String.format("Progress: %s/%s", getHumanReadableFileSize(readSize), getHumanReadableFileSize(fileSize));
-                updateTextLabel(String.format("%s%n%s", transferInfoText, currentProgress), statusMessageLabel);
+        final Map<String, String> extensions = new LinkedHashMap<>();
+        final boolean canCompress = Compression.supports(clientExtensions.get(ProtocolExtensions.COMPRESS), Compression.DEFLATE);
+        if (!manifest.isSingleFile()) {
+            extensions.put(ProtocolExtensions.MANIFEST, Integer.toString(manifest.getEntries().size()));
+            if (canCompress) {
+                extensions.put(ProtocolExtensions.COMPRESS, Compression.DEFLATE);
             }
+            return extensions;
+        }
+        if (clientExtensions.containsKey(ProtocolExtensions.DELTA) && DeltaSync.isWorthwhile(clientSize, fileSize)) {
+            extensions.put(ProtocolExtensions.DELTA, Integer.toString(DeltaSync.getBlockSize(fileSize)));
+            return extensions;
+        }
+        final long existingSize = getResumeOffset(clientSize, fileSize);
+        if (clientExtensions.containsKey(ProtocolExtensions.CHUNKS)) {
+            extensions.put(ProtocolExtensions.CHUNKS, Integer.toString(CHUNK_SIZE));
+        }
+        if (canCompress && Compression.isCompressible(fileChannel, existingSize, fileSize - existingSize)) {
+            extensions.put(ProtocolExtensions.COMPRESS, Compression.DEFLATE);
+            return extensions;
+        }
+        final int requestedStreams = Math.min(ProtocolExtensions.getInt(clientExtensions, ProtocolExtensions.STREAMS, 1), MAX_STREAMS);
+        if (requestedStreams > 1 && fileSize - existingSize >= MIN_STRIPED_TRANSFER_SIZE) {
+            final String sessionId = UUID.randomUUID().toString();
+            pendingStripes.put(sessionId, new LinkedBlockingQueue<>());
+            extensions.put(ProtocolExtensions.STREAMS, Integer.toString(requestedStreams));
+            extensions.put(ProtocolExtensions.SESSION, sessionId);
+        }
+        return extensions;
+    }
+
+    /**
+     * Sends the bytes of the file that the client does not have yet, while tracking the client's progress.
+     * The transfer is throttled to the rate limit and its share of the global limit.
+     *
+     * @param connection      - the connection to the client.
+     * @param clientName      - the name the client's status is shown under.
+     * @param currentFileSize - the size of the file currently on the client's system.
+     * @param extensions      - the protocol extensions chosen for this transfer.
+     * @param throttle        - limits the client's rate.
+     * @return the effective compression ratio if the transfer was compressed, otherwise an empty string.
+     */
+    @NonNull
+    private String handleFileTransfer(
+            @NonNull final Connection connection,
+            @NonNull final String clientName,
+            final long currentFileSize,
+            @NonNull final Map<String, String> extensions,
+            @NonNull final Throttle throttle
+    ) throws IOException, NoSuchAlgorithmException {
+        final long fileSize = getTransferSize();
+        final long offset = extensions.containsKey(ProtocolExtensions.DELTA) ? 0L : currentFileSize;
+        final TransferProgress progress = new TransferProgress(fileSize, offset);
+        clientProgress.put(clientName, progress);
+        try (final CompressedSender compressedSender = extensions.containsKey(ProtocolExtensions.COMPRESS) ? new CompressedSender() : null) {
+            final LongConsumer onProgress = throttle.throttle(sent -> progress.set(offset + sent));
+            sendFile(connection, currentFileSize, extensions, compressedSender, throttle, onProgress);
+            return compressedSender != null
+                    ? " " + Compression.formatRatio(compressedSender.getRawBytes(), compressedSender.getCompressedBytes())
+                    : "";
+        } finally {
+            clientProgress.remove(clientName);
+        }
+    }
+
+    /**
+     * Sends the file's remaining bytes.
+     * The file is read at the client's offset, so the bytes the client already has are never read.
+     * Uses zero-copy transfers if the client's socket has a channel.
+     * If a striped transfer was negotiated, the file is sent over the client's additional connections instead.
+     * If a delta transfer was negotiated, only the parts the client's copy does not contain are sent.
+     * If compression was negotiated, the data is sent through the compressed sender instead.
+     *
+     * @param connection       - the connection to the client.
+     * @param currentFileSize  - the size of the file currently on the client's system.
+     * @param extensions       - the protocol extensions chosen for this transfer.
+     * @param compressedSender - compresses the data, or null.
+     * @param throttle         - limits the transfer's rate.
+     * @param onProgress       - called with the amount of bytes sent so far.
+     */
+    private void sendFile(
+            @NonNull final Connection connection,
+            final long currentFileSize,
+            @NonNull final Map<String, String> extensions,
+            final CompressedSender compressedSender,
+            @NonNull final Throttle throttle,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException, NoSuchAlgorithmException {
+        if (!manifest.isSingleFile()) {
+            sendFiles(connection, compressedSender, throttle, onProgress);
+            return;
+        }
+        if (extensions.containsKey(ProtocolExtensions.DELTA)) {
+            final int blockSize = ProtocolExtensions.getInt(extensions, ProtocolExtensions.DELTA, 0);
+            final DeltaSync.Signatures signatures = DeltaSync.receiveSignatures(connection.getDataInput(), currentFileSize / blockSize);
+            DeltaSync.sendDelta(fileChannel, signatures, blockSize, connection.getDataOutput(), onProgress);
+            return;
+        }
+        final long fileSize = fileChannel.size();
+        if (compressedSender != null) {
+            compressedSender.send(fileChannel, connection.getDataOutput(), currentFileSize, fileSize - currentFileSize, onProgress);
+            return;
+        }
+        final int streams = ProtocolExtensions.getInt(extensions, ProtocolExtensions.STREAMS, 1);
+        if (streams > 1) {
+            final BlockingQueue<StripedTransfer.Stripe> stripeQueue = pendingStripes.get(extensions.get(ProtocolExtensions.SESSION));
+            final int alignment = extensions.containsKey(ProtocolExtensions.CHUNKS) ? CHUNK_SIZE : 1;
+            final TuningProfile profile = tuningProfile.resolve(connection.getRoundTripNanos(), 0d);
+            StripedTransfer.send(stripeQueue, fileChannel, streams, currentFileSize, alignment, profile, onProgress);
+            return;
         }
+        sendRegion(connection, currentFileSize, fileSize - currentFileSize, throttle, onProgress);
     }
 
     /**
-     * Checks if a file is existing on the client's receiving size.
-     * If it exists, attempts to read the first n bytes that the client already has.
+     * Sends a region of the file over the client's connection.
+     * If the connection is auto-tuned, the start of the region measures the link's throughput, which picks the
+     * tuning of the rest of the region together with the round trip time measured during the handshake.
+     * Throttled transfers send in chunks no larger than their bucket.
      *
-     * @param file            - the file.
-     * @param currentFileSize - the size of the file on the client's system.
-     * @return an inputStream of the file, pre-read to the location of the client's data size.
+     * @param connection - the connection to the client.
+     * @param position   - the offset of the region.
+     * @param count      - the length of the region.
+     * @param throttle   - limits the transfer's rate.
+     * @param onProgress - called with the amount of bytes sent so far.
      */
-    @SuppressWarnings("java:S2095") // we do not want to close the stream here. It's closed in handleFileTransfer.
-    private InputStream readExistingData(
-            @NonNull final File file,
-            final long currentFileSize
+    private void sendRegion(
+            @NonNull final Connection connection,
+            final long position,
+            final long count,
+            @NonNull final Throttle throttle,
+            @NonNull final LongConsumer onProgress
     ) throws IOException {
-        final InputStream fileInputStream = new FileInputStream(file);
-        if (currentFileSize == 0L) return fileInputStream;
-        long readSize = 0L;
-        while (readSize != currentFileSize) {
-            int currentReadSize = getReadThreshold(currentFileSize - readSize);
-            final byte[] buffer = new byte[currentReadSize];
-            final int returnCode = fileInputStream.read(buffer);
-            if (returnCode == -1) break;
-            readSize += returnCode;
+        if (tuningProfile != TuningProfile.AUTO || count <= TUNING_PROBE_SIZE) {
+            sendRegion(connection, position, count, throttle.limitChunkSize(tuningProfile.getIoChunkSize()), onProgress);
+            return;
         }
-        return fileInputStream;
+        final long startNanos = System.nanoTime();
+        sendRegion(connection, position, TUNING_PROBE_SIZE, throttle.limitChunkSize(tuningProfile.getIoChunkSize()), onProgress);
+        final TuningProfile profile = SocketTuning.tune(tuningProfile, connection.getSocket(), connection.getRoundTripNanos(),
+                TUNING_PROBE_SIZE, System.nanoTime() - startNanos);
+        sendRegion(connection, position + TUNING_PROBE_SIZE, count - TUNING_PROBE_SIZE, throttle.limitChunkSize(profile.getIoChunkSize()),
+                sent -> onProgress.accept(TUNING_PROBE_SIZE + sent));
     }
 
     /**
-     * Computes the sent file's hash and sends it to the client who received the file.
+     * Sends a region of the file over the client's connection.
      *
-     * @param reader - the reader used for receiving messages from the client.
-     * @param writer - the writer for sending messages to the client.
-     * @param file   - the file.
+     * @param connection - the connection to the client.
+     * @param position   - the offset of the region.
+     * @param count      - the length of the region.
+     * @param chunkSize  - the maximum amount of bytes per cycle.
+     * @param onProgress - called with the amount of bytes sent so far.
+     */
+    private void sendRegion(
+            @NonNull final Connection connection,
+            final long position,
+            final long count,
+            final int chunkSize,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        TransferEngine.sendFile(fileChannel, connection.getDataOutput(), position, count, chunkSize, onProgress);
+    }
+
+    /**
+     * Sends the manifest, followed by the content of all files back-to-back.
+     * Each file is opened only while it is being sent, so serving many files does not exhaust file handles.
+     *
+     * @param connection       - the connection to the client.
+     * @param compressedSender - compresses the files' content, or null.
+     * @param throttle         - limits the transfer's rate.
+     * @param onProgress       - called with the amount of bytes sent so far.
+     */
+    private void sendFiles(
+            @NonNull final Connection connection,
+            final CompressedSender compressedSender,
+            @NonNull final Throttle throttle,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        final List<String> manifestMessages = new ArrayList<>();
+        for (final Manifest.Entry entry : manifest.getEntries()) {
+            manifestMessages.add(entry.format());
+        }
+        manifestMessages.add(Manifest.END);
+        connection.sendMessages(manifestMessages);
+        final int chunkSize = throttle.limitChunkSize(tuningProfile.resolve(connection.getRoundTripNanos(), 0d).getIoChunkSize());
+        long sent = 0L;
+        for (final Manifest.Entry entry : manifest.getEntries()) {
+            if (entry.isDirectory()) continue;
+            final long previouslySent = sent;
+            final LongConsumer onEntryProgress = entrySent -> onProgress.accept(previouslySent + entrySent);
+            try (final FileChannel entryChannel = FileChannel.open(entry.getFile().toPath(), StandardOpenOption.READ)) {
+                if (compressedSender != null) {
+                    compressedSender.send(entryChannel, connection.getDataOutput(), 0L, entry.getSize(), onEntryProgress);
+                } else {
+                    TransferEngine.sendFile(entryChannel, connection.getDataOutput(), 0L, entry.getSize(), chunkSize, onEntryProgress);
+                }
+            }
+            sent += entry.getSize();
+        }
+    }
+
+    /**
+     * @return the amount of bytes of a whole transfer.
+     */
+    private long getTransferSize() throws IOException {
+        return manifest.isSingleFile() ? fileChannel.size() : manifest.getTotalSize();
+    }
+
+    /**
+     * Waits for the sent file's hash and sends it to the client who received the file.
+     * If the file is verified in chunks, the client may first request the chunk hashes and chunks it has to
+     * fetch again, and the root hash of the chunk hashes is sent instead of the file's hash.
+     *
+     * @param connection - the connection to the client.
+     * @param extensions - the protocol extensions chosen for this transfer.
+     * @param throttle   - limits the client's rate.
      */
     private void checkFileHashes(
-            @NonNull final BufferedReader reader,
-            @NonNull final PrintWriter writer,
-            @NonNull final File file
+            @NonNull final Connection connection,
+            @NonNull final Map<String, String> extensions,
+            @NonNull final Throttle throttle
     ) throws IOException, NoSuchAlgorithmException {
-        receiveMessage(reader);
-        sendMessage(writer, Hashing.getSHA256FileHash(file));
+        final boolean chunked = extensions.containsKey(ProtocolExtensions.CHUNKS);
+        while (true) {
+            final String message = receiveMessage(connection);
+            if (chunked && ChunkVerifier.CHUNK_HASHES_REQUEST.equals(message)) {
+                sendChunkHashes(connection, awaitHashes(fileHashes));
+            } else if (chunked && message != null && message.startsWith(ChunkVerifier.REFETCH_PREFIX)) {
+                sendChunk(connection, message, throttle);
+            } else {
+                final FileHashes hashes = awaitHashes(fileHashes);
+                sendMessage(connection, chunked ? hashes.getRootHash() : hashes.getFileHash());
+                return;
+            }
+        }
     }
 
     /**
-     * Computes how many bytes of a file should be read next.
+     * Sends the amount of chunks, followed by each chunk's hash.
      *
-     * @return how many bytes to read next.
+     * @param connection - the connection to the client.
+     * @param hashes     - the file's hashes.
      */
-    private int getReadThreshold(final long leftFileSize) {
-        return Math.toIntExact(Math.min(leftFileSize, DEFAULT_BYTES));
+    private static void sendChunkHashes(@NonNull final Connection connection, @NonNull final FileHashes hashes) throws IOException {
+        final List<String> messages = new ArrayList<>(hashes.getChunkHashes().size() + 1);
+        messages.add(Integer.toString(hashes.getChunkHashes().size()));
+        for (final byte[] chunkHash : hashes.getChunkHashes()) {
+            messages.add(Hashing.toHex(chunkHash));
+        }
+        connection.sendMessages(messages);
+    }
+
+    /**
+     * Sends a single chunk of the file again.
+     *
+     * @param connection - the connection to the client.
+     * @param request    - the client's request, containing the chunk's index.
+     * @param throttle   - limits the client's rate.
+     */
+    private void sendChunk(
+            @NonNull final Connection connection,
+            @NonNull final String request,
+            @NonNull final Throttle throttle
+    ) throws IOException {
+        final long fileSize = fileChannel.size();
+        final long index;
+        try {
+            index = Long.parseLong(request.substring(ChunkVerifier.REFETCH_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new ProtocolException("Illegal chunk request: " + request);
+        }
+        if (index < 0 || index >= (fileSize + CHUNK_SIZE - 1) / CHUNK_SIZE) {
+            throw new ProtocolException("Illegal chunk request: " + request);
+        }
+        final long position = index * CHUNK_SIZE;
+        sendRegion(connection, position, Math.min(CHUNK_SIZE, fileSize - position), throttle, throttle.throttle(sent -> {
+        }));
+    }
+
+    /**
+     * Waits for hashes computed in the background.
+     *
+     * @param fileHashes - the pending hashes.
+     * @return the hashes.
+     */
+    @NonNull
+    private FileHashes awaitHashes(@NonNull final Future<FileHashes> fileHashes) throws IOException, NoSuchAlgorithmException {
+        try {
+            return fileHashes.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while hashing the file!");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof NoSuchAlgorithmException) throw (NoSuchAlgorithmException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Rethrows the error of a failed transfer in single client mode.
+     */
+    private void rethrowTransferError() throws IOException, NoSuchAlgorithmException {
+        final Exception error = transferError.get();
+        if (multiClient || error == null) return;
+        if (error instanceof NoSuchAlgorithmException) throw (NoSuchAlgorithmException) error;
+        if (error instanceof RuntimeException) throw (RuntimeException) error;
+        throw (IOException) error;
+    }
+
+    /**
+     * Updates the status of a client and shows it.
+     *
+     * @param clientName - the name the client's status is shown under.
+     * @param status     - the client's status.
+     */
+    private void setClientStatus(@NonNull final String clientName, @NonNull final String status) {
+        clientStatus.put(clientName, status);
+        showStatus();
+    }
+
+    /**
+     * Shows the status of the server and all of its clients.
+     */
+    private void showStatus() {
+        listener.onStatus(renderStatus());
+    }
+
+    /**
+     * Renders the status of the server and all of its clients, including the progress of running transfers.
+     *
+     * @return the rendered status.
+     */
+    @NonNull
+    private String renderStatus() {
+        final StringBuilder status = new StringBuilder(serverStatus);
+        synchronized (clientStatus) {
+            clientStatus.forEach((clientName, clientState) -> {
+                final TransferProgress progress = clientProgress.get(clientName);
+                status.append(String.format("%n%s: %s", clientName, progress != null ? progress.format() : clientState));
+            });
+        }
+        return status.toString();
+    }
+
+    /**
+     * Closes a socket, ignoring errors.
+     *
+     * @param closeable - the socket.
+     */
+    private static void closeQuietly(@NonNull final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // ignored
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,160 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static software.isratech.easy_file_transferer.Constants.ANNOUNCE_INTERVAL;
+import static software.isratech.easy_file_transferer.Constants.DISCOVERY_PORT;
+
+/**
+ * Announces a server on the local network by periodically broadcasting its port and file over UDP.
+ * Receivers listen for these announcements passively, so servers show up without any TCP connection.
+ * An announcement consists of the lines "EFT-ANNOUNCE", port, file size and file name.
+ */
+public class ServiceAnnouncer implements Closeable {
+
+    /**
+     * First line of every announcement.
+     */
+    private static final String ANNOUNCEMENT_HEADER = "EFT-ANNOUNCE";
+
+    /**
+     * Maximum size of an announcement.
+     */
+    private static final int MAX_ANNOUNCEMENT_SIZE = 1024;
+
+    /**
+     * The announcement sent by this announcer.
+     */
+    private final byte[] announcement;
+
+    /**
+     * Set once the announcer is closed.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * Creates an announcer for a server.
+     *
+     * @param port     - the server's port.
+     * @param fileName - the name of the file the server is sending.
+     * @param fileSize - the size of the file the server is sending.
+     */
+    public ServiceAnnouncer(final int port, @NonNull final String fileName, final long fileSize) {
+        this.announcement = String.join("\n", ANNOUNCEMENT_HEADER, Integer.toString(port), Long.toString(fileSize), fileName)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Starts announcing the server in the background until the announcer is closed.
+     * If broadcasting is not possible, the server can still be found by a network scan.
+     */
+    public void start() {
+        final Thread announcerThread = new Thread(this::announce, "service-announcer");
+        announcerThread.setDaemon(true);
+        announcerThread.start();
+    }
+
+    @Override
+    public void close() {
+        closed.set(true);
+    }
+
+    /**
+     * Broadcasts the announcement on every interface until the announcer is closed.
+     */
+    private void announce() {
+        try (final DatagramSocket socket = new DatagramSocket()) {
+            socket.setBroadcast(true);
+            while (!closed.get()) {
+                for (final InetAddress broadcastAddress : getBroadcastAddresses()) {
+                    try {
+                        socket.send(new DatagramPacket(announcement, announcement.length, broadcastAddress, DISCOVERY_PORT));
+                    } catch (IOException ignored) {
+                        // interface is down or does not allow broadcasts
+                    }
+                }
+                Thread.sleep(ANNOUNCE_INTERVAL);
+            }
+        } catch (IOException ignored) {
+            // broadcasting is not possible on this system
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Collects the broadcast addresses of all active interfaces.
+     *
+     * @return the broadcast addresses, or the limited broadcast address if none were found.
+     */
+    @NonNull
+    private static Set<InetAddress> getBroadcastAddresses() throws SocketException {
+        final Set<InetAddress> broadcastAddresses = new LinkedHashSet<>();
+        for (final NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+            if (!networkInterface.isUp() || networkInterface.isLoopback()) continue;
+            for (final InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+                if (interfaceAddress.getBroadcast() != null) broadcastAddresses.add(interfaceAddress.getBroadcast());
+            }
+        }
+        if (broadcastAddresses.isEmpty()) {
+            try {
+                broadcastAddresses.add(InetAddress.getByName("255.255.255.255"));
+            } catch (UnknownHostException ignored) {
+                // cannot happen for a literal address
+            }
+        }
+        return broadcastAddresses;
+    }
+
+    /**
+     * Listens for announcements of servers until stopped.
+     *
+     * @param stopListening - used to stop listening.
+     * @param onServerFound - called with every server that announced itself.
+     */
+    public static void listen(
+            @NonNull final AtomicBoolean stopListening,
+            @NonNull final Consumer<DiscoveredServer> onServerFound
+    ) throws IOException {
+        try (final DatagramSocket socket = new DatagramSocket(null)) {
+            socket.setReuseAddress(true);
+            socket.setSoTimeout(Math.toIntExact(ANNOUNCE_INTERVAL));
+            socket.bind(new InetSocketAddress(DISCOVERY_PORT));
+            final byte[] buffer = new byte[MAX_ANNOUNCEMENT_SIZE];
+            while (!stopListening.get()) {
+                final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                try {
+                    socket.receive(packet);
+                } catch (SocketTimeoutException e) {
+                    continue;
+                }
+                final DiscoveredServer server = parseAnnouncement(packet);
+                if (server != null) onServerFound.accept(server);
+            }
+        }
+    }
+
+    /**
+     * Parses a received announcement.
+     *
+     * @param packet - the received packet.
+     * @return the announced server, or null if the packet is not an announcement.
+     */
+    private static DiscoveredServer parseAnnouncement(@NonNull final DatagramPacket packet) {
+        final String[] lines = new String(packet.getData(), packet.getOffset(), packet.getLength(), StandardCharsets.UTF_8).split("\n", 4);
+        if (lines.length != 4 || !ANNOUNCEMENT_HEADER.equals(lines[0])) return null;
+        try {
+            return new DiscoveredServer(packet.getAddress().getHostAddress(), Integer.parseInt(lines[1]), lines[3], Long.parseLong(lines[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies {@link TuningProfile}s to sockets.
+ * Options the system rejects are skipped, the transfer then simply runs with the system's defaults.
+ * Buffers are only raised if the system allows their whole size. Systems cap buffers silently, e.g. Linux to
+ * net.core.rmem_max, and any explicit buffer turns off the kernel's automatic tuning for good, so a capped buffer would
+ * end up far smaller than the one the kernel grows on its own.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class SocketTuning {
+
+    /**
+     * Whether the system allows receive buffers of a size, by size.
+     */
+    private static final Map<Integer, Boolean> ALLOWED_RECEIVE_BUFFER_SIZES = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the system allows send buffers of a size, by size.
+     */
+    private static final Map<Integer, Boolean> ALLOWED_SEND_BUFFER_SIZES = new ConcurrentHashMap<>();
+
+    /**
+     * Applies a profile to a socket.
+     * Should be called before connecting, so the receive buffer is taken into account for the window scale.
+     * Connected sockets can still be tuned, e.g. once the link was measured, but may not use all of a larger
+     * receive buffer.
+     *
+     * @param socket  - the socket.
+     * @param profile - the profile.
+     */
+    public static void configure(@NonNull final Socket socket, @NonNull final TuningProfile profile) {
+        try {
+            if (shouldRaise(socket.getReceiveBufferSize(), profile.getReceiveBufferSize(), true)) {
+                socket.setReceiveBufferSize(profile.getReceiveBufferSize());
+            }
+            if (shouldRaise(socket.getSendBufferSize(), profile.getSendBufferSize(), false)) {
+                socket.setSendBufferSize(profile.getSendBufferSize());
+            }
+            if (profile.isControlNoDelay()) {
+                socket.setTcpNoDelay(true);
+            }
+        } catch (SocketException e) {
+            // the socket keeps the system's defaults
+        }
+    }
+
+    /**
+     * Applies a profile's receive buffer to a server socket before it is bound, so accepted sockets inherit it.
+     *
+     * @param serverSocket - the unbound server socket.
+     * @param profile      - the profile.
+     */
+    public static void configure(@NonNull final ServerSocket serverSocket, @NonNull final TuningProfile profile) {
+        try {
+            if (shouldRaise(serverSocket.getReceiveBufferSize(), profile.getReceiveBufferSize(), true)) {
+                serverSocket.setReceiveBufferSize(profile.getReceiveBufferSize());
+            }
+        } catch (SocketException e) {
+            // accepted sockets keep the system's defaults
+        }
+    }
+
+    /**
+     * Measures the throughput of the data sent so far and picks the profile for the rest of the transfer.
+     *
+     * @param profile        - the configured profile.
+     * @param socket         - the socket the data was sent over, tuned with the picked profile.
+     * @param roundTripNanos - the link's round trip time in nanoseconds, negative if unknown.
+     * @param bytes          - the amount of bytes sent.
+     * @param elapsedNanos   - how long sending them took, in nanoseconds.
+     * @return the picked profile.
+     */
+    @NonNull
+    public static TuningProfile tune(
+            @NonNull final TuningProfile profile,
+            @NonNull final Socket socket,
+            final long roundTripNanos,
+            final long bytes,
+            final long elapsedNanos
+    ) {
+        final double bytesPerSecond = elapsedNanos > 0 ? bytes * 1e9 / elapsedNanos : 0d;
+        final TuningProfile tunedProfile = profile.resolve(roundTripNanos, bytesPerSecond);
+        configure(socket, tunedProfile);
+        return tunedProfile;
+    }
+
+    /**
+     * Checks whether a socket's buffer should be raised to a profile's size.
+     *
+     * @param currentSize   - the buffer's current size.
+     * @param size          - the profile's size, 0 for the system's default.
+     * @param receiveBuffer - whether the receive buffer is raised, otherwise the send buffer.
+     * @return whether the buffer is smaller and the system allows the profile's whole size.
+     */
+    private static boolean shouldRaise(final int currentSize, final int size, final boolean receiveBuffer) {
+        if (size <= 0 || currentSize >= size) return false;
+        final Map<Integer, Boolean> allowedSizes = receiveBuffer ? ALLOWED_RECEIVE_BUFFER_SIZES : ALLOWED_SEND_BUFFER_SIZES;
+        return allowedSizes.computeIfAbsent(size, unused -> isAllowed(size, receiveBuffer));
+    }
+
+    /**
+     * Checks on a throwaway socket whether the system allows a buffer size, since raising the buffer of the real
+     * socket cannot be undone. Systems may report more than was asked for, e.g. Linux twice the size, so a buffer
+     * is only considered capped if asking for one byte less does not shrink it.
+     *
+     * @param size          - the buffer's size.
+     * @param receiveBuffer - whether the receive buffer is checked, otherwise the send buffer.
+     * @return whether the system kept the whole size.
+     */
+    private static boolean isAllowed(final int size, final boolean receiveBuffer) {
+        try (final Socket socket = new Socket()) {
+            if (receiveBuffer) {
+                socket.setReceiveBufferSize(size - 1);
+                final int smallerSize = socket.getReceiveBufferSize();
+                socket.setReceiveBufferSize(size);
+                return socket.getReceiveBufferSize() >= size && socket.getReceiveBufferSize() > smallerSize;
+            }
+            socket.setSendBufferSize(size - 1);
+            final int smallerSize = socket.getSendBufferSize();
+            socket.setSendBufferSize(size);
+            return socket.getSendBufferSize() >= size && socket.getSendBufferSize() > smallerSize;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
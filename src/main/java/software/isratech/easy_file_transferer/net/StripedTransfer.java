@@ -0,0 +1,248 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.*;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import static software.isratech.easy_file_transferer.Constants.STRIPE_ACCEPT_TIMEOUT;
+import static software.isratech.easy_file_transferer.net.Communication.sendMessage;
+
+/**
+ * Transfers a file over several parallel connections, each of which carries one range (stripe) of the file.
+ * The stripes are written with positional writes, so the receiver never has to reassemble them.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class StripedTransfer {
+
+    /**
+     * Computes the range of the file carried by a stripe.
+     * All stripes but the first start at a multiple of the alignment, so no chunk of the file spans two stripes.
+     *
+     * @param offset    - the offset the transfer starts at.
+     * @param fileSize  - the size of the file.
+     * @param streams   - the amount of stripes.
+     * @param index     - the stripe's index.
+     * @param alignment - the stripes' alignment, 1 if they need none.
+     * @return the stripe's position and length.
+     */
+    @NonNull
+    static long[] getStripeRange(final long offset, final long fileSize, final int streams, final int index, final int alignment) {
+        final long remaining = fileSize - offset;
+        final long stripeLength = (remaining + streams - 1) / streams;
+        final long position = index == 0 ? offset : Math.min(fileSize, alignUp(offset + index * stripeLength, alignment));
+        final long end = Math.min(fileSize, alignUp(offset + (index + 1) * stripeLength, alignment));
+        return new long[]{position, Math.max(0L, end - position)};
+    }
+
+    /**
+     * @param position  - a position in the file.
+     * @param alignment - the alignment.
+     * @return the next multiple of the alignment.
+     */
+    private static long alignUp(final long position, final int alignment) {
+        return (position + alignment - 1) / alignment * alignment;
+    }
+
+    /**
+     * Sends each of the client's additional connections its stripe of the file.
+     *
+     * @param stripeQueue - receives the client's additional connections once they were accepted.
+     * @param fileChannel - the file to send.
+     * @param streams     - the amount of stripes.
+     * @param offset      - the offset the transfer starts at.
+     * @param alignment   - the stripes' alignment, 1 if they need none.
+     * @param profile     - the tuning profile of the connections.
+     * @param onProgress  - called with the amount of bytes sent over all stripes so far.
+     */
+    public static void send(
+            @NonNull final BlockingQueue<Stripe> stripeQueue,
+            @NonNull final FileChannel fileChannel,
+            final int streams,
+            final long offset,
+            final int alignment,
+            @NonNull final TuningProfile profile,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        final long fileSize = fileChannel.size();
+        final AtomicLong totalSent = new AtomicLong();
+        final ExecutorService executorService = Executors.newFixedThreadPool(streams);
+        final Map<Integer, Socket> stripeSockets = new HashMap<>();
+        final List<Future<Void>> stripes = new ArrayList<>();
+        try {
+            while (stripes.size() < streams) {
+                final Stripe stripe = awaitStripe(stripeQueue);
+                if (stripe.getIndex() >= streams || stripeSockets.containsKey(stripe.getIndex())) {
+                    stripe.getSocket().close();
+                    continue;
+                }
+                final Socket stripeSocket = stripe.getSocket();
+                stripeSockets.put(stripe.getIndex(), stripeSocket);
+                SocketTuning.configure(stripeSocket, profile);
+                final long[] range = getStripeRange(offset, fileSize, streams, stripe.getIndex(), alignment);
+                stripes.add(executorService.submit(() -> {
+                    final WritableByteChannel target = stripeSocket.getChannel() != null
+                            ? stripeSocket.getChannel()
+                            : Channels.newChannel(stripeSocket.getOutputStream());
+                    TransferEngine.sendFile(fileChannel, target, range[0], range[1], profile.getIoChunkSize(), progressOf(totalSent, onProgress));
+                    return null;
+                }));
+            }
+            awaitStripes(stripes);
+        } finally {
+            executorService.shutdownNow();
+            for (final Socket stripeSocket : stripeSockets.values()) {
+                stripeSocket.close();
+            }
+        }
+    }
+
+    /**
+     * Opens the additional connections of a striped transfer and receives each stripe into the file.
+     * If the file is verified in chunks, the stripes are aligned to the chunks and each stripe hashes its own chunks.
+     *
+     * @param socketAddress - the server's address.
+     * @param fileChannel   - the file to write to.
+     * @param sessionId     - the transfer's session id.
+     * @param streams       - the amount of stripes.
+     * @param offset        - the offset the transfer starts at.
+     * @param fileSize      - the size of the file.
+     * @param chunkVerifier - verifies the file's chunks, or null.
+     * @param profile       - the tuning profile of the connections, applied before they connect.
+     * @param onProgress    - called with the amount of bytes received over all stripes so far.
+     */
+    public static void receive(
+            @NonNull final SocketAddress socketAddress,
+            @NonNull final FileChannel fileChannel,
+            @NonNull final String sessionId,
+            final int streams,
+            final long offset,
+            final long fileSize,
+            final ChunkVerifier chunkVerifier,
+            @NonNull final TuningProfile profile,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        final int alignment = chunkVerifier != null ? chunkVerifier.getChunkSize() : 1;
+        final AtomicLong totalReceived = new AtomicLong();
+        final ExecutorService executorService = Executors.newFixedThreadPool(streams);
+        final List<Future<Void>> stripes = new ArrayList<>();
+        try {
+            for (int i = 0; i < streams; i++) {
+                final int index = i;
+                final long[] range = getStripeRange(offset, fileSize, streams, index, alignment);
+                stripes.add(executorService.submit(() -> {
+                    try (final SocketChannel socketChannel = SocketChannel.open()) {
+                        SocketTuning.configure(socketChannel.socket(), profile);
+                        socketChannel.connect(socketAddress);
+                        sendMessage(new Connection(socketChannel.socket()), String.format("%s:%s:%s", ProtocolExtensions.STRIPE, sessionId, index));
+                        if (chunkVerifier != null) {
+                            TransferEngine.receiveFile(socketChannel, fileChannel, range[0], range[1],
+                                    chunkVerifier.hasherAt(fileChannel, range[0]), progressOf(totalReceived, onProgress));
+                        } else {
+                            TransferEngine.receiveFile(socketChannel, fileChannel, range[0], range[1], progressOf(totalReceived, onProgress));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            awaitStripes(stripes);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses the first message of a connection, which identifies it as an additional connection of a striped transfer.
+     *
+     * @param message - the connection's first message.
+     * @param socket  - the connection's socket.
+     * @return the stripe, or null if the message is not a stripe request.
+     */
+    public static Stripe parseStripe(final String message, @NonNull final Socket socket) {
+        if (message == null) return null;
+        final String[] parts = message.split(":");
+        if (parts.length != 3 || !ProtocolExtensions.STRIPE.equalsIgnoreCase(parts[0])) return null;
+        try {
+            final int index = Integer.parseInt(parts[2]);
+            return index >= 0 ? new Stripe(parts[1], index, socket) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Waits for the client's next additional connection.
+     *
+     * @param stripeQueue - the queue accepted connections are put into.
+     * @return the next stripe.
+     */
+    @NonNull
+    private static Stripe awaitStripe(@NonNull final BlockingQueue<Stripe> stripeQueue) throws IOException {
+        try {
+            final Stripe stripe = stripeQueue.poll(STRIPE_ACCEPT_TIMEOUT, TimeUnit.MILLISECONDS);
+            if (stripe == null) throw new IOException("Client did not open its parallel connections in time!");
+            return stripe;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for parallel connections!");
+        }
+    }
+
+    /**
+     * Converts the progress of a single stripe into the progress of the whole transfer.
+     *
+     * @param total      - the amount of bytes transferred over all stripes.
+     * @param onProgress - called with the total.
+     * @return the stripe's progress consumer.
+     */
+    @NonNull
+    private static LongConsumer progressOf(@NonNull final AtomicLong total, @NonNull final LongConsumer onProgress) {
+        final long[] lastTransferred = {0L};
+        return transferred -> {
+            onProgress.accept(total.addAndGet(transferred - lastTransferred[0]));
+            lastTransferred[0] = transferred;
+        };
+    }
+
+    /**
+     * Waits until all stripes are transferred.
+     *
+     * @param stripes - the pending stripes.
+     */
+    private static void awaitStripes(@NonNull final List<Future<Void>> stripes) throws IOException {
+        try {
+            for (final Future<Void> stripe : stripes) {
+                stripe.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while transferring the file!");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * An additional connection of a striped transfer.
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Stripe {
+        private final String sessionId;
+        private final int index;
+        private final Socket socket;
+    }
+}
@@ -0,0 +1,203 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.metrics.DiscoveryEvent;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static software.isratech.easy_file_transferer.Constants.SCAN_TIMEOUT;
+
+/**
+ * Scans a /24 subnet for servers by probing all of its hosts at once.
+ * Every host gets a non-blocking connection, all of which are multiplexed on a single selector, so a whole
+ * subnet takes no longer than the slowest host that answers within {@link software.isratech.easy_file_transferer.Constants#SCAN_TIMEOUT}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class SubnetScanner {
+
+    /**
+     * Ping sent to every host that accepts the connection.
+     */
+    private static final ByteBuffer PING = ByteBuffer.wrap("PING\n".getBytes(StandardCharsets.UTF_8));
+
+    /**
+     * Expected reply of a server.
+     */
+    private static final String REPLY = "REPLY";
+
+    /**
+     * Interval in which the stop flag is checked, in milliseconds.
+     */
+    private static final long SELECT_INTERVAL = 50L;
+
+    /**
+     * Probes all hosts of a subnet. Recorded as a {@link DiscoveryEvent}.
+     *
+     * @param subnet         - the first three octets of the subnet, followed by a dot.
+     * @param port           - the port to probe.
+     * @param stopScanning   - used to stop scanning early.
+     * @param onServerFound  - called with the address of every server as soon as it replied.
+     */
+    public static void scan(
+            @NonNull final String subnet,
+            final int port,
+            @NonNull final AtomicBoolean stopScanning,
+            @NonNull final Consumer<String> onServerFound
+    ) throws IOException {
+        final DiscoveryEvent event = new DiscoveryEvent();
+        event.begin();
+        final AtomicInteger serversFound = new AtomicInteger();
+        try (final Selector selector = Selector.open()) {
+            for (int i = 0; i < 256; i++) {
+                startProbe(selector, subnet + i, port);
+            }
+            final long deadline = System.currentTimeMillis() + SCAN_TIMEOUT;
+            long remaining = SCAN_TIMEOUT;
+            while (remaining > 0 && !stopScanning.get() && !selector.keys().isEmpty()) {
+                selector.select(Math.min(remaining, SELECT_INTERVAL));
+                final Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    final SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    handleProbe(key, hostName -> {
+                        serversFound.incrementAndGet();
+                        onServerFound.accept(hostName);
+                    });
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+            for (final SelectionKey key : selector.keys()) {
+                closeProbe(key);
+            }
+        }
+        event.setSubnet(subnet);
+        event.setPort(port);
+        event.setServersFound(serversFound.get());
+        event.commit();
+    }
+
+    /**
+     * Starts connecting to a host without waiting for the connection to be established.
+     *
+     * @param selector - the selector the connection is registered with.
+     * @param hostName - the host's address.
+     * @param port     - the port to connect to.
+     */
+    private static void startProbe(@NonNull final Selector selector, @NonNull final String hostName, final int port) {
+        SocketChannel socketChannel = null;
+        try {
+            socketChannel = SocketChannel.open();
+            socketChannel.configureBlocking(false);
+            final Probe probe = new Probe(hostName);
+            if (socketChannel.connect(new InetSocketAddress(hostName, port))) {
+                socketChannel.register(selector, SelectionKey.OP_WRITE, probe);
+            } else {
+                socketChannel.register(selector, SelectionKey.OP_CONNECT, probe);
+            }
+        } catch (IOException e) {
+            if (socketChannel != null) {
+                try {
+                    socketChannel.close();
+                } catch (IOException ignored) {
+                    // ignored
+                }
+            }
+        }
+    }
+
+    /**
+     * Advances a probe: finishes connecting, sends the ping and reads the reply.
+     *
+     * @param key           - the probe's selection key.
+     * @param onServerFound - called with the host's address if it replied like a server.
+     */
+    private static void handleProbe(@NonNull final SelectionKey key, @NonNull final Consumer<String> onServerFound) {
+        final SocketChannel socketChannel = (SocketChannel) key.channel();
+        final Probe probe = (Probe) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                socketChannel.finishConnect();
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if (key.isWritable()) {
+                socketChannel.write(probe.ping);
+                if (!probe.ping.hasRemaining()) key.interestOps(SelectionKey.OP_READ);
+            } else if (key.isReadable()) {
+                if (socketChannel.read(probe.reply) == -1 || !probe.reply.hasRemaining() || probe.hasReplied()) {
+                    if (probe.isServer()) onServerFound.accept(probe.hostName);
+                    closeProbe(key);
+                }
+            }
+        } catch (IOException e) {
+            closeProbe(key);
+        }
+    }
+
+    /**
+     * Cancels a probe and closes its connection.
+     *
+     * @param key - the probe's selection key.
+     */
+    private static void closeProbe(@NonNull final SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // ignored
+        }
+    }
+
+    /**
+     * State of a single host's probe.
+     */
+    private static class Probe {
+
+        /**
+         * The host's address.
+         */
+        private final String hostName;
+
+        /**
+         * Remaining part of the ping.
+         */
+        private final ByteBuffer ping = PING.duplicate();
+
+        /**
+         * Reply received so far.
+         */
+        private final ByteBuffer reply = ByteBuffer.allocate(REPLY.length() + 2);
+
+        private Probe(@NonNull final String hostName) {
+            this.hostName = hostName;
+        }
+
+        /**
+         * @return whether a full line was received.
+         */
+        private boolean hasReplied() {
+            for (int i = 0; i < reply.position(); i++) {
+                if (reply.get(i) == '\n') return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return whether the received line is a server's reply.
+         */
+        private boolean isServer() {
+            final String line = new String(reply.array(), 0, reply.position(), StandardCharsets.UTF_8);
+            return REPLY.equalsIgnoreCase(line.split("\\R", 2)[0].trim());
+        }
+    }
+}
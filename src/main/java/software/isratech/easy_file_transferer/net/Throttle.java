@@ -0,0 +1,162 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import static software.isratech.easy_file_transferer.Constants.MIN_IO_CHUNK_SIZE;
+import static software.isratech.easy_file_transferer.Constants.THROTTLE_BURST_TIME;
+
+/**
+ * Limits the rate of a single transfer with a token bucket.
+ * Every transfer has its own limit, and all open throttles share the global limit in equal parts, so concurrent
+ * transfers get a fair share of a capped link. The bucket is kept as the time at which it will be full again,
+ * which a single compare-and-set updates per I/O cycle, so throttling adds no locks and no work per byte.
+ * Transfers take tokens after moving data, through their progress callbacks, so every path is throttled
+ * without touching its channels.
+ */
+public class Throttle implements Closeable {
+
+    /**
+     * Length of the bucket, in nanoseconds of sending at the limit.
+     */
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(THROTTLE_BURST_TIME);
+
+    /**
+     * Limit shared by all transfers in bytes per second, 0 if unlimited.
+     */
+    @Getter
+    private static volatile long globalLimit = 0L;
+
+    /**
+     * Amount of open throttles, which share the global limit.
+     */
+    private static final AtomicInteger OPEN_THROTTLES = new AtomicInteger();
+
+    /**
+     * Limit of this transfer in bytes per second, 0 if unlimited.
+     */
+    @Getter
+    private final long limit;
+
+    /**
+     * The time, in {@link System#nanoTime()}, at which all tokens taken so far were paid for.
+     */
+    private final AtomicLong paidUntil = new AtomicLong(System.nanoTime());
+
+    /**
+     * Whether the throttle was closed.
+     */
+    private boolean closed = false;
+
+    /**
+     * @param limit - limit of the transfer in bytes per second, 0 if unlimited.
+     */
+    private Throttle(final long limit) {
+        this.limit = Math.max(0L, limit);
+    }
+
+    /**
+     * Opens the throttle of a transfer, which takes its share of the global limit until it is closed.
+     *
+     * @param limit - limit of the transfer in bytes per second, 0 if unlimited.
+     * @return the throttle.
+     */
+    @NonNull
+    public static Throttle open(final long limit) {
+        OPEN_THROTTLES.incrementAndGet();
+        return new Throttle(limit);
+    }
+
+    /**
+     * Sets the limit shared by all transfers, which also applies to transfers that are already running.
+     *
+     * @param limit - the limit in bytes per second, 0 if unlimited.
+     */
+    public static void setGlobalLimit(final long limit) {
+        globalLimit = Math.max(0L, limit);
+    }
+
+    /**
+     * @return the rate this transfer may currently use in bytes per second, 0 if unlimited.
+     */
+    public long getRate() {
+        final long global = globalLimit;
+        final long share = global > 0L ? Math.max(1L, global / Math.max(1, OPEN_THROTTLES.get())) : 0L;
+        if (limit == 0L) return share;
+        return share == 0L ? limit : Math.min(limit, share);
+    }
+
+    /**
+     * Limits a chunk size to what the bucket holds, so throttled transfers send in small bursts.
+     *
+     * @param chunkSize - the chunk size.
+     * @return the limited chunk size.
+     */
+    public int limitChunkSize(final int chunkSize) {
+        final long rate = getRate();
+        if (rate == 0L) return chunkSize;
+        final long burst = Math.max(MIN_IO_CHUNK_SIZE, rate * THROTTLE_BURST_TIME / 1000L);
+        return (int) Math.min(chunkSize, burst);
+    }
+
+    /**
+     * Takes tokens for data that was moved, waiting until the rate allows it.
+     *
+     * @param bytes - the amount of bytes moved.
+     */
+    public void acquire(final long bytes) throws InterruptedIOException {
+        final long rate = getRate();
+        if (rate == 0L || bytes <= 0L) return;
+        final long cost = (long) (bytes * 1e9 / rate);
+        final long now = System.nanoTime();
+        // a bucket that was idle for longer than the burst is full, which allows at most one burst right away
+        final long paid = paidUntil.accumulateAndGet(now - BURST_NANOS, (current, floor) -> Math.max(current, floor) + cost);
+        final long waitNanos = paid - now;
+        if (waitNanos <= 0L) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while throttled!");
+        }
+    }
+
+    /**
+     * Throttles a transfer through its progress callback.
+     * Safe to use from the several threads of a striped transfer.
+     *
+     * @param onProgress - called with the amount of bytes moved so far.
+     * @return a callback, which waits until the rate allows the bytes moved since its last call, then calls the
+     * given callback.
+     */
+    @NonNull
+    public LongConsumer throttle(@NonNull final LongConsumer onProgress) {
+        final AtomicLong acquired = new AtomicLong();
+        return moved -> {
+            final long previouslyAcquired = acquired.getAndAccumulate(moved, Math::max);
+            try {
+                acquire(moved - previouslyAcquired);
+            } catch (InterruptedIOException e) {
+                // the transfer continues unthrottled, its thread stays interrupted
+            }
+            onProgress.accept(moved);
+        };
+    }
+
+    /**
+     * Gives up this transfer's share of the global limit.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        OPEN_THROTTLES.decrementAndGet();
+    }
+}
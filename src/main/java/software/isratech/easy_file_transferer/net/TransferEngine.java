@@ -0,0 +1,295 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.metrics.DataTransferEvent;
+import software.isratech.easy_file_transferer.metrics.TransferMetrics;
+import software.isratech.easy_file_transferer.utils.PipelinedReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import static software.isratech.easy_file_transferer.Constants.DEFAULT_BYTES;
+import static software.isratech.easy_file_transferer.Constants.PIPELINE_BUFFER_SIZE;
+
+/**
+ * Moves file data between the disk and sockets using NIO channels.
+ * Every region moved is recorded as a {@link DataTransferEvent} and every blocking call in {@link TransferMetrics}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TransferEngine {
+
+    /**
+     * Sends a region of a file using {@link FileChannel#transferTo}.
+     * When the target is a socket channel, the kernel copies the data straight from the page cache
+     * to the socket (sendfile), so the file's content never passes through the java heap.
+     * Other targets cannot use sendfile, so larger regions are sent through a {@link PipelinedReader} instead,
+     * which reads the next buffers from the disk while the current one is being written.
+     *
+     * @param fileChannel - the file to send.
+     * @param target      - the channel to send the file to.
+     * @param position    - the offset in the file to start sending from.
+     * @param count       - the amount of bytes to send.
+     * @param onProgress  - called with the amount of bytes sent so far after each cycle.
+     */
+    public static void sendFile(
+            @NonNull final FileChannel fileChannel,
+            @NonNull final WritableByteChannel target,
+            final long position,
+            final long count,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        sendFile(fileChannel, target, position, count, DEFAULT_BYTES, onProgress);
+    }
+
+    /**
+     * Sends a region of a file, moving at most the given amount of bytes per cycle.
+     * Larger cycles mean fewer calls into the kernel, smaller ones more frequent progress updates, so the amount
+     * per cycle adapts to the observed throughput, see {@link AdaptiveChunkSize}.
+     *
+     * @param fileChannel - the file to send.
+     * @param target      - the channel to send the file to.
+     * @param position    - the offset in the file to start sending from.
+     * @param count       - the amount of bytes to send.
+     * @param chunkSize   - the maximum amount of bytes per cycle.
+     * @param onProgress  - called with the amount of bytes sent so far after each cycle.
+     */
+    public static void sendFile(
+            @NonNull final FileChannel fileChannel,
+            @NonNull final WritableByteChannel target,
+            final long position,
+            final long count,
+            final int chunkSize,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        if (!(target instanceof SocketChannel) && !(target instanceof FileChannel) && count >= 2L * PIPELINE_BUFFER_SIZE) {
+            sendPipelined(fileChannel, target, position, count, onProgress);
+            return;
+        }
+        final DataTransferEvent event = beginEvent("sendfile", position, count);
+        final AdaptiveChunkSize adaptiveChunkSize = new AdaptiveChunkSize(chunkSize);
+        long sent = 0L;
+        while (sent < count) {
+            final long currentPosition = position + sent;
+            if (currentPosition >= fileChannel.size()) {
+                throw new EOFException("File was truncated while sending!");
+            }
+            final long startNanos = System.nanoTime();
+            final long transferred = fileChannel.transferTo(currentPosition, adaptiveChunkSize.next(count - sent), target);
+            TransferMetrics.recordSendfile(startNanos, transferred);
+            adaptiveChunkSize.record(transferred, System.nanoTime() - startNanos);
+            sent += transferred;
+            onProgress.accept(sent);
+        }
+        commitEvent(event, adaptiveChunkSize);
+    }
+
+    /**
+     * Sends a region of a file, reading it on a separate thread, so the disk and the network work at the same time.
+     *
+     * @param fileChannel - the file to send.
+     * @param target      - the channel to send the file to.
+     * @param position    - the offset in the file to start sending from.
+     * @param count       - the amount of bytes to send.
+     * @param onProgress  - called with the amount of bytes sent so far after each buffer.
+     */
+    private static void sendPipelined(
+            @NonNull final FileChannel fileChannel,
+            @NonNull final WritableByteChannel target,
+            final long position,
+            final long count,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        final DataTransferEvent event = beginEvent("pipelined", position, count);
+        try (final PipelinedReader pipelinedReader = new PipelinedReader(fileChannel, position, count)) {
+            long sent = 0L;
+            ByteBuffer buffer;
+            while ((buffer = pipelinedReader.take()) != null) {
+                while (buffer.hasRemaining()) {
+                    sent += write(target, buffer);
+                }
+                pipelinedReader.release(buffer);
+                onProgress.accept(sent);
+            }
+        }
+        event.commit();
+    }
+
+    /**
+     * Receives data from a channel and writes it straight into a file, starting at the given position.
+     *
+     * @param source      - the channel to read the data from.
+     * @param fileChannel - the file to write the data to.
+     * @param position    - the offset in the file to start writing at.
+     * @param count       - the amount of bytes to receive.
+     * @param onProgress  - called with the amount of bytes received so far after each cycle.
+     */
+    public static void receiveFile(
+            @NonNull final ReadableByteChannel source,
+            @NonNull final FileChannel fileChannel,
+            final long position,
+            final long count,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        receive(source, fileChannel, position, count, null, onProgress);
+    }
+
+    /**
+     * Receives data from a channel and writes it straight into a file, starting at the given position.
+     * The data is read into a pooled direct buffer, so no memory is allocated per chunk.
+     * Every chunk updates the given digest before it is written, so the hash is ready once the last byte arrived.
+     *
+     * @param source        - the channel to read the data from.
+     * @param fileChannel   - the file to write the data to.
+     * @param position      - the offset in the file to start writing at.
+     * @param count         - the amount of bytes to receive.
+     * @param messageDigest - the digest to update with the received data.
+     * @param onProgress    - called with the amount of bytes received so far after each cycle.
+     */
+    public static void receiveFile(
+            @NonNull final ReadableByteChannel source,
+            @NonNull final FileChannel fileChannel,
+            final long position,
+            final long count,
+            @NonNull final MessageDigest messageDigest,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        receive(source, fileChannel, position, count, messageDigest::update, onProgress);
+    }
+
+    /**
+     * Receives data from a channel and writes it straight into a file, starting at the given position.
+     * Every chunk is hashed by the given hasher before it is written, so each of the file's chunks can be
+     * verified once its last byte arrived.
+     *
+     * @param source      - the channel to read the data from.
+     * @param fileChannel - the file to write the data to.
+     * @param position    - the offset in the file to start writing at.
+     * @param count       - the amount of bytes to receive.
+     * @param hasher      - the hasher to update with the received data.
+     * @param onProgress  - called with the amount of bytes received so far after each cycle.
+     */
+    public static void receiveFile(
+            @NonNull final ReadableByteChannel source,
+            @NonNull final FileChannel fileChannel,
+            final long position,
+            final long count,
+            @NonNull final ChunkVerifier.Hasher hasher,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        receive(source, fileChannel, position, count, hasher::update, onProgress);
+    }
+
+    /**
+     * Receives data from a channel into a pooled direct buffer and writes it to a file.
+     * The buffer is only as large as the data, up to the pool's largest size, and the amount per cycle adapts to the
+     * observed throughput within the buffer, see {@link AdaptiveChunkSize}.
+     *
+     * @param source        - the channel to read the data from.
+     * @param fileChannel   - the file to write the data to.
+     * @param position      - the offset in the file to start writing at.
+     * @param count         - the amount of bytes to receive.
+     * @param onData        - called with every chunk before it is written, or null.
+     * @param onProgress    - called with the amount of bytes received so far after each cycle.
+     */
+    private static void receive(
+            @NonNull final ReadableByteChannel source,
+            @NonNull final FileChannel fileChannel,
+            final long position,
+            final long count,
+            final Consumer<ByteBuffer> onData,
+            @NonNull final LongConsumer onProgress
+    ) throws IOException {
+        final DataTransferEvent event = beginEvent("receive", position, count);
+        // compressed data is recorded by the inflating channel as it is read from the socket
+        final boolean recordReads = !(source instanceof InflatingChannel);
+        final ByteBuffer buffer = BufferPool.acquire(count);
+        final AdaptiveChunkSize adaptiveChunkSize = new AdaptiveChunkSize(buffer.capacity());
+        try {
+            long received = 0L;
+            while (received < count) {
+                final long cycleNanos = System.nanoTime();
+                buffer.clear();
+                buffer.limit(adaptiveChunkSize.next(count - received));
+                while (buffer.hasRemaining()) {
+                    final long readNanos = System.nanoTime();
+                    final int read = source.read(buffer);
+                    if (recordReads) TransferMetrics.recordSocketRead(readNanos, read);
+                    if (read == -1) {
+                        throw new EOFException("Connection closed before the file was received!");
+                    }
+                }
+                buffer.flip();
+                if (onData != null) {
+                    final long hashNanos = System.nanoTime();
+                    onData.accept(buffer);
+                    TransferMetrics.recordHashing(hashNanos, buffer.limit());
+                    buffer.rewind();
+                }
+                while (buffer.hasRemaining()) {
+                    final long writeNanos = System.nanoTime();
+                    final int written = fileChannel.write(buffer, position + received);
+                    TransferMetrics.recordDiskWrite(writeNanos, written);
+                    received += written;
+                }
+                adaptiveChunkSize.record(buffer.limit(), System.nanoTime() - cycleNanos);
+                onProgress.accept(received);
+            }
+        } finally {
+            BufferPool.release(buffer);
+        }
+        commitEvent(event, adaptiveChunkSize);
+    }
+
+    /**
+     * Writes a buffer to a channel once, recording the write.
+     *
+     * @param target - the channel.
+     * @param buffer - the buffer.
+     * @return the amount of bytes written.
+     */
+    private static int write(@NonNull final WritableByteChannel target, @NonNull final ByteBuffer buffer) throws IOException {
+        final long startNanos = System.nanoTime();
+        final int written = target.write(buffer);
+        TransferMetrics.recordSocketWrite(startNanos, written);
+        return written;
+    }
+
+    /**
+     * Starts the flight recorder event of moving a region.
+     *
+     * @param method   - how the region is moved.
+     * @param position - the offset of the region.
+     * @param count    - the length of the region.
+     * @return the started event.
+     */
+    @NonNull
+    private static DataTransferEvent beginEvent(@NonNull final String method, final long position, final long count) {
+        final DataTransferEvent event = new DataTransferEvent();
+        event.setMethod(method);
+        event.setPosition(position);
+        event.setBytes(count);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commits the flight recorder event of moving a region.
+     *
+     * @param event             - the event.
+     * @param adaptiveChunkSize - the region's chunk size at the end.
+     */
+    private static void commitEvent(@NonNull final DataTransferEvent event, @NonNull final AdaptiveChunkSize adaptiveChunkSize) {
+        event.setChunkSize(adaptiveChunkSize.getSize());
+        event.commit();
+    }
+}
@@ -0,0 +1,42 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.NonNull;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Receives the status of a transfer, so transfers can run with or without a user interface.
+ * The methods are called from the transfer's threads, implementations hand the updates to their own thread if needed.
+ */
+public interface TransferListener {
+
+    /**
+     * Called whenever the status of the transfer changed, up to several times per second while data is transferred.
+     *
+     * @param status - the whole status, one line per step.
+     */
+    void onStatus(@NonNull String status);
+
+    /**
+     * Called while a client connects to a server.
+     *
+     * @param status - the connection's status.
+     */
+    default void onConnectionStatus(@NonNull final String status) {
+    }
+
+    /**
+     * Called once the transfer completed and the hashes of both sides matched.
+     */
+    default void onComplete() {
+    }
+
+    /**
+     * Called on the client if the hash of the received files does not match the server's.
+     *
+     * @param files - the received files.
+     */
+    default void onHashMismatch(@NonNull final List<File> files) {
+    }
+}
@@ -0,0 +1,146 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static software.isratech.easy_file_transferer.net.Communication.getHumanReadableFileSize;
+
+/**
+ * Tracks the progress of a single transfer.
+ * Transfer loops only update an atomic counter, all formatting happens in {@link #format()}, which is called by a
+ * {@link ProgressTicker} at a fixed rate.
+ */
+public class TransferProgress {
+
+    /**
+     * Weight of the newest sample in the smoothed throughput.
+     */
+    private static final double SMOOTHING_FACTOR = 0.3;
+
+    /**
+     * Size of the whole file.
+     */
+    @Getter
+    private final long totalBytes;
+
+    /**
+     * Bytes the receiver already had before the transfer started.
+     */
+    private final long initialBytes;
+
+    /**
+     * Bytes of the file the receiver has so far.
+     */
+    private final AtomicLong transferredBytes;
+
+    /**
+     * When the transfer started.
+     */
+    private final long startTime = System.nanoTime();
+
+    /**
+     * Bytes transferred at the time of the last sample.
+     */
+    private long lastSampleBytes;
+
+    /**
+     * Time of the last sample.
+     */
+    private long lastSampleTime = startTime;
+
+    /**
+     * Smoothed throughput in bytes per second.
+     */
+    private double smoothedThroughput = -1;
+
+    /**
+     * Creates the progress of a transfer.
+     *
+     * @param totalBytes   - the size of the whole file.
+     * @param initialBytes - the amount of bytes the receiver already had.
+     */
+    public TransferProgress(final long totalBytes, final long initialBytes) {
+        this.totalBytes = totalBytes;
+        this.initialBytes = initialBytes;
+        this.transferredBytes = new AtomicLong(initialBytes);
+        this.lastSampleBytes = initialBytes;
+    }
+
+    /**
+     * Sets the amount of bytes the receiver has so far.
+     *
+     * @param bytes - the amount of bytes, including the ones the receiver already had.
+     */
+    public void set(final long bytes) {
+        transferredBytes.lazySet(bytes);
+    }
+
+    /**
+     * @return the amount of bytes the receiver has so far.
+     */
+    public long getTransferredBytes() {
+        return transferredBytes.get();
+    }
+
+    /**
+     * @return the average throughput since the transfer started, in bytes per second.
+     */
+    public double getAverageThroughput() {
+        final double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+        return elapsedSeconds > 0 ? (getTransferredBytes() - initialBytes) / elapsedSeconds : 0;
+    }
+
+    /**
+     * Samples the current throughput, smoothed over the previous samples.
+     *
+     * @return the throughput in bytes per second.
+     */
+    public synchronized double sampleThroughput() {
+        final long now = System.nanoTime();
+        final long bytes = getTransferredBytes();
+        if (now - lastSampleTime > 0) {
+            final double throughput = (bytes - lastSampleBytes) / ((now - lastSampleTime) / 1e9);
+            smoothedThroughput = smoothedThroughput < 0
+                    ? throughput
+                    : SMOOTHING_FACTOR * throughput + (1 - SMOOTHING_FACTOR) * smoothedThroughput;
+        }
+        lastSampleBytes = bytes;
+        lastSampleTime = now;
+        return Math.max(smoothedThroughput, 0);
+    }
+
+    /**
+     * Formats the progress, current and average throughput and the estimated remaining time.
+     *
+     * @return the formatted progress.
+     */
+    @NonNull
+    public String format() {
+        final long bytes = getTransferredBytes();
+        final double throughput = sampleThroughput();
+        final int percentage = totalBytes > 0 ? (int) (bytes * 100 / totalBytes) : 100;
+        return String.format(
+                "Progress: %s/%s (%s%%)%n%s/s, average %s/s, %s left",
+                getHumanReadableFileSize(bytes),
+                getHumanReadableFileSize(totalBytes),
+                percentage,
+                getHumanReadableFileSize((long) throughput),
+                getHumanReadableFileSize((long) getAverageThroughput()),
+                formatRemainingTime(throughput > 0 ? (long) ((totalBytes - bytes) / throughput) : -1L)
+        );
+    }
+
+    /**
+     * Formats a duration as hours, minutes and seconds.
+     *
+     * @param seconds - the duration, negative if unknown.
+     * @return the formatted duration.
+     */
+    @NonNull
+    private static String formatRemainingTime(final long seconds) {
+        if (seconds < 0) return "unknown time";
+        return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+}
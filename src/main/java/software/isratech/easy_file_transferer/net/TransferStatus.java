@@ -0,0 +1,49 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The status text of a client's transfer, which grows by one line per step.
+ * Every change is passed on to a {@link TransferListener}.
+ */
+public class TransferStatus {
+
+    /**
+     * Receives the changes.
+     */
+    @Getter
+    private final TransferListener listener;
+
+    /**
+     * The current status.
+     */
+    @Getter
+    private volatile String text = "";
+
+    /**
+     * @param listener - receives the changes.
+     */
+    public TransferStatus(@NonNull final TransferListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Replaces the status.
+     *
+     * @param text - the new status.
+     */
+    public void setText(@NonNull final String text) {
+        this.text = text;
+        listener.onStatus(text);
+    }
+
+    /**
+     * Adds a line to the status.
+     *
+     * @param line - the line.
+     */
+    public void append(@NonNull final String line) {
+        setText(String.format("%s%n%s", text, line));
+    }
+}
@@ -0,0 +1,102 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static software.isratech.easy_file_transferer.Constants.*;
+
+/**
+ * Socket options and I/O sizes for a kind of link.
+ * A buffer size of 0 keeps the operating system's default, which on most systems also keeps the kernel's
+ * automatic buffer tuning. Explicit buffers are only worth it when the bandwidth-delay product of the link exceeds
+ * what the kernel grows its buffers to on its own.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public enum TuningProfile {
+
+    /**
+     * Operating system defaults for everything.
+     */
+    SYSTEM(0, 0, DEFAULT_BYTES, false),
+
+    /**
+     * Local networks, which the kernel's buffer tuning handles well.
+     */
+    LAN(0, 0, DEFAULT_BYTES, true),
+
+    /**
+     * Links with a high round trip time, e.g. VPNs, which need large buffers to keep enough data in flight.
+     */
+    WAN(8388608, 8388608, 4194304, true),
+
+    /**
+     * 10 gigabit links, which need large buffers and few, large writes.
+     */
+    TEN_GIGABIT(16777216, 16777216, 8388608, true),
+
+    /**
+     * Measures the link and picks one of the other profiles. Behaves like {@link #LAN} until it measured the link.
+     */
+    AUTO(0, 0, DEFAULT_BYTES, true);
+
+    /**
+     * Size of the socket's send buffer, 0 for the system's default.
+     */
+    private final int sendBufferSize;
+
+    /**
+     * Size of the socket's receive buffer, 0 for the system's default.
+     * Set before connecting, so the window scale negotiated with the remote allows the whole buffer to be used.
+     */
+    private final int receiveBufferSize;
+
+    /**
+     * Amount of bytes moved per call when sending a file.
+     */
+    private final int ioChunkSize;
+
+    /**
+     * Whether Nagle's algorithm is disabled, so the protocol's lockstep messages are sent right away.
+     * File data is written in large chunks, which Nagle's algorithm does not delay either way.
+     */
+    private final boolean controlNoDelay;
+
+    /**
+     * Picks the profile matching a measured link.
+     * Only {@link #AUTO} picks a profile, every other profile keeps itself.
+     *
+     * @param roundTripNanos - the link's round trip time in nanoseconds, negative if unknown.
+     * @param bytesPerSecond - the link's throughput, 0 if unknown.
+     * @return the profile to use for the link.
+     */
+    @NonNull
+    public TuningProfile resolve(final long roundTripNanos, final double bytesPerSecond) {
+        if (this != AUTO) return this;
+        if (bytesPerSecond >= TEN_GIGABIT_THROUGHPUT) return TEN_GIGABIT;
+        if (roundTripNanos >= TimeUnit.MILLISECONDS.toNanos(WAN_ROUND_TRIP_TIME)) return WAN;
+        return LAN;
+    }
+
+    /**
+     * Parses a profile's name, ignoring its case. "10G" is short for {@link #TEN_GIGABIT}.
+     *
+     * @param name - the name.
+     * @return the profile.
+     * @throws IllegalArgumentException if there is no such profile.
+     */
+    @NonNull
+    public static TuningProfile parse(@NonNull final String name) {
+        if ("10G".equalsIgnoreCase(name)) return TEN_GIGABIT;
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown tuning profile: " + name);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package software.isratech.easy_file_transferer.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+import static software.isratech.easy_file_transferer.Constants.CONFIG_DIRECTORY_NAME;
+
+/**
+ * Locates the directory the application keeps its settings and caches in.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ConfigDirectory {
+
+    /**
+     * Returns the application's config directory, following each platform's convention:
+     * %APPDATA% on Windows, ~/Library/Application Support on macOS and $XDG_CONFIG_HOME or ~/.config elsewhere.
+     * The directory is not created.
+     *
+     * @return the directory.
+     */
+    @NonNull
+    public static Path get() {
+        final String osName = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        final Path userHome = Path.of(System.getProperty("user.home"));
+        final String appData = System.getenv("APPDATA");
+        final String xdgConfigHome = System.getenv("XDG_CONFIG_HOME");
+        if (osName.startsWith("windows") && appData != null) {
+            return Path.of(appData, CONFIG_DIRECTORY_NAME);
+        }
+        if (osName.startsWith("mac")) {
+            return userHome.resolve(Path.of("Library", "Application Support", CONFIG_DIRECTORY_NAME));
+        }
+        if (xdgConfigHome != null && !xdgConfigHome.isBlank()) {
+            return Path.of(xdgConfigHome, CONFIG_DIRECTORY_NAME);
+        }
+        return userHome.resolve(Path.of(".config", CONFIG_DIRECTORY_NAME));
+    }
+}
@@ -4,6 +4,9 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import software.isratech.easy_file_transferer.net.DownloadQueue;
+
+import static software.isratech.easy_file_transferer.Constants.DEFAULT_DOWNLOAD_CONCURRENCY;
 
 /** Contains data given to the receive file controller. */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -35,4 +38,16 @@ public class FileDownloadUtils {
     @Setter
     @Getter
     private String selectedPath;
+
+    /** Download queue, kept while navigating between scenes. */
+    private DownloadQueue downloadQueue;
+
+    /** Get the download queue, which is created when it is first needed.
+     * @return the download queue. */
+    public DownloadQueue getDownloadQueue() {
+        if (downloadQueue == null) {
+            downloadQueue = new DownloadQueue(DEFAULT_DOWNLOAD_CONCURRENCY);
+        }
+        return downloadQueue;
+    }
 }
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.io.File;
+import java.util.List;
 
 /** Stores data between javaFX scenes */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -33,8 +34,13 @@ public class FileUploadUtils {
     @Getter
     private int port;
 
-    /** File to upload. */
+    /** Files and directories to upload. */
     @Setter
     @Getter
-    private File file;
+    private List<File> files;
+
+    /** Whether to keep serving clients after the first transfer. */
+    @Setter
+    @Getter
+    private boolean multiClient;
 }
@@ -0,0 +1,140 @@
+package software.isratech.easy_file_transferer.utils;
+
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.metrics.TransferMetrics;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static software.isratech.easy_file_transferer.Constants.PIPELINE_BUFFERS;
+import static software.isratech.easy_file_transferer.Constants.PIPELINE_BUFFER_SIZE;
+
+/**
+ * Reads a region of a file on its own thread into a ring of reusable buffers.
+ * The consumer takes filled buffers in file order and releases them once it is done with them, so the disk is
+ * read while the previous buffers are still being sent or hashed. The reader blocks once all buffers are filled,
+ * so it never runs more than the ring's size ahead of the consumer.
+ */
+public class PipelinedReader implements Closeable {
+
+    /**
+     * Marks the end of the region in the queue of filled buffers.
+     */
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    /**
+     * Buffers ready to be filled.
+     */
+    private final BlockingQueue<ByteBuffer> emptyBuffers = new ArrayBlockingQueue<>(PIPELINE_BUFFERS + 1);
+
+    /**
+     * Filled buffers, in file order, followed by {@link #END}.
+     */
+    private final BlockingQueue<ByteBuffer> filledBuffers = new ArrayBlockingQueue<>(PIPELINE_BUFFERS + 1);
+
+    /**
+     * Error that stopped the reader, rethrown to the consumer.
+     */
+    private volatile IOException readError;
+
+    /**
+     * Set once the consumer stopped, so the reader stops as well.
+     * The reader is never interrupted, since interrupting a read would close the file channel for all its users.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Starts reading a region of a file.
+     *
+     * @param fileChannel - the file.
+     * @param position    - the offset of the region.
+     * @param count       - the length of the region.
+     */
+    public PipelinedReader(@NonNull final FileChannel fileChannel, final long position, final long count) {
+        for (int i = 0; i < PIPELINE_BUFFERS; i++) {
+            emptyBuffers.add(ByteBuffer.allocateDirect(PIPELINE_BUFFER_SIZE));
+        }
+        final Thread readerThread = new Thread(() -> read(fileChannel, position, count), "pipelined-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * Waits for the next filled buffer.
+     *
+     * @return the buffer in read mode, or null once the whole region was read.
+     */
+    public ByteBuffer take() throws IOException {
+        final ByteBuffer buffer;
+        final long startNanos = System.nanoTime();
+        try {
+            buffer = filledBuffers.take();
+            TransferMetrics.recordDiskWait(startNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the file!");
+        }
+        if (buffer == END) {
+            filledBuffers.offer(END);
+            if (readError != null) throw readError;
+            return null;
+        }
+        return buffer;
+    }
+
+    /**
+     * Hands a buffer back to the reader.
+     *
+     * @param buffer - a buffer returned by {@link #take()}, which must not be used anymore.
+     */
+    public void release(@NonNull final ByteBuffer buffer) {
+        emptyBuffers.offer(buffer);
+    }
+
+    /**
+     * Stops the reader, if it is still running.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        emptyBuffers.offer(END);
+    }
+
+    /**
+     * Reads the region into the ring until it was read completely, failed or the consumer stopped.
+     *
+     * @param fileChannel - the file.
+     * @param position    - the offset of the region.
+     * @param count       - the length of the region.
+     */
+    private void read(@NonNull final FileChannel fileChannel, final long position, final long count) {
+        try {
+            long read = 0L;
+            while (read < count) {
+                final ByteBuffer buffer = emptyBuffers.take();
+                if (closed) return;
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), count - read));
+                while (buffer.hasRemaining()) {
+                    final int returnCode = fileChannel.read(buffer, position + read + buffer.position());
+                    TransferMetrics.recordReadAhead(returnCode);
+                    if (returnCode == -1) {
+                        throw new EOFException("File was truncated while reading!");
+                    }
+                }
+                read += buffer.flip().remaining();
+                filledBuffers.put(buffer);
+            }
+        } catch (IOException e) {
+            readError = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        filledBuffers.offer(END);
+    }
+}
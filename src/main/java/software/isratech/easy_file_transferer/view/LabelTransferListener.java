@@ -0,0 +1,101 @@
+package software.isratech.easy_file_transferer.view;
+
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.net.TransferListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shows the status of a transfer in labels.
+ * At most one label update is queued on the FX thread at any time, no matter how often the status changes.
+ */
+public class LabelTransferListener implements TransferListener {
+
+    /**
+     * Label showing the transfer's status.
+     */
+    private final Label statusMessageLabel;
+
+    /**
+     * Label showing the connection's status, or null.
+     */
+    private final Label connectionInfoLabel;
+
+    /**
+     * The latest status that was not shown yet, null if no label update is queued.
+     */
+    private final AtomicReference<String> pendingStatus = new AtomicReference<>();
+
+    /**
+     * @param statusMessageLabel - label showing the transfer's status.
+     */
+    public LabelTransferListener(@NonNull final Label statusMessageLabel) {
+        this(statusMessageLabel, null);
+    }
+
+    /**
+     * @param statusMessageLabel  - label showing the transfer's status.
+     * @param connectionInfoLabel - label showing the connection's status, or null.
+     */
+    public LabelTransferListener(@NonNull final Label statusMessageLabel, final Label connectionInfoLabel) {
+        this.statusMessageLabel = statusMessageLabel;
+        this.connectionInfoLabel = connectionInfoLabel;
+    }
+
+    @Override
+    public void onStatus(@NonNull final String status) {
+        if (pendingStatus.getAndSet(status) != null) return;
+        Platform.runLater(() -> statusMessageLabel.setText(pendingStatus.getAndSet(null)));
+    }
+
+    @Override
+    public void onConnectionStatus(@NonNull final String status) {
+        if (connectionInfoLabel != null) {
+            Platform.runLater(() -> connectionInfoLabel.setText(status));
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        Platform.runLater(() -> statusMessageLabel.setStyle("-fx-text-fill: green !important;"));
+    }
+
+    /**
+     * Asks the user whether to keep or delete the received files.
+     *
+     * @param files - the received files.
+     */
+    @Override
+    public void onHashMismatch(@NonNull final List<File> files) {
+        Platform.runLater(() -> {
+            statusMessageLabel.setStyle("-fx-text-fill: red !important;");
+            final Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Hashes mismatch!");
+            alert.setContentText("Hashes mismatch! Do you want to delete the file?");
+            final ButtonType delete = new ButtonType("Keep", ButtonBar.ButtonData.YES);
+            final ButtonType keep = new ButtonType("Delete", ButtonBar.ButtonData.NO);
+            alert.getButtonTypes().setAll(delete, keep);
+            alert.showAndWait().ifPresent(type -> {
+                if (type == ButtonType.NO) {
+                    try {
+                        for (final File file : files) {
+                            Files.deleteIfExists(file.toPath());
+                        }
+                    }
+                    catch (IOException e) {
+                        statusMessageLabel.setText(String.format("%s%n%s", statusMessageLabel.getText(), "Failed to delete file!"));
+                    }
+                }
+            });
+        });
+    }
+}
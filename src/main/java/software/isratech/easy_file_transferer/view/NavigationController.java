@@ -58,6 +58,9 @@ public class NavigationController {
             case RECEIVING_FILE:
                 setScene("Receiving file - " + Constants.APPLICATION_NAME, Constants.RECEIVING_MENU_FXML);
                 break;
+            case DOWNLOAD_QUEUE:
+                setScene("Download queue - " + Constants.APPLICATION_NAME, Constants.DOWNLOAD_QUEUE_MENU_FXML);
+                break;
             default:
                 setScene(Constants.APPLICATION_NAME, Constants.MAIN_MENU_FXML);
                 break;
@@ -98,6 +101,6 @@ public class NavigationController {
      * Available scenes.
      */
     protected enum CurrentScene {
-        MAIN_MENU, SEND_FILE_SELECTOR, RECEIVE_FILE_SELECTOR, SENDING_FILE, RECEIVING_FILE
+        MAIN_MENU, SEND_FILE_SELECTOR, RECEIVE_FILE_SELECTOR, SENDING_FILE, RECEIVING_FILE, DOWNLOAD_QUEUE
     }
 }
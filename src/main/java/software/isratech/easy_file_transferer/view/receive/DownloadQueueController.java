@@ -0,0 +1,143 @@
+package software.isratech.easy_file_transferer.view.receive;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.SpinnerValueFactory;
+import lombok.NonNull;
+import software.isratech.easy_file_transferer.net.DownloadJob;
+import software.isratech.easy_file_transferer.net.DownloadQueue;
+import software.isratech.easy_file_transferer.utils.FileDownloadUtils;
+import software.isratech.easy_file_transferer.view.NavigationController;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static software.isratech.easy_file_transferer.Constants.MAX_DOWNLOAD_CONCURRENCY;
+
+/**
+ * Shows the downloads of the download queue, which can be cancelled and retried.
+ */
+public class DownloadQueueController extends NavigationController implements Initializable {
+
+    /**
+     * List view of the downloads.
+     */
+    @FXML
+    protected ListView<DownloadJob> jobList;
+
+    /**
+     * Amount of downloads running at the same time.
+     */
+    @FXML
+    protected Spinner<Integer> concurrencySpinner;
+
+    /**
+     * The download queue.
+     */
+    private final DownloadQueue downloadQueue = FileDownloadUtils.getInstance().getDownloadQueue();
+
+    /**
+     * Whether a refresh of the list is queued on the FX thread.
+     */
+    private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+
+    /**
+     * Refreshes the list whenever a download changes or is added, as long as the queue is shown.
+     */
+    private final DownloadQueue.Listener queueListener = job -> refresh();
+
+    /**
+     * Cancels the selected download.
+     */
+    @FXML
+    protected void cancelSelected() {
+        final DownloadJob selectedItem = jobList.getSelectionModel().getSelectedItem();
+        if (selectedItem != null) downloadQueue.cancel(selectedItem);
+    }
+
+    /**
+     * Retries the selected download if it failed or was cancelled.
+     */
+    @FXML
+    protected void retrySelected() {
+        final DownloadJob selectedItem = jobList.getSelectionModel().getSelectedItem();
+        if (selectedItem != null) downloadQueue.retry(selectedItem);
+    }
+
+    /**
+     * Refreshes the list and adds the downloads queued since, queueing at most one refresh on the FX thread at any
+     * time. Downloads are never removed from the queue, so the list always holds its first downloads.
+     */
+    private void refresh() {
+        if (refreshPending.getAndSet(true)) return;
+        Platform.runLater(() -> {
+            refreshPending.set(false);
+            final List<DownloadJob> jobs = List.copyOf(downloadQueue.getJobs());
+            final int shownJobs = jobList.getItems().size();
+            if (jobs.size() > shownJobs) {
+                jobList.getItems().addAll(jobs.subList(shownJobs, jobs.size()));
+            }
+            jobList.refresh();
+        });
+    }
+
+    @Override
+    protected void mainMenu() throws IOException {
+        downloadQueue.removeListener(queueListener);
+        super.mainMenu();
+    }
+
+    @Override
+    protected void receiveFileSelectorMenu() throws IOException {
+        downloadQueue.removeListener(queueListener);
+        super.receiveFileSelectorMenu();
+    }
+
+    /**
+     * Formats a download, with its progress while it is running.
+     *
+     * @param job - the download.
+     * @return the formatted download.
+     */
+    @NonNull
+    private static String format(@NonNull final DownloadJob job) {
+        final String[] statusLines = job.getStatus().split("\\R");
+        final String title = String.format("%s - %s", job, job.getState().name().toLowerCase(Locale.ROOT));
+        switch (job.getState()) {
+            case RUNNING:
+                return statusLines.length < 2
+                        ? String.format("%s%n%s", title, statusLines[0])
+                        : String.format("%s%n%s%n%s", title, statusLines[statusLines.length - 2], statusLines[statusLines.length - 1]);
+            case RETRYING:
+            case FAILED:
+                return String.format("%s%n%s", title, statusLines[statusLines.length - 1]);
+            default:
+                return title;
+        }
+    }
+
+    @Override
+    public void initialize(final URL url, final ResourceBundle resourceBundle) {
+        jobList.setItems(FXCollections.observableArrayList(downloadQueue.getJobs()));
+        jobList.setCellFactory(listView -> new ListCell<>() {
+            @Override
+            protected void updateItem(final DownloadJob job, final boolean empty) {
+                super.updateItem(job, empty);
+                setText(empty || job == null ? null : format(job));
+            }
+        });
+        concurrencySpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, MAX_DOWNLOAD_CONCURRENCY, downloadQueue.getConcurrency()));
+        concurrencySpinner.valueProperty().addListener((observed, old, concurrency) -> downloadQueue.setConcurrency(concurrency));
+        downloadQueue.setListener(queueListener);
+        refresh();
+    }
+}
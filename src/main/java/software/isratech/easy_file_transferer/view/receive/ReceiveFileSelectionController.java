@@ -5,19 +5,22 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.control.SelectionMode;
 import javafx.scene.control.TextField;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.DirectoryChooser;
 import org.controlsfx.control.ToggleSwitch;
-import software.isratech.easy_file_transferer.net.Communication;
+import software.isratech.easy_file_transferer.net.DiscoveredServer;
+import software.isratech.easy_file_transferer.net.DownloadQueue;
 import software.isratech.easy_file_transferer.utils.FileDownloadUtils;
 import software.isratech.easy_file_transferer.view.NavigationController;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -75,7 +78,13 @@ public class ReceiveFileSelectionController extends NavigationController impleme
      * List view of IP Addresses
      */
     @FXML
-    protected ListView<String> ipAddressList;
+    protected ListView<DiscoveredServer> ipAddressList;
+
+    /**
+     * Queue button, receives from all selected servers.
+     */
+    @FXML
+    protected Button queueButton;
 
     /**
      * Automatic network mode.
@@ -138,6 +147,11 @@ public class ReceiveFileSelectionController extends NavigationController impleme
      */
     final AtomicBoolean stopScanning = new AtomicBoolean();
 
+    /**
+     * Whether to stop listening for server announcements.
+     */
+    private AtomicBoolean stopListening = new AtomicBoolean(true);
+
     /**
      * Change VBox content
      *
@@ -146,6 +160,7 @@ public class ReceiveFileSelectionController extends NavigationController impleme
     private void changeVBoxContent(boolean manualMode) {
         networkSettingsContainer.getChildren().clear();
         if (manualMode) {
+            stopListeningForServers();
             scanButton.setVisible(false);
             networkSettingsContainer.getChildren().add(advancedNetworkVBox);
             networkModeLabel.setText("Manual");
@@ -154,6 +169,26 @@ public class ReceiveFileSelectionController extends NavigationController impleme
         scanButton.setVisible(true);
         networkSettingsContainer.getChildren().add(autoNetworkModeVBox);
         networkModeLabel.setText("Auto");
+        listenForServers();
+    }
+
+    /**
+     * Starts listening for servers announcing themselves, unless already listening.
+     */
+    private void listenForServers() {
+        if (!stopListening.get()) return;
+        final AtomicBoolean stopCurrentListener = new AtomicBoolean(false);
+        this.stopListening = stopCurrentListener;
+        final Thread listenerThread = new Thread(() -> ServerDiscovery.listenForServers(stopCurrentListener, ipAddressList), "announcement-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    /**
+     * Stops listening for servers announcing themselves.
+     */
+    private void stopListeningForServers() {
+        stopListening.set(true);
     }
 
     /**
@@ -178,7 +213,7 @@ public class ReceiveFileSelectionController extends NavigationController impleme
         errorMessageLabel.setText("");
         errorMessageLabel.setVisible(true);
         errorMessageLabel.setStyle("-fx-text-fill: grey !important;");
-        new Thread(() -> Communication.getAvailableServers(DEFAULT_PORT, stopScanning, ipAddressList, errorMessageLabel)).start();
+        new Thread(() -> ServerDiscovery.getAvailableServers(DEFAULT_PORT, stopScanning, ipAddressList, errorMessageLabel)).start();
         isScanning = true;
         this.stopScanning.set(false);
         networkModeLabel.setText("Scanning...");
@@ -205,14 +240,15 @@ public class ReceiveFileSelectionController extends NavigationController impleme
     }
 
     /**
-     * Connect to server when an address is clicked.
+     * Connect to server when an address is double-clicked.
      */
     @FXML
-    protected void handleAddressClicked(final MouseEvent ignored) throws IOException {
-        final String selectedItem = ipAddressList.getSelectionModel().getSelectedItem();
-        if (selectedItem != null && !selectedItem.isBlank()) {
-            this.selectedIPAddress = selectedItem;
-            this.selectedPort = DEFAULT_PORT;
+    protected void handleAddressClicked(final MouseEvent mouseEvent) throws IOException {
+        if (mouseEvent.getClickCount() < 2) return;
+        final DiscoveredServer selectedItem = ipAddressList.getSelectionModel().getSelectedItem();
+        if (selectedItem != null) {
+            this.selectedIPAddress = selectedItem.getIpAddress();
+            this.selectedPort = selectedItem.getPort();
             startClient();
         }
     }
@@ -237,11 +273,39 @@ public class ReceiveFileSelectionController extends NavigationController impleme
     }
 
     /**
-     * Starts the client.
+     * Handles clicking the queue button, queues downloads from all selected servers.
      */
-    protected void startClient() throws IOException {
+    @FXML
+    protected void handleQueueClicked() throws IOException {
+        final List<DiscoveredServer> selectedItems = List.copyOf(ipAddressList.getSelectionModel().getSelectedItems());
+        if (selectedItems.isEmpty()) {
+            errorMessageLabel.setText("No servers selected!");
+            errorMessageLabel.setStyle("-fx-text-fill: red !important;");
+            errorMessageLabel.setVisible(true);
+            return;
+        }
+        stopDiscovery();
+        final DownloadQueue downloadQueue = FileDownloadUtils.getInstance().getDownloadQueue();
+        for (final DiscoveredServer server : selectedItems) {
+            downloadQueue.add(server.getIpAddress(), server.getPort(), this.selectedFilePath);
+        }
+        setActiveMenu(CurrentScene.DOWNLOAD_QUEUE);
+    }
+
+    /**
+     * Stops scanning and listening for servers.
+     */
+    private void stopDiscovery() {
         this.stopScanning.set(true);
+        stopListeningForServers();
         this.isScanning = false;
+    }
+
+    /**
+     * Starts the client.
+     */
+    protected void startClient() throws IOException {
+        stopDiscovery();
         final FileDownloadUtils fileDownloadUtils = FileDownloadUtils.getInstance();
         fileDownloadUtils.setSelectedPath(this.selectedFilePath);
         fileDownloadUtils.setIpAddress(this.selectedIPAddress);
@@ -249,10 +313,18 @@ public class ReceiveFileSelectionController extends NavigationController impleme
         setActiveMenu(CurrentScene.RECEIVING_FILE);
     }
 
+    @Override
+    protected void mainMenu() throws IOException {
+        this.stopScanning.set(true);
+        stopListeningForServers();
+        super.mainMenu();
+    }
+
     @Override
     public void initialize(final URL url, final ResourceBundle resourceBundle) {
         networkSettingsContainer.getChildren().clear();
         networkSettingsHBox.setVisible(false);
+        ipAddressList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         networkModeSwitch.selectedProperty().addListener((observed, old, manualMode) -> {
             errorMessageLabel.setVisible(false);
             isScanning = false;
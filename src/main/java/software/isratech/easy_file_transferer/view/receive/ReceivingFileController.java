@@ -7,6 +7,7 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 import software.isratech.easy_file_transferer.net.Client;
 import software.isratech.easy_file_transferer.utils.FileDownloadUtils;
+import software.isratech.easy_file_transferer.view.LabelTransferListener;
 import software.isratech.easy_file_transferer.view.NavigationController;
 
 import java.io.IOException;
@@ -55,8 +56,7 @@ public class ReceivingFileController extends NavigationController implements Ini
                         fileDownloadUtils.getIpAddress(),
                         fileDownloadUtils.getPort(),
                         fileDownloadUtils.getSelectedPath(),
-                        connectionInfoLabel,
-                        statusMessageLabel
+                        new LabelTransferListener(statusMessageLabel, connectionInfoLabel)
                 );
             } catch (IOException | NoSuchAlgorithmException e) {
                 Platform.runLater(() -> {
@@ -0,0 +1,99 @@
+package software.isratech.easy_file_transferer.view.receive;
+
+import javafx.application.Platform;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import software.isratech.easy_file_transferer.net.Communication;
+import software.isratech.easy_file_transferer.net.DiscoveredServer;
+import software.isratech.easy_file_transferer.net.ServiceAnnouncer;
+import software.isratech.easy_file_transferer.net.SubnetScanner;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Finds servers on the network and lists them.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ServerDiscovery {
+
+    /**
+     * Ping all addresses in subnet to find a server listening for connections.
+     * All addresses are probed concurrently and servers are added to the list as soon as they reply.
+     *
+     * @param port          - the port to ping on
+     * @param stopScanning  - used to stop scanning for hosts
+     * @param listView      - the list servers are added to
+     * @param infoTextField - label showing the scan's status
+     */
+    public static void getAvailableServers(
+            final int port,
+            final AtomicBoolean stopScanning,
+            final ListView<DiscoveredServer> listView,
+            final Label infoTextField
+    ) {
+        final String subnet = Communication.getSubnet();
+        if (subnet == null) {
+            Platform.runLater(() -> {
+                infoTextField.setText("Cant ping yourself!");
+                infoTextField.setStyle("-fx-text-fill: red !important;");
+                infoTextField.setVisible(true);
+            });
+            return;
+        }
+        Platform.runLater(() -> infoTextField.setText("Scanning " + subnet + "0/24..."));
+        final AtomicBoolean foundServer = new AtomicBoolean(false);
+        try {
+            SubnetScanner.scan(subnet, port, stopScanning, hostName -> {
+                foundServer.set(true);
+                Platform.runLater(() -> addServer(listView, new DiscoveredServer(hostName, port)));
+            });
+        } catch (IOException e) {
+            // treated like finding no servers
+        }
+        if (!foundServer.get()) {
+            Platform.runLater(() -> {
+                infoTextField.setText("No servers found!");
+                infoTextField.setStyle("-fx-text-fill: red !important;");
+                infoTextField.setVisible(true);
+            });
+            return;
+        }
+        Platform.runLater(() -> infoTextField.setVisible(false));
+    }
+
+    /**
+     * Listen for servers announcing themselves on the network until stopped.
+     * Unlike a network scan, this does not open any connections to the servers.
+     *
+     * @param stopListening - used to stop listening
+     * @param listView      - the list servers are added to
+     */
+    public static void listenForServers(
+            final AtomicBoolean stopListening,
+            final ListView<DiscoveredServer> listView
+    ) {
+        try {
+            ServiceAnnouncer.listen(stopListening, server -> Platform.runLater(() -> addServer(listView, server)));
+        } catch (IOException e) {
+            // announcements cannot be received, servers can still be found by scanning
+        }
+    }
+
+    /**
+     * Adds a server to a list, or updates its entry if it is already listed.
+     *
+     * @param listView - the list.
+     * @param server   - the server.
+     */
+    private static void addServer(final ListView<DiscoveredServer> listView, final DiscoveredServer server) {
+        final int index = listView.getItems().indexOf(server);
+        if (index == -1) {
+            listView.getItems().add(server);
+        } else if (server.getFileName() != null && !server.toString().equals(listView.getItems().get(index).toString())) {
+            listView.getItems().set(index, server);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import org.controlsfx.control.ToggleSwitch;
 import software.isratech.easy_file_transferer.utils.FileUploadUtils;
@@ -14,6 +15,7 @@ import software.isratech.easy_file_transferer.view.NavigationController;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
 import java.util.ResourceBundle;
 
 import static software.isratech.easy_file_transferer.Constants.DEFAULT_BIND_ADDRESS;
@@ -48,6 +50,12 @@ public class SendFileSelectionController extends NavigationController implements
     @FXML
     protected TextField portTextField;
 
+    /**
+     * Advanced network settings multi client mode.
+     */
+    @FXML
+    protected ToggleSwitch multiClientSwitch;
+
     /**
      * Send file button
      */
@@ -66,30 +74,51 @@ public class SendFileSelectionController extends NavigationController implements
     @FXML
     protected TextField selectedFilePath;
 
-    /** Selected file. */
-    private File selectedFile;
+    /** Selected files. */
+    private List<File> selectedFiles;
 
     /**
-     * File picker.
+     * File picker, allows selecting several files.
      */
     @FXML
     protected void selectFile() {
         final FileChooser fileChooser = new FileChooser();
-        final File chosenFile = fileChooser.showOpenDialog(stage);
-        if (chosenFile != null) {
-            selectedFilePath.setPromptText(chosenFile.getPath());
-            this.selectedFile = chosenFile;
-            sendFileButton.setDisable(false);
+        final List<File> chosenFiles = fileChooser.showOpenMultipleDialog(stage);
+        if (chosenFiles != null && !chosenFiles.isEmpty()) {
+            setSelectedFiles(chosenFiles);
+        }
+    }
+
+    /**
+     * Directory picker.
+     */
+    @FXML
+    protected void selectDirectory() {
+        final DirectoryChooser directoryChooser = new DirectoryChooser();
+        final File chosenDirectory = directoryChooser.showDialog(stage);
+        if (chosenDirectory != null) {
+            setSelectedFiles(List.of(chosenDirectory));
         }
     }
 
     /**
-     * Switch to send file scene and pass the selected file (and network details) to the new controller.
+     * Shows the selected files and enables the send button.
+     *
+     * @param files - the selected files.
+     */
+    private void setSelectedFiles(final List<File> files) {
+        selectedFilePath.setPromptText(files.size() == 1 ? files.get(0).getPath() : String.format("%s files selected", files.size()));
+        this.selectedFiles = List.copyOf(files);
+        sendFileButton.setDisable(false);
+    }
+
+    /**
+     * Switch to send file scene and pass the selected files (and network details) to the new controller.
      */
     @FXML
     protected void sendingFileMenu() throws IOException {
         final FileUploadUtils fileUploadUtils = FileUploadUtils.getInstance();
-        fileUploadUtils.setFile(selectedFile);
+        fileUploadUtils.setFiles(selectedFiles);
         final String selectedIPAddress = ipAddressTextField.getText();
         fileUploadUtils.setIpAddress(selectedIPAddress == null || selectedIPAddress.isBlank() ? DEFAULT_BIND_ADDRESS : selectedIPAddress);
         final String selectedPort = portTextField.getText();
@@ -100,13 +129,14 @@ public class SendFileSelectionController extends NavigationController implements
             // ignored
         }
         fileUploadUtils.setPort(port);
+        fileUploadUtils.setMultiClient(sendFileAdvancedSwitch.isSelected() && multiClientSwitch.isSelected());
         setActiveMenu(CurrentScene.SENDING_FILE);
     }
 
     /** Disables the send button if any configurations are wrong.
      * @param additionalCondition - additional condition for disabling the button. */
     private void disableSendButtonIfNecessary(boolean additionalCondition) {
-        boolean shouldDisable = selectedFile == null || (sendFileAdvancedSwitch.isSelected() && additionalCondition);
+        boolean shouldDisable = selectedFiles == null || (sendFileAdvancedSwitch.isSelected() && additionalCondition);
         sendFileButton.setDisable(shouldDisable);
     }
 
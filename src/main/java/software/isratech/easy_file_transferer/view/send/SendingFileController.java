@@ -8,16 +8,18 @@ import javafx.scene.layout.VBox;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import software.isratech.easy_file_transferer.net.Manifest;
 import software.isratech.easy_file_transferer.net.Server;
 import software.isratech.easy_file_transferer.utils.FileUploadUtils;
+import software.isratech.easy_file_transferer.view.LabelTransferListener;
 import software.isratech.easy_file_transferer.view.NavigationController;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.ServerSocket;
 import java.net.URL;
-import java.nio.file.Files;
+import java.nio.channels.ServerSocketChannel;
 import java.security.NoSuchAlgorithmException;
+import java.util.List;
 import java.util.ResourceBundle;
 
 import static software.isratech.easy_file_transferer.net.Communication.getHumanReadableFileSize;
@@ -53,18 +55,35 @@ public class SendingFileController extends NavigationController implements Initi
     @FXML
     protected VBox buttonsVBox;
 
+    /**
+     * The upload server's socket, closed when leaving this scene.
+     */
+    private ServerSocketChannel serverSocketChannel;
+
     /**
      * Starts the upload server.
      *
      * @param ipAddress    - the ip address to listen on.
      * @param port         - the port to listen on.
-     * @param selectedFile - the file to upload.
+     * @param selectedFiles - the files and directories to upload.
+     * @param multiClient   - whether to keep serving clients until the scene is left.
      */
-    private void executeUploadServer(@NonNull final String ipAddress, final int port, @NonNull final File selectedFile) {
+    private void executeUploadServer(
+            @NonNull final String ipAddress,
+            final int port,
+            @NonNull final List<File> selectedFiles,
+            final boolean multiClient
+    ) throws IOException {
         final Server server = new Server();
+        server.setMultiClient(multiClient);
+        final ServerSocketChannel uploadServerSocketChannel = ServerSocketChannel.open();
+        this.serverSocketChannel = uploadServerSocketChannel;
+        if (multiClient) buttonsVBox.setVisible(true);
         new Thread(() -> {
-            try (final ServerSocket serverSocket = new ServerSocket()) {
-                server.serve(serverSocket, ipAddress, port, selectedFile, statusMessageLabel);
+            try (uploadServerSocketChannel) {
+                final Manifest manifest = Manifest.of(selectedFiles);
+                showFileInfo(manifest);
+                server.serve(uploadServerSocketChannel.socket(), ipAddress, port, manifest, new LabelTransferListener(statusMessageLabel));
             } catch (IOException | NoSuchAlgorithmException e) {
                 Platform.runLater(() -> {
                     errorMessageLabel.setText("Error occurred!\n" + e.getMessage());
@@ -75,27 +94,55 @@ public class SendingFileController extends NavigationController implements Initi
         }).start();
     }
 
+    /**
+     * Shows the name and size of the files being served.
+     *
+     * @param manifest - the files.
+     */
+    private void showFileInfo(@NonNull final Manifest manifest) {
+        final String fileInfo = manifest.isSingleFile()
+                ? String.format("File name: %s%nFile size: %s", manifest.getName(), getHumanReadableFileSize(manifest.getTotalSize()))
+                : String.format("Files: %s (%s entries)%nTotal size: %s", manifest.getName(), manifest.getEntries().size(), getHumanReadableFileSize(manifest.getTotalSize()));
+        final String ipAddress = getIpAddress();
+        Platform.runLater(() -> fileInfoLabel.setText(String.format("%s%nYour IP Address is: %s", fileInfo, ipAddress)));
+    }
+
     @Override
     public void initialize(final URL url, final ResourceBundle resourceBundle) {
         final FileUploadUtils fileUploadUtils = FileUploadUtils.getInstance();
         final String ipAddress = fileUploadUtils.getIpAddress();
         final int port = fileUploadUtils.getPort();
-        final File selectedFile = fileUploadUtils.getFile();
+        final List<File> selectedFiles = fileUploadUtils.getFiles();
+        fileInfoLabel.setText("Reading files...");
         try {
-            fileInfoLabel.setText(String.format(
-                    "File name: %s%nFile size: %s%nYour IP Address is: %s",
-                    selectedFile.getName(),
-                    getHumanReadableFileSize(Files.size(selectedFile.toPath())),
-                    getIpAddress()
-            ));
+            executeUploadServer(ipAddress, port, selectedFiles, fileUploadUtils.isMultiClient());
+        } catch (IOException e) {
+            errorMessageLabel.setText("Error occurred!\n" + e.getMessage());
+            errorMessageLabel.setVisible(true);
+            buttonsVBox.setVisible(true);
         }
-        catch (IOException e) {
-            fileInfoLabel.setText(String.format(
-                    "File name: %s%nFile size: Unknown!%nYour IP Address is: %s",
-                    selectedFile.getName(),
-                    getIpAddress()
-            ));
+    }
+
+    /**
+     * Stops the upload server.
+     */
+    private void stopUploadServer() {
+        try {
+            if (serverSocketChannel != null) serverSocketChannel.close();
+        } catch (IOException ignored) {
+            // ignored
         }
-        executeUploadServer(ipAddress, port, selectedFile);
+    }
+
+    @Override
+    protected void mainMenu() throws IOException {
+        stopUploadServer();
+        super.mainMenu();
+    }
+
+    @Override
+    protected void sendFileSelectorMenu() throws IOException {
+        stopUploadServer();
+        super.sendFileSelectorMenu();
     }
 }
@@ -0,0 +1,89 @@
+package software.isratech.easy_file_transferer.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs transfers through the command line, without a user interface.
+ */
+class CommandLineTest {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    private final ByteArrayOutputStream error = new ByteArrayOutputStream();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fileIsSentAndReceived() throws Exception {
+        final byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(11).nextBytes(content);
+        final Path file = Files.write(Files.createDirectory(directory.resolve("send")).resolve("file.bin"), content);
+        final Path outputDirectory = Files.createDirectory(directory.resolve("receive"));
+        final int port = findFreePort();
+        final String host = InetAddress.getLoopbackAddress().getHostAddress();
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Integer> sent = executorService.submit(() -> run("send", "--host", host, "--port", Integer.toString(port),
+                    "--tuning", "lan", file.toString()));
+            int exitCode = CommandLine.EXIT_ERROR;
+            // the server may not listen yet, refused connections never reach it
+            for (int attempt = 0; attempt < 50 && exitCode == CommandLine.EXIT_ERROR && !sent.isDone(); attempt++) {
+                Thread.sleep(100L);
+                exitCode = run("receive", "--output", outputDirectory.toString(), host + ":" + port);
+            }
+            assertEquals(CommandLine.EXIT_SUCCESS, exitCode, error.toString(StandardCharsets.UTF_8));
+            assertEquals(CommandLine.EXIT_SUCCESS, sent.get(30, TimeUnit.SECONDS), error.toString(StandardCharsets.UTF_8));
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertArrayEquals(content, Files.readAllBytes(outputDirectory.resolve("file.bin")));
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        assertEquals(CommandLine.EXIT_USAGE, run());
+        assertEquals(CommandLine.EXIT_USAGE, run("upload", "file.bin"));
+        assertEquals(CommandLine.EXIT_USAGE, run("send"));
+        assertEquals(CommandLine.EXIT_USAGE, run("send", directory.resolve("missing.bin").toString()));
+        assertEquals(CommandLine.EXIT_USAGE, run("send", "--port", "65536", directory.toString()));
+        assertEquals(CommandLine.EXIT_USAGE, run("send", "--port"));
+        assertEquals(CommandLine.EXIT_USAGE, run("send", "--verbose", directory.toString()));
+        assertEquals(CommandLine.EXIT_USAGE, run("send", "--limit", "10X", directory.toString()));
+        assertEquals(CommandLine.EXIT_USAGE, run("send", "--limit", "-1k", directory.toString()));
+        assertEquals(CommandLine.EXIT_USAGE, run("send", "--tuning", "fast", directory.toString()));
+        assertEquals(CommandLine.EXIT_USAGE, run("receive", "--jobs", "0", "localhost"));
+        assertEquals(CommandLine.EXIT_USAGE, run("receive", "--output", directory.resolve("missing").toString(), "localhost"));
+        assertEquals(CommandLine.EXIT_USAGE, run("receive", "--output", directory.toString(), "localhost:port"));
+        assertFalse(error.toString(StandardCharsets.UTF_8).isEmpty());
+    }
+
+    private int run(final String... args) {
+        final PrintStream outputStream = new PrintStream(output, true, StandardCharsets.UTF_8);
+        final PrintStream errorStream = new PrintStream(error, true, StandardCharsets.UTF_8);
+        return new CommandLine(outputStream, errorStream, false).run(args);
+    }
+
+    private static int findFreePort() throws IOException {
+        try (final ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package software.isratech.easy_file_transferer.hashing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.isratech.easy_file_transferer.utils.ConfigDirectory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that file hashes are reused until a file's size or modification time changes, and are saved to disk.
+ */
+class FileHashCacheTest {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private String userHome;
+
+    @BeforeEach
+    void useTemporaryConfigDirectory() {
+        userHome = System.getProperty("user.home");
+        System.setProperty("user.home", directory.resolve("home").toString());
+        assumeTrue(ConfigDirectory.get().startsWith(directory), "Config directory is set by the environment");
+    }
+
+    @AfterEach
+    void restoreConfigDirectory() {
+        System.setProperty("user.home", userHome);
+    }
+
+    @Test
+    void unchangedFileIsServedFromTheCache() throws Exception {
+        final Path file = directory.resolve("file.bin");
+        final byte[] content = createContent(1);
+        Files.write(file, content);
+        final FileTime lastModified = FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis());
+        Files.setLastModifiedTime(file, lastModified);
+        final FileHashes fileHashes = FileHashCache.getFileHashes(file.toFile(), CHUNK_SIZE);
+        assertEquals(sha256(content), fileHashes.getFileHash());
+        assertEquals(3, FileHashCache.getCachedChunkHashes(file, CHUNK_SIZE).size());
+        assertTrue(FileHashCache.getCachedChunkHashes(file, 2 * CHUNK_SIZE).isEmpty());
+
+        // same size and modification time, so the cached hashes are returned without reading the file
+        Files.write(file, createContent(2));
+        Files.setLastModifiedTime(file, lastModified);
+        assertSame(fileHashes, FileHashCache.getFileHashes(file.toFile(), CHUNK_SIZE));
+    }
+
+    @Test
+    void changedFileIsHashedAgain() throws Exception {
+        final Path file = directory.resolve("changed.bin");
+        Files.write(file, createContent(3));
+        final FileTime lastModified = FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis());
+        Files.setLastModifiedTime(file, lastModified);
+        FileHashCache.getFileHashes(file.toFile(), CHUNK_SIZE);
+
+        final byte[] changedContent = createContent(4);
+        Files.write(file, changedContent);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified.toMillis() + 2000L));
+        assertEquals(sha256(changedContent), FileHashCache.getFileHashes(file.toFile(), CHUNK_SIZE).getFileHash());
+
+        Files.write(file, changedContent, StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified.toMillis() + 2000L));
+        assertEquals(
+                sha256(Files.readAllBytes(file)),
+                FileHashCache.getFileHashes(file.toFile(), CHUNK_SIZE).getFileHash()
+        );
+    }
+
+    @Test
+    void hashesAreSavedToTheConfigDirectory() throws Exception {
+        final Path file = directory.resolve("saved.bin");
+        Files.write(file, createContent(5));
+        FileHashCache.getFileHashes(file.toFile(), CHUNK_SIZE);
+        final Path indexFile = ConfigDirectory.get().resolve("hash-cache");
+        assertTrue(Files.isRegularFile(indexFile));
+        final String index = new String(Files.readAllBytes(indexFile), StandardCharsets.ISO_8859_1);
+        assertTrue(index.contains(file.toRealPath().toString()));
+    }
+
+    private static byte[] createContent(final long seed) {
+        final byte[] content = new byte[2 * CHUNK_SIZE + 100];
+        new Random(seed).nextBytes(content);
+        return content;
+    }
+
+    private static String sha256(final byte[] content) throws Exception {
+        return Hashing.toHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
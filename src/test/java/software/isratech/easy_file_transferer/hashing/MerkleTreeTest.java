@@ -0,0 +1,58 @@
+package software.isratech.easy_file_transferer.hashing;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the root hashes the sender and receiver compare.
+ */
+class MerkleTreeTest {
+
+    @Test
+    void rootCombinesPairsAndCarriesUnpairedHashes() throws Exception {
+        final List<byte[]> leaves = createLeaves(3);
+        final byte[] expected = sha256(sha256(leaves.get(0), leaves.get(1)), leaves.get(2));
+        assertArrayEquals(expected, MerkleTree.getRoot(leaves));
+    }
+
+    @Test
+    void singleLeafIsTheRoot() throws Exception {
+        final List<byte[]> leaves = createLeaves(1);
+        assertArrayEquals(leaves.get(0), MerkleTree.getRoot(leaves));
+        assertArrayEquals(sha256(), MerkleTree.getRoot(List.of()));
+    }
+
+    @Test
+    void everyChangedLeafChangesTheRoot() throws Exception {
+        final List<byte[]> leaves = createLeaves(7);
+        final byte[] root = MerkleTree.getRoot(leaves);
+        for (int i = 0; i < leaves.size(); i++) {
+            final List<byte[]> changedLeaves = new ArrayList<>(leaves);
+            final byte[] changedLeaf = leaves.get(i).clone();
+            changedLeaf[5] ^= 1;
+            changedLeaves.set(i, changedLeaf);
+            assertFalse(MessageDigest.isEqual(root, MerkleTree.getRoot(changedLeaves)), "Leaf " + i);
+        }
+    }
+
+    private static List<byte[]> createLeaves(final int count) throws Exception {
+        final List<byte[]> leaves = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            leaves.add(sha256(new byte[]{(byte) i}));
+        }
+        return leaves;
+    }
+
+    private static byte[] sha256(final byte[]... parts) throws Exception {
+        final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        for (final byte[] part : parts) {
+            messageDigest.update(part);
+        }
+        return messageDigest.digest();
+    }
+}
@@ -0,0 +1,86 @@
+package software.isratech.easy_file_transferer.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.isratech.easy_file_transferer.net.TransferEngine;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the counters transfers record and the JSON they are exported as.
+ */
+class TransferMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void differenceCountsRecordedCalls() {
+        final MetricsSnapshot start = TransferMetrics.snapshot();
+        final long now = System.nanoTime();
+        TransferMetrics.recordSocketWrite(now, 100L);
+        TransferMetrics.recordSocketRead(now, 40L);
+        TransferMetrics.recordSocketRead(now, -1L);
+        TransferMetrics.recordSendfile(now, 50L);
+        TransferMetrics.recordDiskRead(now, 10L);
+        TransferMetrics.recordReadAhead(-1L);
+        TransferMetrics.recordDiskWrite(now, 20L);
+        TransferMetrics.recordHashing(now, 30L);
+        final MetricsSnapshot difference = TransferMetrics.snapshot().since(start);
+        assertEquals(150L, difference.getBytesSent());
+        assertEquals(40L, difference.getBytesReceived());
+        assertEquals(60L, difference.getBytesRead());
+        assertEquals(20L, difference.getBytesWritten());
+        assertEquals(30L, difference.getBytesHashed());
+        assertEquals(4L, difference.getSocketCalls());
+        assertEquals(3L, difference.getDiskCalls());
+        assertTrue(difference.getNanoTime() >= 0L);
+        assertTrue(difference.getSocketWaitNanos() >= 0L);
+    }
+
+    @Test
+    void sentFileIsCounted() throws Exception {
+        final byte[] content = new byte[2 * 1024 * 1024 + 5];
+        new Random(13).nextBytes(content);
+        final Path file = Files.write(directory.resolve("file.bin"), content);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final MetricsSnapshot start = TransferMetrics.snapshot();
+        try (final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            TransferEngine.sendFile(fileChannel, Channels.newChannel(output), 0L, content.length, sent -> {
+            });
+        }
+        final MetricsSnapshot difference = TransferMetrics.snapshot().since(start);
+        assertEquals(content.length, output.size());
+        assertEquals(content.length, difference.getBytesSent());
+        assertEquals(content.length, difference.getBytesRead());
+    }
+
+    @Test
+    void jsonDoesNotDependOnTheLocale() {
+        final MetricsSnapshot difference = new MetricsSnapshot(2_000_000_000L, 3_000_000L, 1_000_000L, 4L, 5L, 6L, 7L, 8L,
+                9_000_000L, 10_000_000L, 11_000_000L);
+        final Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            final String json = difference.toJson();
+            assertTrue(json.startsWith("{") && json.endsWith("}"), json);
+            assertTrue(json.contains("\"durationMillis\": 2000,"), json);
+            assertTrue(json.contains("\"bytesSent\": 3000000,"), json);
+            assertTrue(json.contains("\"sentBytesPerSecond\": 1500000,"), json);
+            assertTrue(json.contains("\"receivedBytesPerSecond\": 500000,"), json);
+            assertTrue(json.contains("\"socketWaitMillis\": 9,"), json);
+            assertTrue(json.contains("\"hashMillis\": 11" + System.lineSeparator() + "}"), json);
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
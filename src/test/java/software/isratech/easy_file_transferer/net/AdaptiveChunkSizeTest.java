@@ -0,0 +1,99 @@
+package software.isratech.easy_file_transferer.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.isratech.easy_file_transferer.Constants.*;
+
+/**
+ * Checks how the I/O chunk size follows the observed throughput, and the buffers it is moved through.
+ */
+class AdaptiveChunkSizeTest {
+
+    private static final int MAX_SIZE = 8 * INITIAL_IO_CHUNK_SIZE;
+
+    /**
+     * A cycle well below the longest cycle time.
+     */
+    private static final long FAST_CYCLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    @Test
+    void sizeGrowsWhileThroughputHolds() {
+        final AdaptiveChunkSize adaptiveChunkSize = new AdaptiveChunkSize(MAX_SIZE);
+        assertEquals(INITIAL_IO_CHUNK_SIZE, adaptiveChunkSize.getSize());
+        adaptiveChunkSize.record(adaptiveChunkSize.getSize(), FAST_CYCLE_NANOS);
+        assertEquals(2 * INITIAL_IO_CHUNK_SIZE, adaptiveChunkSize.getSize());
+        for (int i = 0; i < 20; i++) {
+            final int size = adaptiveChunkSize.getSize();
+            adaptiveChunkSize.record(size, FAST_CYCLE_NANOS * size / INITIAL_IO_CHUNK_SIZE);
+        }
+        assertEquals(MAX_SIZE, adaptiveChunkSize.getSize());
+        assertEquals(1000, adaptiveChunkSize.next(1000L));
+        assertEquals(MAX_SIZE, adaptiveChunkSize.next(Long.MAX_VALUE));
+    }
+
+    @Test
+    void sizeHalvesOnSlowCycles() {
+        final AdaptiveChunkSize adaptiveChunkSize = new AdaptiveChunkSize(MAX_SIZE);
+        adaptiveChunkSize.record(adaptiveChunkSize.getSize(), FAST_CYCLE_NANOS);
+        adaptiveChunkSize.record(adaptiveChunkSize.getSize(), FAST_CYCLE_NANOS);
+        final int size = adaptiveChunkSize.getSize();
+        adaptiveChunkSize.record(size, TimeUnit.MILLISECONDS.toNanos(MAX_IO_CYCLE_TIME + 1));
+        assertEquals(size / 2, adaptiveChunkSize.getSize());
+        for (int i = 0; i < 20; i++) {
+            adaptiveChunkSize.record(adaptiveChunkSize.getSize(), TimeUnit.MILLISECONDS.toNanos(MAX_IO_CYCLE_TIME + 1));
+        }
+        assertEquals(MIN_IO_CHUNK_SIZE, adaptiveChunkSize.getSize());
+    }
+
+    @Test
+    void sizeHalvesWhenThroughputCollapses() {
+        final AdaptiveChunkSize adaptiveChunkSize = new AdaptiveChunkSize(MAX_SIZE);
+        adaptiveChunkSize.record(adaptiveChunkSize.getSize(), FAST_CYCLE_NANOS);
+        final int size = adaptiveChunkSize.getSize();
+        adaptiveChunkSize.record(size, FAST_CYCLE_NANOS * size / INITIAL_IO_CHUNK_SIZE * 10);
+        assertEquals(size / 2, adaptiveChunkSize.getSize());
+    }
+
+    @Test
+    void emptyCyclesAreIgnored() {
+        final AdaptiveChunkSize adaptiveChunkSize = new AdaptiveChunkSize(MAX_SIZE);
+        adaptiveChunkSize.record(0L, FAST_CYCLE_NANOS);
+        adaptiveChunkSize.record(-1L, FAST_CYCLE_NANOS);
+        adaptiveChunkSize.record(INITIAL_IO_CHUNK_SIZE, 0L);
+        assertEquals(INITIAL_IO_CHUNK_SIZE, adaptiveChunkSize.getSize());
+    }
+
+    @Test
+    void smallBuffersBoundTheSize() {
+        final AdaptiveChunkSize adaptiveChunkSize = new AdaptiveChunkSize(1000);
+        assertEquals(1000, adaptiveChunkSize.getSize());
+        adaptiveChunkSize.record(1000L, TimeUnit.MILLISECONDS.toNanos(MAX_IO_CYCLE_TIME + 1));
+        assertEquals(1000, adaptiveChunkSize.getSize());
+        adaptiveChunkSize.record(1000L, FAST_CYCLE_NANOS);
+        assertEquals(1000, adaptiveChunkSize.getSize());
+    }
+
+    @Test
+    void buffersAreSizedAndReused() {
+        final ByteBuffer smallBuffer = BufferPool.acquire(1L);
+        assertTrue(smallBuffer.isDirect());
+        assertEquals(MIN_IO_CHUNK_SIZE, smallBuffer.capacity());
+        assertEquals(2 * MIN_IO_CHUNK_SIZE, BufferPool.acquire(MIN_IO_CHUNK_SIZE + 1L).capacity());
+        final ByteBuffer largeBuffer = BufferPool.acquire(Long.MAX_VALUE);
+        assertTrue(largeBuffer.capacity() >= DEFAULT_BYTES);
+        assertEquals(largeBuffer.capacity(), BufferPool.acquire().capacity());
+
+        smallBuffer.position(10);
+        BufferPool.release(smallBuffer);
+        final ByteBuffer reusedBuffer = BufferPool.acquire(MIN_IO_CHUNK_SIZE);
+        assertSame(smallBuffer, reusedBuffer);
+        assertEquals(0, reusedBuffer.position());
+        assertEquals(reusedBuffer.capacity(), reusedBuffer.limit());
+        BufferPool.release(reusedBuffer);
+        BufferPool.release(largeBuffer);
+    }
+}
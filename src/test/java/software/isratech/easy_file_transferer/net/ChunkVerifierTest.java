@@ -0,0 +1,167 @@
+package software.isratech.easy_file_transferer.net;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.isratech.easy_file_transferer.hashing.TreeHashing;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.isratech.easy_file_transferer.hashing.Hashing.toHex;
+
+/**
+ * Checks that corrupted chunks of a received file are detected and fetched again.
+ */
+class ChunkVerifierTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int FILE_SIZE = 5 * CHUNK_SIZE + 1234;
+
+    private static final int CORRUPTED_CHUNK = 2;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void corruptedChunkIsDetected() throws Exception {
+        final byte[] content = createContent();
+        final Path source = writeSource(content);
+        final ChunkVerifier chunkVerifier = verify(receiveCorrupted(content), content);
+        assertEquals(List.of(CORRUPTED_CHUNK), chunkVerifier.findCorruptedChunks(getChunkHashes(source)));
+        assertNotEquals(TreeHashing.getRootHash(source.toFile(), CHUNK_SIZE), chunkVerifier.getRootHash());
+    }
+
+    @Test
+    void corruptedChunkIsFetchedAgain() throws Exception {
+        final byte[] content = createContent();
+        final Path source = writeSource(content);
+        final Path received = receiveCorrupted(content);
+        final ChunkVerifier chunkVerifier = verify(received, content);
+        final List<String> requests = new ArrayList<>();
+        try (final ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+            serverSocketChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            final ExecutorService executorService = Executors.newSingleThreadExecutor();
+            try {
+                final Future<?> served = executorService.submit(() -> {
+                    serveChunks(serverSocketChannel, source, requests);
+                    return null;
+                });
+                try (final SocketChannel socketChannel = SocketChannel.open(serverSocketChannel.getLocalAddress())) {
+                    final Connection connection = new Connection(socketChannel.socket());
+                    assertTrue(Communication.repairChunks(connection, received, chunkVerifier, new TransferStatus(status -> {
+                    })));
+                }
+                served.get(30, TimeUnit.SECONDS);
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+        assertEquals(List.of(ChunkVerifier.REFETCH_PREFIX + CORRUPTED_CHUNK), requests);
+        assertArrayEquals(content, Files.readAllBytes(received));
+        assertEquals(TreeHashing.getRootHash(source.toFile(), CHUNK_SIZE), chunkVerifier.getRootHash());
+    }
+
+    @Test
+    void missingChunksAreReported() throws Exception {
+        final byte[] content = createContent();
+        final Path source = writeSource(content);
+        final ChunkVerifier chunkVerifier = new ChunkVerifier(CHUNK_SIZE, FILE_SIZE, List.of());
+        try (final FileChannel fileChannel = FileChannel.open(source, StandardOpenOption.READ)) {
+            chunkVerifier.hashExistingPart(fileChannel, 3L * CHUNK_SIZE + 17);
+        }
+        assertEquals(List.of(3, 4, 5), chunkVerifier.findCorruptedChunks(getChunkHashes(source)));
+        assertThrows(IOException.class, chunkVerifier::getRootHash);
+    }
+
+    @Test
+    void tooManyChunksAreRejected() {
+        assertThrows(ProtocolException.class, () -> new ChunkVerifier(0, FILE_SIZE, List.of()));
+        assertThrows(ProtocolException.class, () -> new ChunkVerifier(1, Long.MAX_VALUE / 2, List.of()));
+    }
+
+    private static byte[] createContent() {
+        final byte[] content = new byte[FILE_SIZE];
+        new Random(7).nextBytes(content);
+        return content;
+    }
+
+    private Path writeSource(final byte[] content) throws IOException {
+        return Files.write(directory.resolve("source.bin"), content);
+    }
+
+    /**
+     * Writes the content with one flipped byte, like a transfer that was corrupted on its way.
+     */
+    private Path receiveCorrupted(final byte[] content) throws IOException {
+        final byte[] corrupted = content.clone();
+        corrupted[CORRUPTED_CHUNK * CHUNK_SIZE + 100] ^= 1;
+        return Files.write(directory.resolve("received.bin"), corrupted);
+    }
+
+    /**
+     * Hashes the received file chunk by chunk, like a transfer does while receiving it.
+     */
+    private static ChunkVerifier verify(final Path received, final byte[] content) throws Exception {
+        final ChunkVerifier chunkVerifier = new ChunkVerifier(CHUNK_SIZE, content.length, List.of());
+        try (final FileChannel fileChannel = FileChannel.open(received, StandardOpenOption.READ)) {
+            chunkVerifier.hasherAt(fileChannel, 0L).update(ByteBuffer.wrap(Files.readAllBytes(received)));
+        }
+        return chunkVerifier;
+    }
+
+    private static List<byte[]> getChunkHashes(final Path file) throws IOException {
+        try (final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final int chunks = (int) ((fileChannel.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            return TreeHashing.getChunkHashes(fileChannel, fileChannel.size(), CHUNK_SIZE, 0, chunks);
+        }
+    }
+
+    /**
+     * Answers the chunk hash request and the refetch requests of a single client, like the server does.
+     */
+    private static void serveChunks(final ServerSocketChannel serverSocketChannel, final Path source, final List<String> requests) throws IOException {
+        try (
+                final SocketChannel socketChannel = serverSocketChannel.accept();
+                final FileChannel fileChannel = FileChannel.open(source, StandardOpenOption.READ)
+        ) {
+            final Connection connection = new Connection(socketChannel.socket());
+            assertEquals(ChunkVerifier.CHUNK_HASHES_REQUEST, connection.receiveMessage());
+            final List<byte[]> chunkHashes = getChunkHashes(source);
+            final List<String> messages = new ArrayList<>();
+            messages.add(Integer.toString(chunkHashes.size()));
+            for (final byte[] chunkHash : chunkHashes) {
+                messages.add(toHex(chunkHash));
+            }
+            connection.sendMessages(messages);
+            String request;
+            while ((request = connection.receiveMessage()) != null) {
+                requests.add(request);
+                final long position = Long.parseLong(request.substring(ChunkVerifier.REFETCH_PREFIX.length())) * CHUNK_SIZE;
+                final ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, fileChannel.size() - position));
+                fileChannel.read(chunk, position);
+                chunk.flip();
+                while (chunk.hasRemaining()) {
+                    connection.getDataOutput().write(chunk);
+                }
+            }
+        }
+    }
+}
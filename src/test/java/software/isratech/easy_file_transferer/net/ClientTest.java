@@ -0,0 +1,65 @@
+package software.isratech.easy_file_transferer.net;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the name of a received file cannot write outside of the download directory.
+ */
+class ClientTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fileNameLeavingTheDownloadDirectoryIsRejected() throws Exception {
+        final Path outputDirectory = Files.createDirectory(directory.resolve("receive"));
+        assertRejected(outputDirectory, "../escaped.bin");
+        assertRejected(outputDirectory, "/tmp/escaped.bin");
+        assertRejected(outputDirectory, "C:escaped.bin");
+        assertFalse(Files.exists(directory.resolve("escaped.bin")));
+        try (final Stream<Path> files = Files.list(outputDirectory)) {
+            assertEquals(0L, files.count());
+        }
+    }
+
+    /**
+     * Lets a fake server announce a file name and checks that the client rejects it before replying.
+     */
+    private static void assertRejected(final Path outputDirectory, final String fileName) throws Exception {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try (final ServerSocket serverSocket = new ServerSocket()) {
+            serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            final Future<String> reply = executorService.submit(() -> {
+                try (final Socket socket = serverSocket.accept()) {
+                    final Connection connection = new Connection(socket);
+                    connection.receiveMessage();
+                    connection.sendMessage(fileName);
+                    return connection.receiveMessage();
+                }
+            });
+            final Client client = new Client();
+            assertThrows(ProtocolException.class, () -> client.connect(InetAddress.getLoopbackAddress().getHostAddress(),
+                    serverSocket.getLocalPort(), outputDirectory.toString(), status -> {
+                    }));
+            assertNull(reply.get(30, TimeUnit.SECONDS));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package software.isratech.easy_file_transferer.net;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rebuilds files from changed copies and checks that malformed instructions are rejected.
+ */
+class DeltaSyncTest {
+
+    private static final int FILE_SIZE = 1 << 20;
+
+    private static final int BLOCK_SIZE = DeltaSync.getBlockSize(FILE_SIZE);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void identicalFileIsCopiedCompletely() throws Exception {
+        final byte[] content = randomBytes(FILE_SIZE, 1);
+        final Delta delta = sync(content, content);
+        assertArrayEquals(content, delta.rebuilt);
+        assertTrue(delta.instructionBytes < 1024, "Sent " + delta.instructionBytes + " bytes");
+    }
+
+    @Test
+    void insertedDataIsSentAlone() throws Exception {
+        final byte[] existing = randomBytes(FILE_SIZE, 2);
+        final byte[] content = concat(
+                Arrays.copyOfRange(existing, 0, 300_000),
+                randomBytes(5000, 3),
+                Arrays.copyOfRange(existing, 300_000, existing.length)
+        );
+        final Delta delta = sync(existing, content);
+        assertArrayEquals(content, delta.rebuilt);
+        assertTrue(delta.instructionBytes < 5000 + 2 * BLOCK_SIZE + 1024, "Sent " + delta.instructionBytes + " bytes");
+    }
+
+    @Test
+    void deletedDataIsSkipped() throws Exception {
+        final byte[] existing = randomBytes(FILE_SIZE, 4);
+        final byte[] content = concat(
+                Arrays.copyOfRange(existing, 0, 200_000),
+                Arrays.copyOfRange(existing, 260_000, existing.length)
+        );
+        final Delta delta = sync(existing, content);
+        assertArrayEquals(content, delta.rebuilt);
+        assertTrue(delta.instructionBytes < 2 * BLOCK_SIZE + 1024, "Sent " + delta.instructionBytes + " bytes");
+    }
+
+    @Test
+    void shrunkFileIsRebuiltFromTheLargerCopy() throws Exception {
+        final byte[] existing = randomBytes(FILE_SIZE, 12);
+        final byte[] content = Arrays.copyOfRange(existing, 300_000, existing.length - 100_000);
+        final Delta delta = sync(existing, content);
+        assertArrayEquals(content, delta.rebuilt);
+        assertTrue(delta.instructionBytes < 2 * BLOCK_SIZE + 1024, "Sent " + delta.instructionBytes + " bytes");
+    }
+
+    @Test
+    void shiftedDataIsFoundAtEveryOffset() throws Exception {
+        final byte[] existing = randomBytes(FILE_SIZE, 5);
+        final byte[] content = concat(randomBytes(7, 6), existing, randomBytes(BLOCK_SIZE / 2, 7));
+        final Delta delta = sync(existing, content);
+        assertArrayEquals(content, delta.rebuilt);
+        assertTrue(delta.instructionBytes < 2 * BLOCK_SIZE + 1024, "Sent " + delta.instructionBytes + " bytes");
+    }
+
+    @Test
+    void unrelatedFileIsSentCompletely() throws Exception {
+        final byte[] existing = randomBytes(FILE_SIZE, 8);
+        final byte[] content = randomBytes(FILE_SIZE + 13, 9);
+        final Delta delta = sync(existing, content);
+        assertArrayEquals(content, delta.rebuilt);
+    }
+
+    @Test
+    void copyBeyondTheExistingBlocksIsRejected() throws IOException {
+        final ByteBuffer instructions = ByteBuffer.allocate(64);
+        instructions.put((byte) 'C').putInt(3).putInt(2).put((byte) 'E');
+        assertThrows(ProtocolException.class, () -> receive(instructions, 4, 5L * BLOCK_SIZE));
+    }
+
+    @Test
+    void copyWithNegativeBlockIsRejected() throws IOException {
+        final ByteBuffer instructions = ByteBuffer.allocate(64);
+        instructions.put((byte) 'C').putInt(-1).putInt(1).put((byte) 'E');
+        assertThrows(ProtocolException.class, () -> receive(instructions, 4, 4L * BLOCK_SIZE));
+    }
+
+    @Test
+    void copyWithoutBlocksIsRejected() throws IOException {
+        final ByteBuffer instructions = ByteBuffer.allocate(64);
+        instructions.put((byte) 'C').putInt(0).putInt(0).put((byte) 'E');
+        assertThrows(ProtocolException.class, () -> receive(instructions, 4, 4L * BLOCK_SIZE));
+    }
+
+    @Test
+    void copyBeyondTheFileSizeIsRejected() throws IOException {
+        final ByteBuffer instructions = ByteBuffer.allocate(64);
+        instructions.put((byte) 'C').putInt(0).putInt(2).put((byte) 'E');
+        assertThrows(ProtocolException.class, () -> receive(instructions, 4, BLOCK_SIZE + 1L));
+    }
+
+    @Test
+    void dataBeyondTheFileSizeIsRejected() throws IOException {
+        final ByteBuffer instructions = ByteBuffer.allocate(64);
+        instructions.put((byte) 'D').putLong(11L).put(new byte[11]).put((byte) 'E');
+        assertThrows(ProtocolException.class, () -> receive(instructions, 4, 10L));
+    }
+
+    @Test
+    void negativeDataLengthIsRejected() throws IOException {
+        final ByteBuffer instructions = ByteBuffer.allocate(64);
+        instructions.put((byte) 'D').putLong(-1L).put((byte) 'E');
+        assertThrows(ProtocolException.class, () -> receive(instructions, 4, 10L));
+    }
+
+    @Test
+    void unknownInstructionIsRejected() throws IOException {
+        final ByteBuffer instructions = ByteBuffer.allocate(64);
+        instructions.put((byte) 'X').putLong(0L).put((byte) 'E');
+        assertThrows(ProtocolException.class, () -> receive(instructions, 4, 10L));
+    }
+
+    @Test
+    void endBeforeTheFileIsCompleteIsRejected() throws IOException {
+        final ByteBuffer instructions = ByteBuffer.allocate(64);
+        instructions.put((byte) 'D').putLong(5L).put(new byte[5]).put((byte) 'E');
+        assertThrows(ProtocolException.class, () -> receive(instructions, 4, 10L));
+    }
+
+    @Test
+    void truncatedInstructionsAreRejected() throws IOException {
+        final ByteBuffer instructions = ByteBuffer.allocate(64);
+        instructions.put((byte) 'C').putInt(0);
+        assertThrows(EOFException.class, () -> receive(instructions, 4, BLOCK_SIZE));
+    }
+
+    @Test
+    void tooManySignaturesAreRejected() {
+        assertThrows(ProtocolException.class, () -> DeltaSync.receiveSignatures(
+                Channels.newChannel(new ByteArrayInputStream(new byte[0])), (1L << 22) + 1));
+        assertThrows(ProtocolException.class, () -> DeltaSync.receiveSignatures(
+                Channels.newChannel(new ByteArrayInputStream(new byte[0])), -1));
+    }
+
+    /**
+     * Result of a delta transfer.
+     */
+    private static class Delta {
+
+        private final byte[] rebuilt;
+
+        private final long instructionBytes;
+
+        private Delta(final byte[] rebuilt, final long instructionBytes) {
+            this.rebuilt = rebuilt;
+            this.instructionBytes = instructionBytes;
+        }
+    }
+
+    /**
+     * Rebuilds a file from an existing copy, like the sender and receiver of a delta transfer do.
+     */
+    private Delta sync(final byte[] existing, final byte[] content) throws Exception {
+        final Path existingPath = Files.write(directory.resolve("existing.bin"), existing);
+        final Path contentPath = Files.write(directory.resolve("content.bin"), content);
+        final Path rebuiltPath = directory.resolve("rebuilt.bin");
+        final long blockCount = existing.length / BLOCK_SIZE;
+        final ByteArrayOutputStream signatureStream = new ByteArrayOutputStream();
+        final ByteArrayOutputStream instructionStream = new ByteArrayOutputStream();
+        final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        try (
+                final FileChannel existingFile = FileChannel.open(existingPath, StandardOpenOption.READ);
+                final FileChannel contentFile = FileChannel.open(contentPath, StandardOpenOption.READ);
+                final FileChannel rebuiltFile = FileChannel.open(rebuiltPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)
+        ) {
+            DeltaSync.sendSignatures(existingFile, existing.length, BLOCK_SIZE, Channels.newChannel(signatureStream));
+            final DeltaSync.Signatures signatures = DeltaSync.receiveSignatures(
+                    Channels.newChannel(new ByteArrayInputStream(signatureStream.toByteArray())), blockCount);
+            DeltaSync.sendDelta(contentFile, signatures, BLOCK_SIZE, Channels.newChannel(instructionStream), described -> {
+            });
+            DeltaSync.receiveDelta(Channels.newChannel(new ByteArrayInputStream(instructionStream.toByteArray())), existingFile,
+                    blockCount, BLOCK_SIZE, rebuiltFile, content.length, messageDigest, written -> {
+                    });
+        }
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(content), messageDigest.digest());
+        return new Delta(Files.readAllBytes(rebuiltPath), instructionStream.size());
+    }
+
+    /**
+     * Rebuilds a file of the given size from handcrafted instructions and an existing copy of the given blocks.
+     */
+    private void receive(final ByteBuffer instructions, final long blockCount, final long fileSize) throws Exception {
+        final Path existingPath = Files.write(directory.resolve("existing.bin"), randomBytes((int) blockCount * BLOCK_SIZE, 10));
+        try (
+                final FileChannel existingFile = FileChannel.open(existingPath, StandardOpenOption.READ);
+                final FileChannel rebuiltFile = FileChannel.open(directory.resolve("rebuilt.bin"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)
+        ) {
+            DeltaSync.receiveDelta(
+                    Channels.newChannel(new ByteArrayInputStream(instructions.array(), 0, instructions.position())),
+                    existingFile, blockCount, BLOCK_SIZE, rebuiltFile, fileSize, MessageDigest.getInstance("SHA-256"), written -> {
+                    }
+            );
+        }
+    }
+
+    private static byte[] randomBytes(final int length, final long seed) {
+        final byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] concat(final byte[]... parts) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (final byte[] part : parts) {
+            output.writeBytes(part);
+        }
+        return output.toByteArray();
+    }
+}
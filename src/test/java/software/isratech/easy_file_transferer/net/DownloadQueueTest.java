@@ -0,0 +1,148 @@
+package software.isratech.easy_file_transferer.net;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.isratech.easy_file_transferer.Constants.MAX_DOWNLOAD_CONCURRENCY;
+
+/**
+ * Runs downloads from several servers through the queue, and checks how downloads are cancelled and listened to.
+ */
+class DownloadQueueTest {
+
+    private static final String HOST = InetAddress.getLoopbackAddress().getHostAddress();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void filesAreReceivedFromSeveralServers() throws Exception {
+        final Path outputDirectory = Files.createDirectory(directory.resolve("receive"));
+        final byte[] first = createContent(1);
+        final byte[] second = createContent(2);
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try (final DownloadQueue downloadQueue = new DownloadQueue(2)) {
+            final int firstPort = findFreePort();
+            final int secondPort = findFreePort();
+            final Future<?> firstServed = executorService.submit(() -> serve(Files.write(directory.resolve("first.bin"), first), firstPort));
+            final Future<?> secondServed = executorService.submit(() -> serve(Files.write(directory.resolve("second.bin"), second), secondPort));
+            // a server that does not listen yet fails the first attempt, which is retried
+            downloadQueue.add(HOST, firstPort, outputDirectory.toString());
+            downloadQueue.add(HOST, secondPort, outputDirectory.toString());
+            assertTimeoutPreemptively(Duration.ofSeconds(60L), downloadQueue::awaitCompletion);
+            for (final DownloadJob job : downloadQueue.getJobs()) {
+                assertEquals(DownloadJob.State.COMPLETED, job.getState(), job.getStatus());
+            }
+            firstServed.get(30, TimeUnit.SECONDS);
+            secondServed.get(30, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertArrayEquals(first, Files.readAllBytes(outputDirectory.resolve("first.bin")));
+        assertArrayEquals(second, Files.readAllBytes(outputDirectory.resolve("second.bin")));
+    }
+
+    @Test
+    void filesOfTheSameNameAreReceivedOneAfterAnother() throws Exception {
+        final Path outputDirectory = Files.createDirectory(directory.resolve("receive"));
+        final byte[] first = createContent(3);
+        final byte[] second = createContent(4);
+        final Path firstFile = Files.write(Files.createDirectory(directory.resolve("first")).resolve("same.bin"), first);
+        final Path secondFile = Files.write(Files.createDirectory(directory.resolve("second")).resolve("same.bin"), second);
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try (final DownloadQueue downloadQueue = new DownloadQueue(2)) {
+            final int firstPort = findFreePort();
+            final int secondPort = findFreePort();
+            final Future<?> firstServed = executorService.submit(() -> serve(firstFile, firstPort));
+            final Future<?> secondServed = executorService.submit(() -> serve(secondFile, secondPort));
+            downloadQueue.add(HOST, firstPort, outputDirectory.toString());
+            downloadQueue.add(HOST, secondPort, outputDirectory.toString());
+            assertTimeoutPreemptively(Duration.ofSeconds(60L), downloadQueue::awaitCompletion);
+            for (final DownloadJob job : downloadQueue.getJobs()) {
+                assertEquals(DownloadJob.State.COMPLETED, job.getState(), job.getStatus());
+            }
+            firstServed.get(30, TimeUnit.SECONDS);
+            secondServed.get(30, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdownNow();
+        }
+        final byte[] received = Files.readAllBytes(outputDirectory.resolve("same.bin"));
+        assertTrue(Arrays.equals(first, received) || Arrays.equals(second, received));
+    }
+
+    @Test
+    void cancelledDownloadIsNotRetried() throws Exception {
+        try (final DownloadQueue downloadQueue = new DownloadQueue(1)) {
+            final DownloadJob job = downloadQueue.add(HOST, findFreePort(), directory.toString());
+            downloadQueue.cancel(job);
+            assertTimeoutPreemptively(Duration.ofSeconds(10L), downloadQueue::awaitCompletion);
+            assertEquals(DownloadJob.State.CANCELLED, job.getState());
+            Thread.sleep(200L);
+            assertEquals(DownloadJob.State.CANCELLED, job.getState());
+        }
+    }
+
+    @Test
+    void listenerIsOnlyRemovedByItself() throws Exception {
+        final BlockingQueue<DownloadJob> changes = new LinkedBlockingQueue<>();
+        final DownloadQueue.Listener listener = changes::add;
+        try (final DownloadQueue downloadQueue = new DownloadQueue(1)) {
+            downloadQueue.setListener(listener);
+            downloadQueue.removeListener(job -> {
+            });
+            final DownloadJob job = downloadQueue.add(HOST, findFreePort(), directory.toString());
+            assertSame(job, changes.poll(10, TimeUnit.SECONDS));
+            downloadQueue.removeListener(listener);
+            downloadQueue.cancel(job);
+            assertTimeoutPreemptively(Duration.ofSeconds(10L), downloadQueue::awaitCompletion);
+            changes.clear();
+            downloadQueue.retry(job);
+            downloadQueue.cancel(job);
+            assertTrue(changes.isEmpty());
+        }
+    }
+
+    @Test
+    void concurrencyIsBounded() {
+        try (final DownloadQueue downloadQueue = new DownloadQueue(0)) {
+            assertEquals(1, downloadQueue.getConcurrency());
+            downloadQueue.setConcurrency(MAX_DOWNLOAD_CONCURRENCY + 1);
+            assertEquals(MAX_DOWNLOAD_CONCURRENCY, downloadQueue.getConcurrency());
+            downloadQueue.setConcurrency(3);
+            assertEquals(3, downloadQueue.getConcurrency());
+        }
+    }
+
+    private static Void serve(final Path file, final int port) throws Exception {
+        try (final ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+            new Server().serve(serverSocketChannel.socket(), HOST, port, Manifest.of(List.of(file.toFile())), status -> {
+            });
+        }
+        return null;
+    }
+
+    private static byte[] createContent(final long seed) {
+        final byte[] content = new byte[1024 * 1024 + 3];
+        new Random(seed).nextBytes(content);
+        return content;
+    }
+
+    private static int findFreePort() throws IOException {
+        try (final ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+}
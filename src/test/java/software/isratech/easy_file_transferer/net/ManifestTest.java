@@ -0,0 +1,76 @@
+package software.isratech.easy_file_transferer.net;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.ProtocolException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that received manifests cannot write outside of the download directory.
+ */
+class ManifestTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void relativePathsResolveInsideTheDownloadDirectory() throws ProtocolException {
+        assertEquals(directory.resolve("a.txt").toAbsolutePath(), Manifest.resolve(directory, "a.txt"));
+        assertEquals(directory.resolve("folder").resolve("b.txt").toAbsolutePath(), Manifest.resolve(directory, "folder/b.txt"));
+        assertEquals(directory.resolve("..file").toAbsolutePath(), Manifest.resolve(directory, "..file"));
+    }
+
+    @Test
+    void parentDirectoriesAreRejected() {
+        assertIllegal("..");
+        assertIllegal("../a.txt");
+        assertIllegal("folder/../../a.txt");
+        assertIllegal("folder/../a.txt");
+        assertIllegal("folder/..");
+    }
+
+    @Test
+    void absolutePathsAreRejected() {
+        assertIllegal("/etc/passwd");
+        assertIllegal("//server/share/a.txt");
+        assertIllegal("\\\\server\\share\\a.txt");
+        assertIllegal("\\Windows\\a.txt");
+    }
+
+    @Test
+    void driveLettersAreRejected() {
+        assertIllegal("C:\\Windows\\a.txt");
+        assertIllegal("C:/Windows/a.txt");
+        assertIllegal("c:a.txt");
+        assertIllegal("D:");
+    }
+
+    @Test
+    void emptyAndCurrentDirectoryNamesAreRejected() {
+        assertIllegal("");
+        assertIllegal(".");
+        assertIllegal("folder//a.txt");
+        assertIllegal("./a.txt");
+        assertIllegal("folder/");
+        assertIllegal("..\\a.txt");
+    }
+
+    @Test
+    void malformedEntriesAreRejected() throws ProtocolException {
+        final Manifest.Entry entry = Manifest.Entry.parse(Manifest.Entry.parse("F:12:folder/a.txt").format());
+        assertEquals("folder/a.txt", entry.getPath());
+        assertEquals(12L, entry.getSize());
+        assertFalse(entry.isDirectory());
+        assertThrows(ProtocolException.class, () -> Manifest.Entry.parse("F:-1:a.txt"));
+        assertThrows(ProtocolException.class, () -> Manifest.Entry.parse("F:abc:a.txt"));
+        assertThrows(ProtocolException.class, () -> Manifest.Entry.parse("F:12"));
+        assertThrows(ProtocolException.class, () -> Manifest.Entry.parse("X:a.txt"));
+    }
+
+    private void assertIllegal(final String relativePath) {
+        assertThrows(ProtocolException.class, () -> Manifest.resolve(directory, relativePath), relativePath);
+    }
+}
@@ -0,0 +1,49 @@
+package software.isratech.easy_file_transferer.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks how extensions are appended to and parsed from protocol messages.
+ */
+class ProtocolExtensionsTest {
+
+    @Test
+    void appendedExtensionsAreParsed() {
+        final Map<String, String> extensions = new LinkedHashMap<>();
+        extensions.put(ProtocolExtensions.STREAMS, "4");
+        extensions.put(ProtocolExtensions.COMPRESS, "deflate,zstd");
+        extensions.put(ProtocolExtensions.MANIFEST, "");
+        final String message = ProtocolExtensions.append("Received Name", extensions);
+        assertEquals("Received Name;STREAMS:4;COMPRESS:deflate,zstd;MANIFEST:", message);
+        assertEquals(extensions, ProtocolExtensions.parse(message));
+        assertEquals(4, ProtocolExtensions.getInt(ProtocolExtensions.parse(message), ProtocolExtensions.STREAMS, 1));
+    }
+
+    @Test
+    void plainMessagesCarryNoExtensions() {
+        assertTrue(ProtocolExtensions.parse("Received Name").isEmpty());
+        assertTrue(ProtocolExtensions.parse(null).isEmpty());
+        assertEquals(7, ProtocolExtensions.getInt(ProtocolExtensions.parse("Ready for transfer!"), ProtocolExtensions.CHUNKS, 7));
+        assertEquals(7, ProtocolExtensions.getInt(ProtocolExtensions.parse("Ready;CHUNKS:many"), ProtocolExtensions.CHUNKS, 7));
+    }
+
+    @Test
+    void namesAreParsedInEveryLocale() {
+        final Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            final Map<String, String> extensions = ProtocolExtensions.parse("Received Name; chunks : 4194304;delta:4096;manifest");
+            assertEquals("4194304", extensions.get(ProtocolExtensions.CHUNKS));
+            assertEquals("4096", extensions.get(ProtocolExtensions.DELTA));
+            assertEquals("", extensions.get(ProtocolExtensions.MANIFEST));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
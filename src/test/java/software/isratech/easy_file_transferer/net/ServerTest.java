@@ -0,0 +1,142 @@
+package software.isratech.easy_file_transferer.net;
+
+import lombok.NonNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Serves files to clients over loopback.
+ */
+class ServerTest {
+
+    private static final String HOST = InetAddress.getLoopbackAddress().getHostAddress();
+
+    private static final int FILE_SIZE = 3 * 1024 * 1024 + 5;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void furtherClientsAreRefusedWhileTheFirstIsServed() throws Exception {
+        final byte[] content = createContent(21);
+        final Path file = Files.write(Files.createDirectory(directory.resolve("send")).resolve("file.bin"), content);
+        final Path outputDirectory = Files.createDirectory(directory.resolve("receive"));
+        final CountDownLatch accepted = new CountDownLatch(1);
+        final AtomicInteger completions = new AtomicInteger();
+        final Server server = new Server();
+        server.setTuningProfile(TuningProfile.LAN);
+        server.setRateLimit(FILE_SIZE);
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try (final ServerSocket serverSocket = new ServerSocket()) {
+            final Future<?> served = executorService.submit(() -> {
+                server.serve(serverSocket, HOST, 0, Manifest.of(List.of(file.toFile())), new TransferListener() {
+                    @Override
+                    public void onStatus(@NonNull final String status) {
+                        if (status.contains("Accepted connection.")) accepted.countDown();
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completions.incrementAndGet();
+                    }
+                });
+                return null;
+            });
+            final int port = awaitPort(serverSocket);
+            final Future<?> received = executorService.submit(() -> receive(port, outputDirectory, status -> {
+            }));
+            assertTrue(accepted.await(30, TimeUnit.SECONDS));
+            try (final Socket socket = new Socket(HOST, port)) {
+                final Connection connection = new Connection(socket);
+                connection.sendMessage("init");
+                assertNull(connection.receiveMessage());
+            }
+            received.get(30, TimeUnit.SECONDS);
+            served.get(30, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(1, completions.get());
+        assertArrayEquals(content, Files.readAllBytes(outputDirectory.resolve("file.bin")));
+    }
+
+    @Test
+    void fileThatGotSmallerIsSynced() throws Exception {
+        final byte[] existing = createContent(22);
+        final byte[] content = Arrays.copyOfRange(existing, 1024 * 1024, existing.length);
+        final Path file = Files.write(Files.createDirectory(directory.resolve("send")).resolve("file.bin"), content);
+        final Path outputDirectory = Files.createDirectory(directory.resolve("receive"));
+        Files.write(outputDirectory.resolve("file.bin"), existing);
+        final List<String> statuses = new CopyOnWriteArrayList<>();
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try (final ServerSocket serverSocket = new ServerSocket()) {
+            final Future<?> served = executorService.submit(() -> {
+                new Server().serve(serverSocket, HOST, 0, Manifest.of(List.of(file.toFile())), status -> {
+                });
+                return null;
+            });
+            receive(awaitPort(serverSocket), outputDirectory, statuses::add);
+            served.get(30, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertArrayEquals(content, Files.readAllBytes(outputDirectory.resolve("file.bin")));
+        assertTrue(statuses.stream().anyMatch(status -> status.contains("Comparing blocks of the existing file...")), statuses::toString);
+    }
+
+    @Test
+    void smallFileThatGotSmallerIsSentAgain() throws Exception {
+        final byte[] existing = Arrays.copyOf(createContent(23), 500_000);
+        final byte[] content = Arrays.copyOf(existing, 100_000);
+        final Path file = Files.write(Files.createDirectory(directory.resolve("send")).resolve("file.bin"), content);
+        final Path outputDirectory = Files.createDirectory(directory.resolve("receive"));
+        Files.write(outputDirectory.resolve("file.bin"), existing);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try (final ServerSocket serverSocket = new ServerSocket()) {
+            final Future<?> served = executorService.submit(() -> {
+                new Server().serve(serverSocket, HOST, 0, Manifest.of(List.of(file.toFile())), status -> {
+                });
+                return null;
+            });
+            receive(awaitPort(serverSocket), outputDirectory, status -> {
+            });
+            served.get(30, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertArrayEquals(content, Files.readAllBytes(outputDirectory.resolve("file.bin")));
+    }
+
+    private static Void receive(final int port, final Path outputDirectory, final TransferListener listener) throws Exception {
+        final Client client = new Client();
+        client.setTuningProfile(TuningProfile.LAN);
+        client.connect(HOST, port, outputDirectory.toString(), listener);
+        return null;
+    }
+
+    private static int awaitPort(final ServerSocket serverSocket) throws InterruptedException {
+        while (!serverSocket.isBound()) {
+            Thread.sleep(10L);
+        }
+        return serverSocket.getLocalPort();
+    }
+
+    private static byte[] createContent(final long seed) {
+        final byte[] content = new byte[FILE_SIZE];
+        new Random(seed).nextBytes(content);
+        return content;
+    }
+}
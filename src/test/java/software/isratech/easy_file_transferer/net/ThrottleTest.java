@@ -0,0 +1,81 @@
+package software.isratech.easy_file_transferer.net;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.isratech.easy_file_transferer.Constants.MIN_IO_CHUNK_SIZE;
+
+/**
+ * Checks the rates transfers are limited to and how open transfers share the global limit.
+ */
+class ThrottleTest {
+
+    @AfterEach
+    void removeGlobalLimit() {
+        Throttle.setGlobalLimit(0L);
+    }
+
+    @Test
+    void openTransfersShareTheGlobalLimit() {
+        Throttle.setGlobalLimit(12_000_000L);
+        try (final Throttle first = Throttle.open(0L)) {
+            assertEquals(12_000_000L, first.getRate());
+            try (final Throttle second = Throttle.open(0L); final Throttle third = Throttle.open(1_000_000L)) {
+                assertEquals(4_000_000L, first.getRate());
+                assertEquals(4_000_000L, second.getRate());
+                assertEquals(1_000_000L, third.getRate());
+                second.close();
+                assertEquals(6_000_000L, first.getRate());
+            }
+            assertEquals(12_000_000L, first.getRate());
+        }
+    }
+
+    @Test
+    void transfersWithoutLimitsAreNotThrottled() throws Exception {
+        try (final Throttle throttle = Throttle.open(0L)) {
+            assertEquals(0L, throttle.getRate());
+            assertEquals(Integer.MAX_VALUE, throttle.limitChunkSize(Integer.MAX_VALUE));
+            final long start = System.nanoTime();
+            throttle.acquire(Long.MAX_VALUE);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1L));
+        }
+        try (final Throttle throttle = Throttle.open(-5L)) {
+            assertEquals(0L, throttle.getRate());
+        }
+    }
+
+    @Test
+    void chunksAreLimitedToABurst() {
+        try (final Throttle throttle = Throttle.open(100_000_000L)) {
+            assertEquals(10_000_000, throttle.limitChunkSize(Integer.MAX_VALUE));
+            assertEquals(4096, throttle.limitChunkSize(4096));
+        }
+        try (final Throttle throttle = Throttle.open(1000L)) {
+            assertEquals(MIN_IO_CHUNK_SIZE, throttle.limitChunkSize(Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void progressIsDelayedToTheRate() {
+        final List<Long> reported = new ArrayList<>();
+        try (final Throttle throttle = Throttle.open(1_000_000L)) {
+            final LongConsumer onProgress = throttle.throttle(reported::add);
+            final long start = System.nanoTime();
+            onProgress.accept(100_000L);
+            onProgress.accept(300_000L);
+            onProgress.accept(300_000L);
+            final long elapsedNanos = System.nanoTime() - start;
+            // 300 KB at 1 MB/s, of which at most a burst of 100 ms may be sent right away
+            assertTrue(elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(190L), "Took " + elapsedNanos + " ns");
+            assertTrue(elapsedNanos < TimeUnit.SECONDS.toNanos(5L), "Took " + elapsedNanos + " ns");
+        }
+        assertEquals(List.of(100_000L, 300_000L, 300_000L), reported);
+    }
+}
@@ -0,0 +1,215 @@
+package software.isratech.easy_file_transferer.net;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that resumed sends only read the part of the file the receiver does not have yet.
+ */
+class TransferEngineTest {
+
+    private static final int FILE_SIZE = 6 * 1024 * 1024 + 321;
+
+    private static final long RESUME_OFFSET = 4L * 1024 * 1024 + 123;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resumedSendOverSocketReadsOnlyTheRemainingBytes() throws Exception {
+        final byte[] content = createContent();
+        final Path file = writeFile(content);
+        try (
+                final ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+                final CountingFileChannel fileChannel = new CountingFileChannel(FileChannel.open(file, StandardOpenOption.READ))
+        ) {
+            serverSocketChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            final ExecutorService executorService = Executors.newSingleThreadExecutor();
+            try {
+                final Future<byte[]> received = executorService.submit(() -> {
+                    try (final SocketChannel socketChannel = serverSocketChannel.accept()) {
+                        return readFully(socketChannel, FILE_SIZE - RESUME_OFFSET);
+                    }
+                });
+                try (final SocketChannel socketChannel = SocketChannel.open(serverSocketChannel.getLocalAddress())) {
+                    TransferEngine.sendFile(fileChannel, socketChannel, RESUME_OFFSET, FILE_SIZE - RESUME_OFFSET, sent -> {
+                    });
+                }
+                assertArrayEquals(Arrays.copyOfRange(content, (int) RESUME_OFFSET, FILE_SIZE), received.get(30, TimeUnit.SECONDS));
+            } finally {
+                executorService.shutdownNow();
+            }
+            assertEquals(FILE_SIZE - RESUME_OFFSET, fileChannel.bytesRead);
+            assertEquals(RESUME_OFFSET, fileChannel.lowestPosition);
+        }
+    }
+
+    @Test
+    void resumedPipelinedSendReadsOnlyTheRemainingBytes() throws Exception {
+        final byte[] content = createContent();
+        final Path file = writeFile(content);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (final CountingFileChannel fileChannel = new CountingFileChannel(FileChannel.open(file, StandardOpenOption.READ))) {
+            TransferEngine.sendFile(fileChannel, Channels.newChannel(output), RESUME_OFFSET, FILE_SIZE - RESUME_OFFSET, sent -> {
+            });
+            assertEquals(FILE_SIZE - RESUME_OFFSET, fileChannel.bytesRead);
+            assertEquals(RESUME_OFFSET, fileChannel.lowestPosition);
+        }
+        assertArrayEquals(Arrays.copyOfRange(content, (int) RESUME_OFFSET, FILE_SIZE), output.toByteArray());
+    }
+
+    private static byte[] createContent() {
+        final byte[] content = new byte[FILE_SIZE];
+        new Random(3).nextBytes(content);
+        return content;
+    }
+
+    private Path writeFile(final byte[] content) throws IOException {
+        return Files.write(directory.resolve("file.bin"), content);
+    }
+
+    private static byte[] readFully(final SocketChannel socketChannel, final long length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (socketChannel.read(buffer) < 0) break;
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Counts the bytes read from a file, whether they are read into buffers or transferred by the kernel.
+     */
+    private static class CountingFileChannel extends FileChannel {
+
+        private final FileChannel delegate;
+
+        private volatile long bytesRead = 0L;
+
+        private volatile long lowestPosition = Long.MAX_VALUE;
+
+        private CountingFileChannel(final FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        private synchronized void count(final long position, final long bytes) {
+            if (bytes <= 0) return;
+            bytesRead += bytes;
+            lowestPosition = Math.min(lowestPosition, position);
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) throws IOException {
+            final long position = delegate.position();
+            final int read = delegate.read(dst);
+            count(position, read);
+            return read;
+        }
+
+        @Override
+        public long read(final ByteBuffer[] dsts, final int offset, final int length) throws IOException {
+            final long position = delegate.position();
+            final long read = delegate.read(dsts, offset, length);
+            count(position, read);
+            return read;
+        }
+
+        @Override
+        public int read(final ByteBuffer dst, final long position) throws IOException {
+            final int read = delegate.read(dst, position);
+            count(position, read);
+            return read;
+        }
+
+        @Override
+        public long transferTo(final long position, final long count, final WritableByteChannel target) throws IOException {
+            final long transferred = delegate.transferTo(position, count, target);
+            count(position, transferred);
+            return transferred;
+        }
+
+        @Override
+        public MappedByteBuffer map(final MapMode mode, final long position, final long size) throws IOException {
+            count(position, size);
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public int write(final ByteBuffer src, final long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(final long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(final long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(final boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferFrom(final ReadableByteChannel src, final long position, final long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public FileLock lock(final long position, final long size, final boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(final long position, final long size, final boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
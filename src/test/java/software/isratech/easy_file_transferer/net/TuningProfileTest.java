@@ -0,0 +1,74 @@
+package software.isratech.easy_file_transferer.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.Socket;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks how profiles are parsed, picked for measured links and applied to sockets.
+ */
+class TuningProfileTest {
+
+    @Test
+    void namesAreParsedIgnoringTheirCase() {
+        assertEquals(TuningProfile.WAN, TuningProfile.parse("wan"));
+        assertEquals(TuningProfile.AUTO, TuningProfile.parse("Auto"));
+        assertEquals(TuningProfile.TEN_GIGABIT, TuningProfile.parse("10g"));
+        assertEquals(TuningProfile.TEN_GIGABIT, TuningProfile.parse("ten_gigabit"));
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.parse("fast"));
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.parse(""));
+    }
+
+    @Test
+    void namesAreParsedInEveryLocale() {
+        final Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            assertEquals(TuningProfile.LAN, TuningProfile.parse("lan"));
+            assertEquals(TuningProfile.TEN_GIGABIT, TuningProfile.parse("ten_gigabit"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    void autoPicksAProfileForTheMeasuredLink() {
+        final long lanRoundTrip = TimeUnit.MICROSECONDS.toNanos(300L);
+        final long wanRoundTrip = TimeUnit.MILLISECONDS.toNanos(40L);
+        assertEquals(TuningProfile.LAN, TuningProfile.AUTO.resolve(lanRoundTrip, 100e6));
+        assertEquals(TuningProfile.LAN, TuningProfile.AUTO.resolve(-1L, 0d));
+        assertEquals(TuningProfile.WAN, TuningProfile.AUTO.resolve(wanRoundTrip, 5e6));
+        assertEquals(TuningProfile.TEN_GIGABIT, TuningProfile.AUTO.resolve(lanRoundTrip, 1e9));
+        assertEquals(TuningProfile.TEN_GIGABIT, TuningProfile.AUTO.resolve(wanRoundTrip, 1e9));
+    }
+
+    @Test
+    void otherProfilesKeepThemselves() {
+        for (final TuningProfile profile : TuningProfile.values()) {
+            if (profile == TuningProfile.AUTO) continue;
+            assertEquals(profile, profile.resolve(TimeUnit.MILLISECONDS.toNanos(40L), 1e9));
+        }
+    }
+
+    @Test
+    void socketsGetTheProfilesOptions() throws Exception {
+        try (final Socket socket = new Socket()) {
+            final int defaultReceiveBufferSize = socket.getReceiveBufferSize();
+            SocketTuning.configure(socket, TuningProfile.SYSTEM);
+            assertFalse(socket.getTcpNoDelay());
+            assertEquals(defaultReceiveBufferSize, socket.getReceiveBufferSize());
+            SocketTuning.configure(socket, TuningProfile.LAN);
+            assertTrue(socket.getTcpNoDelay());
+            assertEquals(defaultReceiveBufferSize, socket.getReceiveBufferSize());
+            SocketTuning.configure(socket, TuningProfile.WAN);
+            // a buffer the system would cap is left to the kernel's automatic tuning
+            final int receiveBufferSize = socket.getReceiveBufferSize();
+            assertTrue(receiveBufferSize == defaultReceiveBufferSize || receiveBufferSize >= TuningProfile.WAN.getReceiveBufferSize(),
+                    "Receive buffer of " + receiveBufferSize + " bytes");
+        }
+    }
+}